@@ -0,0 +1,106 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import com.getcapacitor.JSObject;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+/**
+ * Runs the streaming projection on a device, as {@code android.util.JsonReader} and
+ * {@code org.json} are only stubs on the local JVM
+ */
+@RunWith(AndroidJUnit4.class)
+public class JsonProjectionInstrumentedTest {
+
+    private static final String BODY =
+        "{\"meta\":{\"items\":[{\"id\":-1}],\"page\":1}," +
+        "\"items\":[" +
+        "{\"id\":1,\"tags\":[\"a\",\"b\"],\"owner\":{\"name\":\"x\"}}," +
+        "{\"skipped\":[[1,2],{\"id\":99}],\"id\":2,\"tags\":[]}," +
+        "{\"id\":3.5,\"tags\":[\"c\"],\"owner\":null}" +
+        "],\"total\":3}";
+
+    private static JSObject project(String body, String... expressions) throws IOException, JSONException {
+        return JsonProjection
+            .compile(Arrays.asList(expressions))
+            .project(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void wildcards_over_arrays_match_every_element_in_document_order() throws Exception {
+        JSONArray ids = project(BODY, "$.items[*].id").getJSONArray("$.items[*].id");
+
+        assertEquals(3, ids.length());
+        assertEquals(1L, ids.get(0));
+        assertEquals(2L, ids.get(1));
+        assertEquals(3.5, ids.getDouble(2), 0);
+    }
+
+    @Test
+    public void nested_wildcards_flatten_their_matches() throws Exception {
+        JSONArray tags = project(BODY, "$.items[*].tags[*]").getJSONArray("$.items[*].tags[*]");
+
+        assertEquals(3, tags.length());
+        assertEquals("a", tags.getString(0));
+        assertEquals("b", tags.getString(1));
+        assertEquals("c", tags.getString(2));
+    }
+
+    @Test
+    public void siblings_off_the_path_are_skipped() throws Exception {
+        JSObject result = project(BODY, "$.items[1].id", "$.total", "$.missing", "$.items[5]");
+
+        assertEquals(1, result.getJSONArray("$.items[1].id").length());
+        assertEquals(2L, result.getJSONArray("$.items[1].id").get(0));
+        assertEquals(3L, result.getJSONArray("$.total").get(0));
+        assertEquals(0, result.getJSONArray("$.missing").length());
+        assertEquals(0, result.getJSONArray("$.items[5]").length());
+    }
+
+    @Test
+    public void overlapping_expressions_each_get_their_matches() throws Exception {
+        JSObject result = project(BODY, "$.items[0]", "$.items[*].owner.name", "$.items[0].tags[1]");
+
+        JSONObject first = (JSONObject) result.getJSONArray("$.items[0]").get(0);
+        assertEquals(1L, first.get("id"));
+        assertEquals("x", first.getJSONObject("owner").getString("name"));
+
+        JSONArray names = result.getJSONArray("$.items[*].owner.name");
+        assertEquals(1, names.length());
+        assertEquals("x", names.getString(0));
+        assertEquals("b", result.getJSONArray("$.items[0].tags[1]").getString(0));
+    }
+
+    @Test
+    public void member_wildcards_keep_the_document_order() throws Exception {
+        JSONArray ids = project("{\"b\":{\"id\":2},\"a\":{\"id\":1},\"c\":[]}", "$.*.id").getJSONArray("$.*.id");
+
+        assertEquals(2, ids.length());
+        assertEquals(2L, ids.get(0));
+        assertEquals(1L, ids.get(1));
+    }
+
+    @Test
+    public void root_selects_the_whole_document() throws Exception {
+        JSONArray root = project("[true,null,\"s\"]", "$").getJSONArray("$");
+
+        JSONArray document = (JSONArray) root.get(0);
+        assertEquals(true, document.get(0));
+        assertEquals(JSONObject.NULL, document.get(1));
+        assertEquals("s", document.get(2));
+    }
+
+    @Test(expected = JSONException.class)
+    public void malformed_bodies_are_rejected() throws Exception {
+        project("{\"items\":[1,}", "$.items[*]");
+    }
+}
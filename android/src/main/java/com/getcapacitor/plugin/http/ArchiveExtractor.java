@@ -0,0 +1,444 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Extracts a zip, tar or gzipped tar archive into a directory while it is being downloaded, so
+ * that the archive itself is never written to disk. Entries are written as their bytes arrive.
+ * <p>
+ * Entries are only ever written inside the target directory: absolute names, {@code ..} segments
+ * and anything resolving outside of it are rejected, and tar links and special files are skipped.
+ * The number of entries and the number of bytes extracted, per entry and in total, are limited to
+ * guard against archive bombs.
+ * <p>
+ * Entries are extracted into a hidden sibling of the target directory, and only moved into it by
+ * {@link #commit()} once the whole download succeeded, replacing the files of the same name. A
+ * rejected, truncated, cancelled or otherwise failed extraction leaves the target directory as it
+ * was, and {@link #rollback()} removes what was extracted.
+ */
+class ArchiveExtractor {
+
+    static final String FORMAT_ZIP = "zip";
+    static final String FORMAT_TAR = "tar";
+    static final String FORMAT_TAR_GZ = "tgz";
+
+    static final int DEFAULT_MAX_ENTRIES = 10000;
+    static final long DEFAULT_MAX_TOTAL_SIZE = 1024L * 1024 * 1024;
+
+    private static final int TAR_BLOCK_SIZE = 512;
+
+    interface Listener {
+        /**
+         * Called once an entry was extracted
+         * @param name the name of the entry in the archive
+         * @param bytes the size of the entry
+         * @param files the number of files extracted so far, including this one
+         */
+        void onEntry(String name, long bytes, int files);
+    }
+
+    private final File directory;
+    private final File staging;
+    private final String canonicalDirectory;
+    private final int maxEntries;
+    private final long maxEntrySize;
+    private final long maxTotalSize;
+    private boolean createdDirectory = false;
+    private boolean committed = false;
+    private int entries = 0;
+    private int files = 0;
+    private long totalBytes = 0;
+
+    /**
+     * @param directory the directory to extract into, created if needed
+     * @param maxEntries the max number of entries
+     * @param maxEntrySize the max size of an extracted entry in bytes
+     * @param maxTotalSize the max total size of the extracted entries in bytes
+     * @throws IOException thrown if the directory or its staging directory can't be created
+     */
+    ArchiveExtractor(File directory, int maxEntries, long maxEntrySize, long maxTotalSize) throws IOException {
+        this.directory = directory;
+        this.staging = new File(directory.getAbsoluteFile().getParentFile(), "." + directory.getName() + ".extracting");
+        this.maxEntries = maxEntries;
+        this.maxEntrySize = maxEntrySize;
+        this.maxTotalSize = maxTotalSize;
+        if (!directory.isDirectory()) {
+            if (!directory.mkdirs()) throw new IOException("Unable to create the directory " + directory);
+            createdDirectory = true;
+        }
+        this.canonicalDirectory = directory.getCanonicalPath() + File.separator;
+        // left behind by an extraction that was interrupted by the app being killed
+        delete(staging);
+        if (!staging.mkdir()) throw new IOException("Unable to create the directory " + staging);
+    }
+
+    /**
+     * Returns the number of files extracted
+     */
+    int getFiles() {
+        return files;
+    }
+
+    long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Extracts an archive
+     * @param in the archive
+     * @param format one of the {@code FORMAT_} constants, or {@code null} to detect it from the
+     *               first bytes of the archive
+     * @param requestContext the context of the download, checked for aborts between writes, or
+     *                       {@code null}
+     * @param listener notified of every extracted entry
+     * @throws RequestAbortedException thrown if the archive has an unsafe entry or exceeds a limit
+     * @throws IOException thrown if the archive can't be read or an entry can't be written
+     */
+    void extract(InputStream in, String format, RequestContext requestContext, Listener listener) throws IOException {
+        boolean extracted = false;
+        try {
+            InputStream buffered = new BufferedInputStream(in, 8192);
+            if (format == null) format = detectFormat(buffered);
+            switch (format) {
+                case FORMAT_ZIP:
+                    extractZip(buffered, requestContext, listener);
+                    break;
+                case FORMAT_TAR:
+                    extractTar(buffered, requestContext, listener);
+                    break;
+                case FORMAT_TAR_GZ:
+                    extractTar(new GZIPInputStream(buffered, 8192), requestContext, listener);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported archive format: " + format);
+            }
+            extracted = true;
+        } finally {
+            if (!extracted) rollback();
+        }
+    }
+
+    /**
+     * Detects the format of an archive from its magic bytes, without consuming them
+     */
+    static String detectFormat(InputStream in) throws IOException {
+        byte[] header = new byte[TAR_BLOCK_SIZE];
+        in.mark(header.length);
+        int count = readFully(in, header, 0, header.length);
+        in.reset();
+
+        if (count >= 4 && header[0] == 'P' && header[1] == 'K' && header[2] == 3 && header[3] == 4) {
+            return FORMAT_ZIP;
+        }
+        if (count >= 2 && (header[0] & 0xff) == 0x1f && (header[1] & 0xff) == 0x8b) {
+            return FORMAT_TAR_GZ;
+        }
+        if (count == TAR_BLOCK_SIZE && new String(header, 257, 5, StandardCharsets.US_ASCII).equals("ustar")) {
+            return FORMAT_TAR;
+        }
+        throw reject("The download is not a zip, tar or gzipped tar archive");
+    }
+
+    private void extractZip(InputStream in, RequestContext requestContext, Listener listener) throws IOException {
+        ZipInputStream zip = new ZipInputStream(in);
+        ZipEntry entry;
+        while ((entry = zip.getNextEntry()) != null) {
+            countEntry();
+            String name = entry.getName();
+            if (entry.isDirectory()) {
+                mkdirs(resolve(name));
+            } else {
+                long bytes = write(zip, resolve(name), Long.MAX_VALUE, requestContext);
+                listener.onEntry(name, bytes, files);
+            }
+        }
+    }
+
+    private void extractTar(InputStream in, RequestContext requestContext, Listener listener) throws IOException {
+        byte[] header = new byte[TAR_BLOCK_SIZE];
+        String longName = null;
+        while (true) {
+            if (readFully(in, header, 0, TAR_BLOCK_SIZE) < TAR_BLOCK_SIZE) {
+                throw new EOFException("The tar archive is truncated");
+            }
+            // the archive ends with zero blocks
+            if (isZeroBlock(header)) return;
+
+            char type = (char) header[156];
+            long size = parseTarSize(header);
+            String name = longName != null ? longName : parseTarName(header);
+            longName = null;
+
+            if (type == 'L' || type == 'x') {
+                // a GNU long name or a PAX header holding the name of the next entry
+                longName = readTarMetadataName(in, size, type == 'x');
+                skip(in, padding(size));
+                continue;
+            }
+            countEntry();
+            if (type == '0' || type == '\0' || type == '7') {
+                long bytes = write(in, resolve(name), size, requestContext);
+                listener.onEntry(name, bytes, files);
+            } else {
+                if (type == '5') mkdirs(resolve(name));
+                // links and special files are never created
+                skip(in, size);
+            }
+            skip(in, padding(size));
+        }
+    }
+
+    /**
+     * Writes the next entry to a file
+     * @param in the archive, positioned at the data of the entry
+     * @param file the file to write
+     * @param size the number of bytes to write, or {@code Long.MAX_VALUE} to write until the end
+     *             of the stream
+     * @return the number of bytes written
+     */
+    private long write(InputStream in, File file, long size, RequestContext requestContext) throws IOException {
+        if (size != Long.MAX_VALUE && (size > maxEntrySize || totalBytes + size > maxTotalSize)) {
+            throw reject("The archive entry " + file.getName() + " is too large");
+        }
+        mkdirs(file.getParentFile());
+        OutputStream out = new FileOutputStream(file, false);
+
+        long written = 0;
+        try {
+            byte[] buffer = new byte[8192];
+            while (written < size) {
+                int count = in.read(buffer, 0, (int) Math.min(buffer.length, size - written));
+                if (count < 0) {
+                    if (size == Long.MAX_VALUE) break;
+                    throw new EOFException("The archive is truncated");
+                }
+                if (requestContext != null) requestContext.checkAborted();
+                written += count;
+                totalBytes += count;
+                // checked while writing, since the size of a zip entry isn't known up front
+                if (written > maxEntrySize || totalBytes > maxTotalSize) {
+                    throw reject("The archive entry " + file.getName() + " is too large");
+                }
+                out.write(buffer, 0, count);
+            }
+        } finally {
+            out.close();
+        }
+        files++;
+        return written;
+    }
+
+    private void countEntry() throws RequestAbortedException {
+        if (++entries > maxEntries) {
+            throw reject("The archive has more than " + maxEntries + " entries");
+        }
+    }
+
+    /**
+     * Resolves the name of an entry to the file it is extracted to in the staging directory
+     * @throws RequestAbortedException thrown if the entry would be written outside of the target
+     * directory
+     */
+    File resolve(String name) throws IOException {
+        String normalized = name.replace('\\', '/');
+        boolean unsafe = normalized.isEmpty() || normalized.startsWith("/") || normalized.indexOf('\0') >= 0;
+        for (String segment : normalized.split("/")) {
+            unsafe |= segment.equals("..");
+        }
+        if (unsafe) {
+            throw reject("The archive has an entry with an unsafe name: " + name);
+        }
+
+        // also catches links already in the directory that lead out of it
+        File file = new File(directory, normalized);
+        String canonical = file.getCanonicalPath() + File.separator;
+        if (!canonical.startsWith(canonicalDirectory)) {
+            throw reject("The archive has an entry outside of the target directory: " + name);
+        }
+        return new File(staging, normalized);
+    }
+
+    /**
+     * Moves the extracted entries into the target directory, replacing the files of the same name.
+     * Nothing is moved if an entry conflicts with a file or directory of the other kind.
+     * @throws IOException thrown if an entry conflicts or can't be moved
+     */
+    void commit() throws IOException {
+        checkConflicts(staging, directory);
+        move(staging, directory);
+        committed = true;
+        delete(staging);
+    }
+
+    /**
+     * Removes the extracted entries that weren't committed, and the target directory if it was
+     * created for them
+     */
+    void rollback() {
+        delete(staging);
+        if (!committed && createdDirectory) directory.delete();
+    }
+
+    private static void checkConflicts(File from, File to) throws IOException {
+        File[] children = from.listFiles();
+        if (children == null) return;
+        for (File child : children) {
+            File target = new File(to, child.getName());
+            if (child.isDirectory() && target.exists() && !target.isDirectory()) {
+                throw new IOException("Unable to replace the file " + target + " with a directory");
+            } else if (!child.isDirectory() && target.isDirectory()) {
+                throw new IOException("Unable to replace the directory " + target + " with a file");
+            }
+            if (child.isDirectory()) checkConflicts(child, target);
+        }
+    }
+
+    private static void move(File from, File to) throws IOException {
+        File[] children = from.listFiles();
+        if (children == null) return;
+        for (File child : children) {
+            File target = new File(to, child.getName());
+            if (child.isDirectory()) {
+                if (!target.isDirectory() && !target.mkdir()) {
+                    throw new IOException("Unable to create the directory " + target);
+                }
+                move(child, target);
+            } else if (!child.renameTo(target)) {
+                throw new IOException("Unable to move " + child + " to " + target);
+            }
+        }
+    }
+
+    private void mkdirs(File dir) throws IOException {
+        if (dir.isDirectory()) return;
+        File parent = dir.getParentFile();
+        if (parent != null && !parent.equals(staging)) mkdirs(parent);
+        if (!dir.mkdir() && !dir.isDirectory()) {
+            throw new IOException("Unable to create the directory " + dir);
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private String readTarMetadataName(InputStream in, long size, boolean pax) throws IOException {
+        if (size > 64 * 1024) throw reject("The archive has an oversized tar header");
+        byte[] data = new byte[(int) size];
+        if (readFully(in, data, 0, data.length) < data.length) {
+            throw new EOFException("The tar archive is truncated");
+        }
+        String text = new String(data, StandardCharsets.UTF_8);
+        if (!pax) {
+            int end = text.indexOf('\0');
+            return end >= 0 ? text.substring(0, end) : text;
+        }
+        // PAX records are "<length> <key>=<value>\n"
+        for (String record : text.split("\n")) {
+            int space = record.indexOf(' ');
+            if (space >= 0 && record.startsWith("path=", space + 1)) {
+                return record.substring(space + 1 + "path=".length());
+            }
+        }
+        return null;
+    }
+
+    private static String parseTarName(byte[] header) {
+        String name = parseTarString(header, 0, 100);
+        String prefix = new String(header, 257, 5, StandardCharsets.US_ASCII).equals("ustar") ? parseTarString(header, 345, 155) : "";
+        return prefix.isEmpty() ? name : prefix + "/" + name;
+    }
+
+    private static String parseTarString(byte[] header, int offset, int length) {
+        int end = offset;
+        while (end < offset + length && header[end] != 0) end++;
+        return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+    }
+
+    static long parseTarSize(byte[] header) throws IOException {
+        // sizes over 8 GB are stored in base-256, flagged by the high bit
+        if ((header[124] & 0x80) != 0) {
+            long size = 0;
+            for (int i = 125; i < 136; i++) {
+                size = (size << 8) | (header[i] & 0xff);
+            }
+            return size;
+        }
+        String octal = parseTarString(header, 124, 12).trim();
+        try {
+            return octal.isEmpty() ? 0 : Long.parseLong(octal, 8);
+        } catch (NumberFormatException ex) {
+            throw reject("The tar archive has an invalid entry size");
+        }
+    }
+
+    private static boolean isZeroBlock(byte[] block) {
+        for (byte b : block) {
+            if (b != 0) return false;
+        }
+        return true;
+    }
+
+    private static long padding(long size) {
+        return (TAR_BLOCK_SIZE - size % TAR_BLOCK_SIZE) % TAR_BLOCK_SIZE;
+    }
+
+    private static void skip(InputStream in, long count) throws IOException {
+        byte[] buffer = new byte[8192];
+        while (count > 0) {
+            int read = in.read(buffer, 0, (int) Math.min(buffer.length, count));
+            if (read < 0) throw new EOFException("The archive is truncated");
+            count -= read;
+        }
+    }
+
+    private static int readFully(InputStream in, byte[] buffer, int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int count = in.read(buffer, offset + total, length - total);
+            if (count < 0) break;
+            total += count;
+        }
+        return total;
+    }
+
+    private static RequestAbortedException reject(String message) {
+        return new RequestAbortedException(RequestAbortedException.ARCHIVE_REJECTED, message);
+    }
+
+    /**
+     * Returns the format named by the {@code format} option
+     * @return the format, or {@code null} to detect it
+     */
+    static String parseFormat(String format) {
+        if (format == null) return null;
+        switch (format.toLowerCase(Locale.ROOT)) {
+            case "zip":
+                return FORMAT_ZIP;
+            case "tar":
+                return FORMAT_TAR;
+            case "tgz":
+            case "tar.gz":
+                return FORMAT_TAR_GZ;
+            default:
+                throw new IllegalArgumentException("Unsupported archive format: " + format);
+        }
+    }
+}
@@ -15,11 +15,75 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CapacitorCookieManager extends CookieManager {
 
+    /**
+     * Controls whether a request sends stored cookies and whether it stores the cookies it receives
+     */
+    public enum CookieAccess {
+        READ_WRITE("readWrite", true, true),
+        READ_ONLY("readOnly", true, false),
+        WRITE_ONLY("writeOnly", false, true),
+        NONE("none", false, false);
+
+        private final String name;
+        final boolean canRead;
+        final boolean canWrite;
+
+        CookieAccess(String name, boolean canRead, boolean canWrite) {
+            this.name = name;
+            this.canRead = canRead;
+            this.canWrite = canWrite;
+        }
+
+        /**
+         * Parses a cookie policy name
+         * @param value the policy name, or {@code null}
+         * @return the cookie access, or {@code null} if no policy was given
+         * @throws IllegalArgumentException thrown if the policy is unknown
+         */
+        static CookieAccess parse(String value) {
+            if (value == null) return null;
+            for (CookieAccess access : values()) {
+                if (access.name.equalsIgnoreCase(value)) {
+                    return access;
+                }
+            }
+            throw new IllegalArgumentException("Unknown cookie policy '" + value + "'");
+        }
+    }
+
+    /**
+     * How long cookie writes are allowed to accumulate in memory before they are persisted
+     */
+    public static final long FLUSH_DELAY_MS = 500;
+
+    private static final String EXPIRED_COOKIE_SUFFIX = "=; Expires=Wed, 31 Dec 2000 23:59:59 GMT";
+
     private final android.webkit.CookieManager webkitCookieManager;
 
+    private final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CapacitorCookieFlush");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }
+    );
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    private final CookieIndex cookieIndex;
+
+    private volatile Map<String, CookieAccess> hostCookieAccess = Collections.emptyMap();
+
     /**
      * Create a new cookie manager for use with @capacitor-community/http with the default cookie
      * store and policy
@@ -39,6 +103,66 @@ public class CapacitorCookieManager extends CookieManager {
     public CapacitorCookieManager(CookieStore store, CookiePolicy policy) {
         super(store, policy);
         webkitCookieManager = android.webkit.CookieManager.getInstance();
+        cookieIndex =
+            new CookieIndex(
+                new CookieIndex.Source() {
+                    @Override
+                    public String getCookie(String url) {
+                        return webkitCookieManager.getCookie(url);
+                    }
+                }
+            );
+    }
+
+    /**
+     * Sets how long cookies read from the WebView are served from memory before being read again.
+     *  Writes made through this cookie manager are always visible immediately; the max age only
+     *  bounds how long cookies set directly by the WebView take to reach native requests.
+     * @param maxAgeMs the max age in milliseconds, 0 to always read from the WebView
+     */
+    public void setCookieCacheMaxAge(long maxAgeMs) {
+        cookieIndex.setMaxAge(maxAgeMs);
+    }
+
+    /**
+     * Sets the cookie access used for requests to the given hosts when the request itself doesn't
+     *  specify one. A host also matches all of its subdomains.
+     * @param hostCookieAccess a map of host names to their cookie access
+     */
+    public void setHostCookieAccess(Map<String, CookieAccess> hostCookieAccess) {
+        this.hostCookieAccess = new HashMap<>(hostCookieAccess);
+    }
+
+    /**
+     * Resolves the cookie access for a request, preferring the per-request value
+     * @param uri the request URI
+     * @return the cookie access to apply
+     */
+    CookieAccess getCookieAccess(URI uri) {
+        RequestContext context = RequestContext.current();
+        CookieAccess access = context != null ? context.cookieAccess : null;
+        if (access != null) return access;
+
+        Map<String, CookieAccess> hosts = hostCookieAccess;
+        String host = uri.getHost();
+        if (hosts.isEmpty() || host == null) return CookieAccess.READ_WRITE;
+
+        host = host.toLowerCase();
+        while (true) {
+            access = hosts.get(host);
+            if (access != null) return access;
+            int dot = host.indexOf('.');
+            if (dot < 0) return CookieAccess.READ_WRITE;
+            host = host.substring(dot + 1);
+        }
+    }
+
+    /**
+     * Returns the in-memory index answering cookie lookups, for inspecting its hit rate and latency
+     * @return the cookie index
+     */
+    CookieIndex getCookieIndex() {
+        return cookieIndex;
     }
 
     /**
@@ -47,7 +171,7 @@ public class CapacitorCookieManager extends CookieManager {
      * @return value the cookies as a string, using the format of the 'Cookie' HTTP request header
      */
     public String getCookieString(String url) {
-        return webkitCookieManager.getCookie(url);
+        return cookieIndex.lookup(url).cookieString;
     }
 
     /**
@@ -58,14 +182,7 @@ public class CapacitorCookieManager extends CookieManager {
      *         otherwise it will return a new empty {@code HttpCookie}
      */
     public HttpCookie getCookie(String url, String key) {
-        HttpCookie[] cookies = getCookies(url);
-        for (HttpCookie cookie : cookies) {
-            if (cookie.getName().equals(key)) {
-                return cookie;
-            }
-        }
-
-        return null;
+        return cookieIndex.lookup(url).get(key);
     }
 
     /**
@@ -74,33 +191,22 @@ public class CapacitorCookieManager extends CookieManager {
      * @return an {@code HttpCookie} array of non-expired cookies
      */
     public HttpCookie[] getCookies(String url) {
-        try {
-            ArrayList<HttpCookie> cookieList = new ArrayList<>();
-            String cookieString = getCookieString(url);
-            if (cookieString != null) {
-                String[] singleCookie = cookieString.split(";");
-                for (String c : singleCookie) {
-                    HttpCookie parsed = HttpCookie.parse(c).get(0);
-                    parsed.setValue(parsed.getValue());
-                    cookieList.add(parsed);
-                }
-            }
-            HttpCookie[] cookies = new HttpCookie[cookieList.size()];
-            return cookieList.toArray(cookies);
-        } catch (Exception ex) {
-            return new HttpCookie[0];
-        }
+        List<HttpCookie> cookieList = cookieIndex.lookup(url).cookies;
+        HttpCookie[] cookies = new HttpCookie[cookieList.size()];
+        return cookieList.toArray(cookies);
     }
 
     /**
      * Sets a cookie for the given URL. Any existing cookie with the same host, path and name will
      *  be replaced with the new cookie. The cookie being set will be ignored if it is expired.
+     *  The cookie is visible to subsequent requests immediately and persisted in the background.
      * @param url the URL for which the cookie is to be set
      * @param value the cookie as a string, using the format of the 'Set-Cookie' HTTP response header
      */
     public void setCookie(String url, String value) {
         webkitCookieManager.setCookie(url, value);
-        flush();
+        cookieIndex.invalidate(url, value);
+        scheduleFlush();
     }
 
     /**
@@ -115,12 +221,49 @@ public class CapacitorCookieManager extends CookieManager {
         setCookie(url, cookieValue);
     }
 
+    /**
+     * Sets several cookies for the given URL and persists them with a single flush. Each cookie
+     *  follows the same rules as {@link #setCookie(String, String)}.
+     * @param url the URL for which the cookies are to be set
+     * @param values the cookies as strings, using the format of the 'Set-Cookie' HTTP response header
+     */
+    public void setCookies(String url, List<String> values) {
+        for (String value : values) {
+            webkitCookieManager.setCookie(url, value);
+            cookieIndex.invalidate(url, value);
+        }
+        flush();
+    }
+
+    /**
+     * Deletes a cookie for the given URL by setting it to expire immediately
+     * @param url the URL for which the cookie is to be deleted
+     * @param key the {@code HttpCookie} name to delete
+     */
+    public void deleteCookie(String url, String key) {
+        setCookie(url, key + EXPIRED_COOKIE_SUFFIX);
+    }
+
+    /**
+     * Deletes several cookies for the given URL and persists the change with a single flush
+     * @param url the URL for which the cookies are to be deleted
+     * @param keys the {@code HttpCookie} names to delete
+     */
+    public void deleteCookies(String url, List<String> keys) {
+        List<String> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            values.add(key + EXPIRED_COOKIE_SUFFIX);
+        }
+        setCookies(url, values);
+    }
+
     /**
      * Removes all cookies. This method is asynchronous.
      */
     public void removeAllCookies() {
         webkitCookieManager.removeAllCookies(null);
-        flush();
+        cookieIndex.clear();
+        scheduleFlush();
     }
 
     /**
@@ -128,14 +271,39 @@ public class CapacitorCookieManager extends CookieManager {
      *  storage. This call will block the caller until it is done and may perform I/O.
      */
     public void flush() {
+        flushScheduled.set(false);
         webkitCookieManager.flush();
     }
 
+    /**
+     * Schedules a background {@link #flush()} unless one is already pending, so that any number
+     *  of cookie writes made within {@link #FLUSH_DELAY_MS} are persisted with a single flush.
+     */
+    public void scheduleFlush() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            flushExecutor.schedule(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        if (flushScheduled.get()) {
+                            flush();
+                        }
+                    }
+                },
+                FLUSH_DELAY_MS,
+                TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
     @Override
     public void put(URI uri, Map<String, List<String>> responseHeaders) {
         // make sure our args are valid
         if ((uri == null) || (responseHeaders == null)) return;
 
+        // skip cookie processing entirely for requests that don't store cookies
+        if (!getCookieAccess(uri).canWrite) return;
+
         // save our url once
         String url = uri.toString();
 
@@ -162,6 +330,9 @@ public class CapacitorCookieManager extends CookieManager {
         // prepare our response
         Map<String, List<String>> res = new HashMap<>();
 
+        // skip the cookie lookup entirely for requests that don't send cookies
+        if (!getCookieAccess(uri).canRead) return res;
+
         // get the cookie
         String cookie = getCookieString(url);
 
@@ -9,6 +9,7 @@ import com.getcapacitor.PluginCall;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.ProtocolException;
 import java.net.SocketTimeoutException;
@@ -26,6 +27,10 @@ public class CapacitorHttpUrlConnection implements ICapacitorHttpUrlConnection {
 
     private final HttpURLConnection connection;
 
+    private CountingOutputStream outputStream;
+    private CountingInputStream inputStream;
+    private CountingInputStream errorStream;
+
     /**
      * Make a new CapacitorHttpUrlConnection instance, which wraps around HttpUrlConnection
      * and provides some helper functions for setting request headers and the request body
@@ -203,7 +208,7 @@ public class CapacitorHttpUrlConnection implements ICapacitorHttpUrlConnection {
             }
             this.writeRequestBody(builder.toString());
         } else if (contentType.contains("multipart/form-data")) {
-            FormUploader uploader = new FormUploader(connection);
+            FormUploader uploader = new FormUploader(this);
 
             JSObject obj = body.toJSObject();
             Iterator<String> keys = obj.keys();
@@ -225,7 +230,7 @@ public class CapacitorHttpUrlConnection implements ICapacitorHttpUrlConnection {
      * @param body The string value to write to the connection stream.
      */
     private void writeRequestBody(String body) throws IOException {
-        try (DataOutputStream os = new DataOutputStream(connection.getOutputStream())) {
+        try (DataOutputStream os = new DataOutputStream(getOutputStream())) {
             os.write(body.getBytes(StandardCharsets.UTF_8));
             os.flush();
         }
@@ -305,7 +310,13 @@ public class CapacitorHttpUrlConnection implements ICapacitorHttpUrlConnection {
      */
     @Override
     public InputStream getErrorStream() {
-        return connection.getErrorStream();
+        if (errorStream == null) {
+            InputStream stream = connection.getErrorStream();
+            if (stream != null) {
+                errorStream = new CountingInputStream(stream);
+            }
+        }
+        return errorStream;
     }
 
     /**
@@ -340,7 +351,43 @@ public class CapacitorHttpUrlConnection implements ICapacitorHttpUrlConnection {
      */
     @Override
     public InputStream getInputStream() throws IOException {
-        return connection.getInputStream();
+        if (inputStream == null) {
+            inputStream = new CountingInputStream(connection.getInputStream());
+        }
+        return inputStream;
+    }
+
+    /**
+     * Returns an output stream that writes to this connection.
+     *
+     * @return     an output stream that writes to this connection.
+     * @exception  IOException              if an I/O error occurs while
+     *               creating the output stream.
+     * @exception UnknownServiceException  if the protocol does not support
+     *               output.
+     */
+    public OutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CountingOutputStream(connection.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    /**
+     * Returns the number of request body bytes written to this connection so far
+     * @return the request body size in bytes
+     */
+    public long getRequestBodySize() {
+        return outputStream != null ? outputStream.getCount() : 0;
+    }
+
+    /**
+     * Returns the number of response body bytes read from this connection so far, including
+     * bytes read from the error stream
+     * @return the response body size in bytes
+     */
+    public long getResponseBodySize() {
+        return (inputStream != null ? inputStream.getCount() : 0) + (errorStream != null ? errorStream.getCount() : 0);
     }
 
     /**
@@ -0,0 +1,227 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSObject;
+import org.json.JSONObject;
+
+/**
+ * The circuit breaker of a single host. While closed, the outcomes of the most recent calls are
+ * kept in a fixed-size window, and the breaker opens once enough of them failed or were slow.
+ * While open, calls are rejected without touching the network. After the open duration, a few
+ * trial calls are let through: the breaker closes again when all of them succeed, and reopens on
+ * the first failure.
+ */
+public class CircuitBreaker {
+
+    public static final String STATE_CLOSED = "closed";
+    public static final String STATE_OPEN = "open";
+    public static final String STATE_HALF_OPEN = "halfOpen";
+
+    private final String host;
+    private final Settings settings;
+
+    private String state = STATE_CLOSED;
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next = 0;
+    private int calls = 0;
+    private int failures = 0;
+    private int slowCalls = 0;
+    private long openedAt = 0;
+    private int trialsInFlight = 0;
+    private int trialSuccesses = 0;
+    private long rejected = 0;
+
+    CircuitBreaker(String host, Settings settings) {
+        this.host = host;
+        this.settings = settings;
+        this.failed = new boolean[settings.windowSize];
+        this.slow = new boolean[settings.windowSize];
+    }
+
+    /**
+     * Asks for permission to make a call. Every permitted call must be followed by
+     * {@link #onResult(boolean, long, long)} or {@link #release()}.
+     * @param now the current time in milliseconds on a monotonic clock
+     * @return true if the call may go ahead
+     */
+    synchronized boolean tryAcquire(long now) {
+        if (STATE_OPEN.equals(state)) {
+            if (now - openedAt < settings.openDurationMs) {
+                rejected++;
+                return false;
+            }
+            state = STATE_HALF_OPEN;
+            trialsInFlight = 0;
+            trialSuccesses = 0;
+        }
+        if (STATE_HALF_OPEN.equals(state)) {
+            if (trialsInFlight + trialSuccesses >= settings.halfOpenCalls) {
+                rejected++;
+                return false;
+            }
+            trialsInFlight++;
+        }
+        return true;
+    }
+
+    /**
+     * Records the outcome of a permitted call
+     * @param failure whether the call failed
+     * @param durationMs how long the call took to get a response, or to fail
+     * @param now the current time in milliseconds on a monotonic clock
+     */
+    synchronized void onResult(boolean failure, long durationMs, long now) {
+        boolean isSlow = settings.slowCallDurationMs > 0 && durationMs >= settings.slowCallDurationMs;
+
+        if (STATE_HALF_OPEN.equals(state)) {
+            trialsInFlight = Math.max(0, trialsInFlight - 1);
+            if (failure || isSlow) {
+                open(now);
+            } else if (++trialSuccesses >= settings.halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        if (STATE_OPEN.equals(state)) return;
+
+        if (calls == settings.windowSize) {
+            if (failed[next]) failures--;
+            if (slow[next]) slowCalls--;
+        } else {
+            calls++;
+        }
+        failed[next] = failure;
+        slow[next] = isSlow;
+        if (failure) failures++;
+        if (isSlow) slowCalls++;
+        next = (next + 1) % settings.windowSize;
+
+        if (calls < settings.minimumCalls) return;
+        if (getFailureRate() >= settings.failureRateThreshold || getSlowCallRate() >= settings.slowCallRateThreshold) {
+            open(now);
+        }
+    }
+
+    /**
+     * Gives back the permission of a call whose outcome says nothing about the host, such as a
+     * cancelled call
+     */
+    synchronized void release() {
+        if (STATE_HALF_OPEN.equals(state)) {
+            trialsInFlight = Math.max(0, trialsInFlight - 1);
+        }
+    }
+
+    synchronized String getState() {
+        return state;
+    }
+
+    synchronized void reset() {
+        close();
+        rejected = 0;
+    }
+
+    private void open(long now) {
+        state = STATE_OPEN;
+        openedAt = now;
+    }
+
+    private void close() {
+        state = STATE_CLOSED;
+        next = 0;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+        trialsInFlight = 0;
+        trialSuccesses = 0;
+    }
+
+    private double getFailureRate() {
+        return calls == 0 ? 0 : (double) failures / calls;
+    }
+
+    private double getSlowCallRate() {
+        return calls == 0 ? 0 : (double) slowCalls / calls;
+    }
+
+    synchronized JSObject toJSObject(long now) {
+        JSObject output = new JSObject();
+        output.put("host", host);
+        output.put("state", STATE_OPEN.equals(state) && now - openedAt >= settings.openDurationMs ? STATE_HALF_OPEN : state);
+        output.put("calls", calls);
+        output.put("failureRate", getFailureRate());
+        output.put("slowCallRate", getSlowCallRate());
+        output.put("rejected", rejected);
+        if (STATE_OPEN.equals(state)) {
+            output.put("retryIn", Math.max(0, settings.openDurationMs - (now - openedAt)));
+        }
+        return output;
+    }
+
+    /**
+     * The thresholds shared by the breakers of every host
+     */
+    public static class Settings {
+
+        public static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+        public static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 1.0;
+        public static final long DEFAULT_SLOW_CALL_DURATION_MS = 0;
+        public static final int DEFAULT_WINDOW_SIZE = 20;
+        public static final int DEFAULT_MINIMUM_CALLS = 10;
+        public static final long DEFAULT_OPEN_DURATION_MS = 30000;
+        public static final int DEFAULT_HALF_OPEN_CALLS = 3;
+
+        final double failureRateThreshold;
+        final double slowCallRateThreshold;
+        final long slowCallDurationMs;
+        final int windowSize;
+        final int minimumCalls;
+        final long openDurationMs;
+        final int halfOpenCalls;
+
+        /**
+         * @param failureRateThreshold the share of failed calls in the window that opens the breaker
+         * @param slowCallRateThreshold the share of slow calls in the window that opens the breaker
+         * @param slowCallDurationMs how long a call may take to get a response before it counts as
+         *                           slow, 0 to not track slow calls
+         * @param windowSize the number of most recent calls the rates are computed over
+         * @param minimumCalls the number of calls needed before the breaker can open
+         * @param openDurationMs how long the breaker stays open before letting trial calls through
+         * @param halfOpenCalls the number of trial calls that must succeed to close the breaker
+         */
+        public Settings(
+            double failureRateThreshold,
+            double slowCallRateThreshold,
+            long slowCallDurationMs,
+            int windowSize,
+            int minimumCalls,
+            long openDurationMs,
+            int halfOpenCalls
+        ) {
+            this.failureRateThreshold = failureRateThreshold;
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            this.slowCallDurationMs = Math.max(0, slowCallDurationMs);
+            this.windowSize = Math.max(1, windowSize);
+            this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+            this.openDurationMs = Math.max(0, openDurationMs);
+            this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        }
+
+        /**
+         * Builds settings from the {@code circuitBreaker} plugin config
+         * @param options the config, with rates between 0 and 1 and durations in milliseconds
+         * @return the settings, with defaults for missing values
+         */
+        public static Settings fromJSON(JSONObject options) {
+            return new Settings(
+                options.optDouble("failureRateThreshold", DEFAULT_FAILURE_RATE_THRESHOLD),
+                options.optDouble("slowCallRateThreshold", DEFAULT_SLOW_CALL_RATE_THRESHOLD),
+                options.optLong("slowCallDuration", DEFAULT_SLOW_CALL_DURATION_MS),
+                options.optInt("windowSize", DEFAULT_WINDOW_SIZE),
+                options.optInt("minimumCalls", DEFAULT_MINIMUM_CALLS),
+                options.optLong("openDuration", DEFAULT_OPEN_DURATION_MS),
+                options.optInt("halfOpenCalls", DEFAULT_HALF_OPEN_CALLS)
+            );
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide registry of per-host circuit breakers. Breakers are off until configured, and are
+ * created for a host on its first request.
+ */
+public class CircuitBreakerRegistry {
+
+    private static final CircuitBreakerRegistry instance = new CircuitBreakerRegistry();
+
+    private final ConcurrentHashMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+    private volatile CircuitBreaker.Settings settings = null;
+
+    public static CircuitBreakerRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Sets the thresholds of every breaker, resetting their state
+     * @param settings the thresholds, or {@code null} to turn the breakers off
+     */
+    public void configure(CircuitBreaker.Settings settings) {
+        this.settings = settings;
+        breakers.clear();
+    }
+
+    /**
+     * Asks the breaker of a host for permission to make a call
+     * @param host the request host
+     * @return the breaker that permitted the call, or {@code null} if breakers are off
+     * @throws RequestAbortedException thrown if the breaker of the host is open
+     */
+    CircuitBreaker acquire(String host) throws RequestAbortedException {
+        CircuitBreaker.Settings settings = this.settings;
+        if (settings == null) return null;
+
+        String key = host.toLowerCase(Locale.ROOT);
+        CircuitBreaker breaker = breakers.get(key);
+        if (breaker == null) {
+            breaker = new CircuitBreaker(key, settings);
+            CircuitBreaker existing = breakers.putIfAbsent(key, breaker);
+            if (existing != null) breaker = existing;
+        }
+        if (!breaker.tryAcquire(now())) {
+            throw new RequestAbortedException(
+                RequestAbortedException.CIRCUIT_OPEN,
+                "The circuit breaker for " + host + " is open after repeated failures"
+            );
+        }
+        return breaker;
+    }
+
+    /**
+     * Builds a snapshot of every breaker's state
+     * @return a JSObject with one entry per host
+     */
+    public JSObject snapshot() {
+        long now = now();
+        JSArray hosts = new JSArray();
+        for (CircuitBreaker breaker : breakers.values()) {
+            hosts.put(breaker.toJSObject(now));
+        }
+
+        JSObject output = new JSObject();
+        output.put("enabled", settings != null);
+        output.put("hosts", hosts);
+        return output;
+    }
+
+    /**
+     * Closes the breaker of a host, or of every host
+     * @param host the host, or {@code null} for every host
+     */
+    public void reset(String host) {
+        if (host == null) {
+            breakers.clear();
+            return;
+        }
+        CircuitBreaker breaker = breakers.get(host.toLowerCase(Locale.ROOT));
+        if (breaker != null) breaker.reset();
+    }
+
+    static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+}
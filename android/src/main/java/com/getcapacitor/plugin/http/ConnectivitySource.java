@@ -0,0 +1,18 @@
+package com.getcapacitor.plugin.http;
+
+/**
+ * Tells the {@link Outbox} whether the device can reach the network, and when that changes
+ */
+public interface ConnectivitySource {
+    boolean isOnline();
+
+    /**
+     * Sets the listener notified of connectivity changes, replacing any previous one
+     * @param listener the listener, or {@code null} to stop listening
+     */
+    void setListener(Listener listener);
+
+    interface Listener {
+        void onConnectivityChanged(boolean online);
+    }
+}
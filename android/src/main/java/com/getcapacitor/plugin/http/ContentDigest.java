@@ -0,0 +1,236 @@
+package com.getcapacitor.plugin.http;
+
+import android.util.Base64;
+import java.net.HttpURLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A digest of a body computed while it is transferred, so that verifying a download or
+ * fingerprinting an upload doesn't need a second pass over the file.
+ * <p>
+ * The expected value of a download is either given by the app, in hex or base64, or taken from
+ * the {@code Content-Digest}, {@code Repr-Digest}, {@code Digest} or {@code Content-MD5} response
+ * header. Android's {@code HttpURLConnection} transparently decompresses a gzip body it asked for
+ * itself and then drops {@code Content-Encoding}, so digests of the encoded body can only be told
+ * apart from digests of the decoded one when the request chose its encoding, see
+ * {@link #requestIdentityEncoding(HttpURLConnection)}.
+ */
+class ContentDigest {
+
+    static final String MD5 = "MD5";
+    static final String SHA_1 = "SHA-1";
+    static final String SHA_256 = "SHA-256";
+
+    private final String algorithm;
+    private final MessageDigest digest;
+    private byte[] value;
+
+    private ContentDigest(String algorithm, MessageDigest digest) {
+        this.algorithm = algorithm;
+        this.digest = digest;
+    }
+
+    /**
+     * Creates a digest
+     * @param algorithm MD5, SHA-1 or SHA-256, in any case and with or without the dash
+     * @throws IllegalArgumentException thrown if the algorithm isn't supported
+     */
+    static ContentDigest create(String algorithm) {
+        String name = parseAlgorithm(algorithm);
+        if (name == null) {
+            throw new IllegalArgumentException("Unsupported digest algorithm: " + algorithm);
+        }
+        try {
+            return new ContentDigest(name, MessageDigest.getInstance(name));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalArgumentException("Unsupported digest algorithm: " + algorithm);
+        }
+    }
+
+    String getAlgorithm() {
+        return algorithm;
+    }
+
+    void update(byte[] buffer, int offset, int length) {
+        digest.update(buffer, offset, length);
+    }
+
+    /**
+     * Completes the digest. Later calls return the same value.
+     * @return the digest
+     */
+    byte[] finish() {
+        if (value == null) {
+            value = digest.digest();
+        }
+        return value;
+    }
+
+    /**
+     * Completes the digest
+     * @return the digest in lowercase hex
+     */
+    String toHex() {
+        byte[] bytes = finish();
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Completes the digest and compares it in constant time
+     * @param expected the expected digest
+     */
+    boolean matches(byte[] expected) {
+        return MessageDigest.isEqual(finish(), expected);
+    }
+
+    /**
+     * Decodes an expected digest given by the app
+     * @param value the digest in hex or base64
+     * @throws IllegalArgumentException thrown if the value isn't a digest of this algorithm
+     */
+    byte[] parseExpected(String value) {
+        int length = digest.getDigestLength();
+        String trimmed = value.trim();
+        byte[] bytes = null;
+        if (trimmed.length() == length * 2) {
+            bytes = decodeHex(trimmed);
+        }
+        if (bytes == null) {
+            try {
+                bytes = Base64.decode(trimmed, Base64.DEFAULT);
+            } catch (IllegalArgumentException ex) {
+                bytes = null;
+            }
+        }
+        if (bytes == null || bytes.length != length) {
+            throw new IllegalArgumentException("Expected digest is not a " + algorithm + " digest: " + value);
+        }
+        return bytes;
+    }
+
+    /**
+     * Asks for the body without a content coding, unless the app chose one with
+     * {@code Accept-Encoding}. The connection then leaves the body and its {@code Content-Encoding}
+     * as the server sent them. Must be called before the connection is opened, on any request
+     * whose response headers are passed to {@link #fromHeaders(Map)}.
+     */
+    static void requestIdentityEncoding(HttpURLConnection connection) {
+        if (connection.getRequestProperty("Accept-Encoding") == null) {
+            connection.setRequestProperty("Accept-Encoding", "identity");
+        }
+    }
+
+    /**
+     * Finds the digest of this algorithm announced by the response headers
+     * @param headers the response headers, with case-insensitive names, of a request that chose
+     * its encoding
+     * @return the announced digest, or {@code null} if there is none
+     */
+    byte[] fromHeaders(Map<String, List<String>> headers) {
+        String contentEncoding = header(headers, "Content-Encoding");
+        for (String name : new String[] { "Content-Digest", "Repr-Digest" }) {
+            // Content-Digest covers the encoded content, Repr-Digest the representation before it
+            if (name.equals("Content-Digest") && contentEncoding != null && !contentEncoding.equalsIgnoreCase("identity")) {
+                continue;
+            }
+            byte[] announced = fromDictionary(header(headers, name), true);
+            if (announced != null) return announced;
+        }
+
+        // the legacy headers describe the encoded body, which was decoded before it got here
+        if (contentEncoding != null && !contentEncoding.equalsIgnoreCase("identity")) {
+            return null;
+        }
+        byte[] announced = fromDictionary(header(headers, "Digest"), false);
+        if (announced != null) return announced;
+        if (algorithm.equals(MD5)) {
+            return decodeBase64(header(headers, "Content-MD5"));
+        }
+        return null;
+    }
+
+    /**
+     * Parses an {@code algorithm=value} list, as used by {@code Digest} and, with the value
+     * between colons, by {@code Content-Digest} and {@code Repr-Digest}
+     */
+    private byte[] fromDictionary(String header, boolean structured) {
+        if (header == null) return null;
+        for (String member : header.split(",")) {
+            int equals = member.indexOf('=');
+            if (equals < 0) continue;
+            String name = parseAlgorithm(member.substring(0, equals).trim());
+            if (!algorithm.equals(name)) continue;
+
+            String encoded = member.substring(equals + 1).trim();
+            if (structured) {
+                if (encoded.length() < 2 || encoded.charAt(0) != ':' || encoded.charAt(encoded.length() - 1) != ':') continue;
+                encoded = encoded.substring(1, encoded.length() - 1);
+            }
+            byte[] announced = decodeBase64(encoded);
+            if (announced != null && announced.length == digest.getDigestLength()) return announced;
+        }
+        return null;
+    }
+
+    private static String header(Map<String, List<String>> headers, String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey() != null && entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+                StringBuilder joined = new StringBuilder();
+                for (String value : entry.getValue()) {
+                    if (joined.length() > 0) joined.append(',');
+                    joined.append(value);
+                }
+                return joined.toString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Maps the names used by the app and by the digest headers to a MessageDigest algorithm
+     * @return the algorithm, or {@code null} if it isn't supported
+     */
+    static String parseAlgorithm(String name) {
+        if (name == null) return null;
+        String normalized = name.trim().toUpperCase(Locale.ROOT).replace("-", "");
+        switch (normalized) {
+            case "MD5":
+                return MD5;
+            case "SHA":
+            case "SHA1":
+                return SHA_1;
+            case "SHA256":
+                return SHA_256;
+            default:
+                return null;
+        }
+    }
+
+    private static byte[] decodeBase64(String value) {
+        if (value == null) return null;
+        try {
+            return Base64.decode(value.trim(), Base64.DEFAULT);
+        } catch (IllegalArgumentException ex) {
+            return null;
+        }
+    }
+
+    private static byte[] decodeHex(String value) {
+        byte[] bytes = new byte[value.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            int high = Character.digit(value.charAt(i * 2), 16);
+            int low = Character.digit(value.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) return null;
+            bytes[i] = (byte) ((high << 4) | low);
+        }
+        return bytes;
+    }
+}
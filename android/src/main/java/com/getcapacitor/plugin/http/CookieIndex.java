@@ -0,0 +1,232 @@
+package com.getcapacitor.plugin.http;
+
+import java.net.HttpCookie;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory, host and path indexed view of a cookie jar. With a positive max age, each lookup
+ * result is fetched from the backing {@link Source} once, parsed once, and then served from memory
+ * until a write through the plugin invalidates it or it becomes older than the max age. The max
+ * age bounds how long cookies written directly by the WebView can take to become visible to native
+ * requests, so caching is off by default and every lookup reads through to the source.
+ */
+class CookieIndex {
+
+    public static final long DEFAULT_MAX_AGE_MS = 0;
+    public static final int MAX_PATHS_PER_HOST = 64;
+
+    /**
+     * The backing cookie jar, usually the WebView {@code CookieManager}
+     */
+    interface Source {
+        String getCookie(String url);
+    }
+
+    /**
+     * The cookies that apply to a single host and path, in 'Cookie' header and parsed form. The
+     * parsed cookies keep the order of the header, which lists the cookies with the most specific
+     * path first, and keep cookies of the same name set for different paths.
+     */
+    static class Entry {
+
+        final String cookieString;
+        final List<HttpCookie> cookies;
+        final long loadedAt;
+
+        Entry(String cookieString, long loadedAt) {
+            this.cookieString = cookieString;
+            this.cookies = parse(cookieString);
+            this.loadedAt = loadedAt;
+        }
+
+        /**
+         * Returns the cookie of the given name with the most specific path
+         * @param name the cookie name
+         * @return the cookie, or {@code null} if there is none of that name
+         */
+        HttpCookie get(String name) {
+            for (HttpCookie cookie : cookies) {
+                if (cookie.getName().equals(name)) {
+                    return cookie;
+                }
+            }
+            return null;
+        }
+
+        private static List<HttpCookie> parse(String cookieString) {
+            List<HttpCookie> cookies = new ArrayList<>();
+            if (cookieString != null) {
+                for (String c : cookieString.split(";")) {
+                    try {
+                        cookies.add(HttpCookie.parse(c).get(0));
+                    } catch (Exception ignored) {
+                        // skip malformed pairs, the remaining cookies are still usable
+                    }
+                }
+            }
+            return Collections.unmodifiableList(cookies);
+        }
+    }
+
+    private final Source source;
+    private final ConcurrentHashMap<String, Map<String, Entry>> hosts = new ConcurrentHashMap<>();
+    private volatile long maxAgeMs = DEFAULT_MAX_AGE_MS;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong lookupNanos = new AtomicLong();
+
+    CookieIndex(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * Sets how long a cached entry may be served before it is reloaded from the source
+     * @param maxAgeMs the max age in milliseconds, 0 disables caching
+     */
+    void setMaxAge(long maxAgeMs) {
+        this.maxAgeMs = maxAgeMs;
+    }
+
+    /**
+     * Returns the cookies that apply to the given URL, loading them from the source if needed
+     * @param url the URL for which the cookies are requested
+     * @return the cached or freshly loaded entry
+     */
+    Entry lookup(String url) {
+        long start = System.nanoTime();
+        try {
+            URI uri = URI.create(url);
+            String host = uri.getHost();
+            if (host == null) {
+                misses.incrementAndGet();
+                return new Entry(source.getCookie(url), System.currentTimeMillis());
+            }
+            host = host.toLowerCase();
+            String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+            String key = uri.getScheme() + ":" + path;
+
+            Map<String, Entry> paths = hosts.get(host);
+            if (paths == null) {
+                paths = newPathMap();
+                Map<String, Entry> existing = hosts.putIfAbsent(host, paths);
+                if (existing != null) paths = existing;
+            }
+
+            long now = System.currentTimeMillis();
+            Entry entry;
+            synchronized (paths) {
+                entry = paths.get(key);
+            }
+            if (entry != null && now - entry.loadedAt < maxAgeMs) {
+                hits.incrementAndGet();
+                return entry;
+            }
+
+            misses.incrementAndGet();
+            entry = new Entry(source.getCookie(url), now);
+            // a write may have invalidated this host while we were loading, don't cache a stale value
+            if (maxAgeMs > 0 && hosts.get(host) == paths) {
+                synchronized (paths) {
+                    paths.put(key, entry);
+                }
+            }
+            return entry;
+        } catch (IllegalArgumentException ex) {
+            misses.incrementAndGet();
+            return new Entry(source.getCookie(url), System.currentTimeMillis());
+        } finally {
+            lookupNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Drops every cached entry a cookie written for the given URL could affect
+     * @param url the URL the cookie was set for
+     * @param setCookieValue the cookie, using the format of the 'Set-Cookie' HTTP response header
+     */
+    void invalidate(String url, String setCookieValue) {
+        String domain = null;
+        try {
+            for (HttpCookie cookie : HttpCookie.parse(setCookieValue)) {
+                if (cookie.getDomain() != null) {
+                    domain = cookie.getDomain();
+                }
+            }
+        } catch (Exception ignored) {
+            // fall back to invalidating the request host only
+        }
+
+        if (domain != null) {
+            invalidateDomain(domain);
+        } else {
+            try {
+                String host = URI.create(url).getHost();
+                if (host != null) {
+                    hosts.remove(host.toLowerCase());
+                }
+            } catch (IllegalArgumentException ex) {
+                clear();
+            }
+        }
+    }
+
+    /**
+     * Drops the cached entries of a domain and all of its subdomains
+     * @param domain the cookie domain, with or without a leading dot
+     */
+    void invalidateDomain(String domain) {
+        String normalized = domain.toLowerCase();
+        if (normalized.startsWith(".")) normalized = normalized.substring(1);
+        String suffix = "." + normalized;
+
+        Iterator<String> iterator = hosts.keySet().iterator();
+        while (iterator.hasNext()) {
+            String host = iterator.next();
+            if (host.equals(normalized) || host.endsWith(suffix)) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Drops every cached entry
+     */
+    void clear() {
+        hosts.clear();
+    }
+
+    long getHitCount() {
+        return hits.get();
+    }
+
+    long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the mean time spent in {@link #lookup(String)}, including source loads on a miss
+     * @return the mean lookup time in nanoseconds
+     */
+    long getAverageLookupNanos() {
+        long lookups = hits.get() + misses.get();
+        return lookups == 0 ? 0 : lookupNanos.get() / lookups;
+    }
+
+    private static Map<String, Entry> newPathMap() {
+        return new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > MAX_PATHS_PER_HOST;
+            }
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An InputStream that counts the bytes read through it
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    // written by the request thread only, read by the request watchdog
+    private volatile long count = 0;
+
+    public CountingInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Returns the number of bytes read so far
+     * @return the number of bytes read
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) count++;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int read = super.read(b, off, len);
+        if (read > 0) count += read;
+        return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
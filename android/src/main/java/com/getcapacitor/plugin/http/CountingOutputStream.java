@@ -0,0 +1,39 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An OutputStream that counts the bytes written through it
+ */
+public class CountingOutputStream extends FilterOutputStream {
+
+    // written by the request thread only, read by the request watchdog
+    private volatile long count = 0;
+
+    public CountingOutputStream(OutputStream out) {
+        super(out);
+    }
+
+    /**
+     * Returns the number of bytes written so far
+     * @return the number of bytes written
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        out.write(b);
+        count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        // write the whole chunk at once instead of FilterOutputStream's byte by byte copy
+        out.write(b, off, len);
+        count += len;
+    }
+}
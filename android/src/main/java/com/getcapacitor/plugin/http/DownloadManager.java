@@ -0,0 +1,527 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSObject;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A queue of downloads run in the background, a few at a time. Downloads can be paused, resumed
+ * and cancelled, and resume from their partial data where the server allows it. The jobs are
+ * kept in a state file, rewritten on every change of state, so that the queue survives the app
+ * being killed: downloads that were running are queued again on the next start.
+ * <p>
+ * A download that fails without a response, or with a server error, a 408 or a 429 status, is
+ * retried with an exponential backoff up to {@link #MAX_ATTEMPTS} times per session, and right
+ * away when the device comes back online. The backoff is kept per job, so that a job waiting for
+ * its retry doesn't hold back the others. Any other failure is final.
+ * <p>
+ * The state file holds one job per line:
+ * {@code id<TAB>createdAt<TAB>state<TAB>errorCode<TAB>error<TAB>request}.
+ */
+public class DownloadManager {
+
+    public static final int DEFAULT_CONCURRENCY = 2;
+
+    public static final String STATE_QUEUED = "queued";
+    public static final String STATE_RUNNING = "running";
+    public static final String STATE_PAUSED = "paused";
+    public static final String STATE_COMPLETED = "completed";
+    public static final String STATE_FAILED = "failed";
+    public static final String STATE_CANCELLED = "cancelled";
+
+    static final String STATE_FILE = "downloads.state";
+    static final int MAX_ATTEMPTS = 5;
+    // the least time between two progress notifications of a job
+    static final long PROGRESS_INTERVAL_MS = 250;
+
+    /**
+     * Runs the downloads of the manager
+     */
+    public interface Downloader {
+        /**
+         * Downloads a job, continuing from its partial data if any
+         * @param job the job
+         * @param progress notified of the progress of the download
+         * @return the result of the download
+         * @throws IOException thrown if the download failed, it is retried unless permanent
+         * @throws Exception thrown if the download can never succeed
+         */
+        JSObject download(Job job, HttpRequestHandler.ProgressEmitter progress) throws Exception;
+
+        /**
+         * Aborts the download of a job, making {@link #download(Job, HttpRequestHandler.ProgressEmitter)}
+         * throw a {@link RequestAbortedException#CANCELLED} exception
+         */
+        void abort(Job job);
+
+        /**
+         * Removes the partial data of a cancelled job
+         */
+        void discard(Job job);
+    }
+
+    public interface Listener {
+        /**
+         * Called when a job changes state
+         * @param job the job
+         * @param result the result of the download once completed, {@code null} otherwise
+         */
+        void onStateChanged(Job job, JSObject result);
+
+        /**
+         * Called as a job downloads, at most every {@link #PROGRESS_INTERVAL_MS}
+         */
+        void onProgress(Job job);
+    }
+
+    private final File stateFile;
+    private final ConnectivitySource connectivity;
+    private final Downloader downloader;
+    private final Listener listener;
+    private final int concurrency;
+    private final RetryScheduler scheduler;
+
+    private final LinkedHashMap<String, Job> jobs = new LinkedHashMap<>();
+    private int running = 0;
+
+    /**
+     * Opens the manager, loading the jobs of earlier sessions, and starts the queued ones once the
+     * device is online
+     * @param directory the directory of the state file
+     * @param connectivity the source of connectivity changes
+     * @param downloader runs the downloads
+     * @param listener notified of the state and progress of every job
+     * @param concurrency the number of downloads run at once
+     * @throws IOException thrown if the state file can't be read or written
+     */
+    public DownloadManager(File directory, ConnectivitySource connectivity, Downloader downloader, Listener listener, int concurrency)
+        throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the downloads directory " + directory);
+        }
+        this.stateFile = new File(directory, STATE_FILE);
+        this.connectivity = connectivity;
+        this.downloader = downloader;
+        this.listener = listener;
+        this.concurrency = Math.max(1, concurrency);
+        this.scheduler =
+            new RetryScheduler(
+                "CapacitorDownloads",
+                this.concurrency,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        pump();
+                    }
+                }
+            );
+
+        synchronized (this) {
+            load();
+        }
+        connectivity.setListener(
+            new ConnectivitySource.Listener() {
+                @Override
+                public void onConnectivityChanged(boolean online) {
+                    if (online) retryNow();
+                }
+            }
+        );
+        pump();
+    }
+
+    /**
+     * Queues a download
+     * @param request the downloadFile options as a single line of JSON
+     * @return the queued job
+     * @throws IOException thrown if the job can't be saved
+     */
+    public Job enqueue(String request) throws IOException {
+        if (request.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("The request must fit on a single line");
+        }
+        Job job = new Job(UUID.randomUUID().toString(), System.currentTimeMillis(), STATE_QUEUED, request);
+        synchronized (this) {
+            jobs.put(job.id, job);
+            save();
+        }
+        listener.onStateChanged(job, null);
+        pump();
+        return job;
+    }
+
+    /**
+     * Pauses a queued or running job, keeping its partial data
+     * @param id the id of the job
+     * @return true if the job was paused
+     * @throws IOException thrown if the state can't be saved
+     */
+    public boolean pause(String id) throws IOException {
+        Job job;
+        boolean wasRunning;
+        synchronized (this) {
+            job = jobs.get(id);
+            if (job == null || !(job.state.equals(STATE_QUEUED) || job.state.equals(STATE_RUNNING))) return false;
+            wasRunning = job.state.equals(STATE_RUNNING);
+            job.state = STATE_PAUSED;
+            job.abortRequested = wasRunning;
+            save();
+        }
+        if (wasRunning) downloader.abort(job);
+        listener.onStateChanged(job, null);
+        return true;
+    }
+
+    /**
+     * Queues a paused or failed job again
+     * @param id the id of the job
+     * @return true if the job was queued
+     * @throws IOException thrown if the state can't be saved
+     */
+    public boolean resume(String id) throws IOException {
+        Job job;
+        synchronized (this) {
+            job = jobs.get(id);
+            if (job == null || !(job.state.equals(STATE_PAUSED) || job.state.equals(STATE_FAILED))) return false;
+            job.state = STATE_QUEUED;
+            job.error = null;
+            job.errorCode = null;
+            job.attempts = 0;
+            job.retryAt = 0;
+            job.retryDelayMs = 0;
+            save();
+        }
+        listener.onStateChanged(job, null);
+        pump();
+        return true;
+    }
+
+    /**
+     * Cancels a job and removes it from the manager, along with its partial data. A completed
+     * job is only removed, its file is kept.
+     * @param id the id of the job
+     * @return true if the job was removed
+     * @throws IOException thrown if the state can't be saved
+     */
+    public boolean cancel(String id) throws IOException {
+        Job job;
+        synchronized (this) {
+            job = jobs.remove(id);
+            if (job == null) return false;
+            boolean wasRunning = job.state.equals(STATE_RUNNING);
+            boolean completed = job.state.equals(STATE_COMPLETED);
+            job.state = STATE_CANCELLED;
+            save();
+            if (wasRunning) {
+                // the partial data is discarded once the download has stopped
+                job.abortRequested = true;
+                downloader.abort(job);
+            } else if (!completed) {
+                downloader.discard(job);
+            }
+        }
+        listener.onStateChanged(job, null);
+        return true;
+    }
+
+    /**
+     * Returns the jobs, oldest first
+     */
+    public synchronized List<Job> getJobs() {
+        return new ArrayList<>(jobs.values());
+    }
+
+    public boolean isOnline() {
+        return connectivity.isOnline();
+    }
+
+    /**
+     * Starts the jobs waiting for a retry right away
+     */
+    private void retryNow() {
+        synchronized (this) {
+            for (Job job : jobs.values()) {
+                job.retryAt = 0;
+            }
+        }
+        pump();
+    }
+
+    /**
+     * Starts queued jobs in order, up to the concurrency limit, skipping the ones waiting for a
+     * retry
+     */
+    private void pump() {
+        if (!connectivity.isOnline()) return;
+        synchronized (this) {
+            long now = System.nanoTime();
+            for (final Job job : jobs.values()) {
+                if (running >= concurrency) return;
+                // a job paused and resumed may still be unwinding its previous download
+                if (!job.state.equals(STATE_QUEUED) || job.active) continue;
+                if (job.retryAt != 0 && job.retryAt - now > 0) continue;
+                job.retryAt = 0;
+                job.abortRequested = false;
+                job.state = STATE_RUNNING;
+                job.active = true;
+                running++;
+                scheduler.execute(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            download(job);
+                        }
+                    }
+                );
+            }
+        }
+    }
+
+    private void download(final Job job) {
+        boolean cancelled;
+        boolean started;
+        synchronized (this) {
+            cancelled = jobs.get(job.id) != job;
+            started = !cancelled && job.state.equals(STATE_RUNNING);
+            if (!started) {
+                // paused or cancelled before it started
+                running--;
+                job.active = false;
+            }
+        }
+        if (cancelled) downloader.discard(job);
+        if (!started) {
+            pump();
+            return;
+        }
+        listener.onStateChanged(job, null);
+
+        JSObject result = null;
+        Exception error = null;
+        try {
+            result =
+                downloader.download(
+                    job,
+                    new HttpRequestHandler.ProgressEmitter() {
+                        private long notifiedAt = 0;
+
+                        @Override
+                        public void emit(Integer bytes, Integer contentLength) {
+                            // an abort that came before the request could be aborted is only
+                            // delivered now that it is transferring
+                            if (job.abortRequested) downloader.abort(job);
+                            job.bytes = bytes;
+                            job.contentLength = contentLength;
+                            long now = System.currentTimeMillis();
+                            if (now - notifiedAt >= PROGRESS_INTERVAL_MS || (contentLength > 0 && bytes >= contentLength)) {
+                                notifiedAt = now;
+                                listener.onProgress(job);
+                            }
+                        }
+                    }
+                );
+        } catch (Exception ex) {
+            error = ex;
+        }
+
+        boolean notify = true;
+        boolean discard = false;
+        synchronized (this) {
+            running--;
+            job.active = false;
+            if (jobs.get(job.id) != job) {
+                // cancelled while running; a download that completed before it could be aborted
+                // keeps its file, as a completed job does
+                notify = false;
+                discard = true;
+            } else if (!job.state.equals(STATE_RUNNING)) {
+                // paused while running, and maybe resumed since, which was already reported; a
+                // download that completed before it could be aborted is checked again on resume
+                notify = false;
+            } else if (error == null) {
+                job.state = STATE_COMPLETED;
+            } else if (isTransient(error) && ++job.attempts < MAX_ATTEMPTS) {
+                job.state = STATE_QUEUED;
+                job.error = describe(error);
+                job.retryDelayMs = RetryScheduler.nextDelay(job.retryDelayMs);
+                job.retryAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(job.retryDelayMs);
+                scheduler.schedule(job.retryDelayMs);
+            } else {
+                job.state = STATE_FAILED;
+                job.error = describe(error);
+                job.errorCode = error instanceof RequestAbortedException ? ((RequestAbortedException) error).getCode() : null;
+            }
+            try {
+                save();
+            } catch (IOException ex) {
+                // the job is run again after a restart at worst
+            }
+        }
+
+        if (discard) downloader.discard(job);
+        if (notify) listener.onStateChanged(job, result);
+        pump();
+    }
+
+    /**
+     * Tells whether a failed download may succeed if retried
+     */
+    static boolean isTransient(Exception error) {
+        if (error instanceof HttpStatusException) {
+            int status = ((HttpStatusException) error).getStatus();
+            return status >= 500 || status == 408 || status == 429;
+        }
+        if (error instanceof RequestAbortedException) {
+            String code = ((RequestAbortedException) error).getCode();
+            return code.equals(RequestAbortedException.STALLED) || code.equals(RequestAbortedException.TIMEOUT);
+        }
+        // a missing file or a bad URL won't get better
+        return error instanceof IOException && !(error instanceof FileNotFoundException || error instanceof MalformedURLException);
+    }
+
+    private static String describe(Exception error) {
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+
+    /**
+     * Rewrites the state file, see {@link FilesystemUtils#replaceFile(File, byte[])}
+     */
+    private void save() throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Job job : jobs.values()) {
+            lines
+                .append(job.id)
+                .append('\t')
+                .append(job.createdAt)
+                .append('\t')
+                .append(job.state)
+                .append('\t')
+                .append(job.errorCode != null ? job.errorCode : "")
+                .append('\t')
+                .append(job.error != null ? job.error.replaceAll("[\t\r\n]", " ") : "")
+                .append('\t')
+                .append(job.request)
+                .append('\n');
+        }
+        FilesystemUtils.replaceFile(stateFile, lines.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the state file, queuing the jobs that were running again
+     */
+    private void load() throws IOException {
+        if (!stateFile.exists()) return;
+
+        String content = new String(FilesystemUtils.readFile(stateFile), StandardCharsets.UTF_8);
+        for (String line : content.split("\n")) {
+            String[] fields = line.split("\t", 6);
+            if (fields.length != 6) continue;
+            try {
+                String state = fields[2].equals(STATE_RUNNING) ? STATE_QUEUED : fields[2];
+                Job job = new Job(fields[0], Long.parseLong(fields[1]), state, fields[5]);
+                job.errorCode = fields[3].isEmpty() ? null : fields[3];
+                job.error = fields[4].isEmpty() ? null : fields[4];
+                jobs.put(job.id, job);
+            } catch (NumberFormatException ignored) {}
+        }
+    }
+
+    /**
+     * A queued download
+     */
+    public static class Job {
+
+        private final String id;
+        private final long createdAt;
+        private final String request;
+        private volatile String state;
+        private volatile String error;
+        private volatile String errorCode;
+        private volatile int attempts = 0;
+        // guarded by the manager, set while a download of the job is running
+        private boolean active = false;
+        // set when the job is paused or cancelled while running, until it runs again
+        private volatile boolean abortRequested = false;
+        // guarded by the manager, the System.nanoTime() before which the job isn't retried, or 0
+        private long retryAt = 0;
+        // guarded by the manager, the backoff delay of the last retry
+        private long retryDelayMs = 0;
+        private volatile long bytes = 0;
+        private volatile long contentLength = 0;
+
+        Job(String id, long createdAt, String state, String request) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.state = state;
+            this.request = request;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return when the download was queued, in milliseconds since the epoch
+         */
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        /**
+         * @return the downloadFile options as JSON
+         */
+        public String getRequest() {
+            return request;
+        }
+
+        /**
+         * @return one of the {@code STATE_} constants
+         */
+        public String getState() {
+            return state;
+        }
+
+        /**
+         * @return the error of the last failed attempt, or {@code null}
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * @return the {@link RequestAbortedException} code of a failed download, or {@code null}
+         */
+        public String getErrorCode() {
+            return errorCode;
+        }
+
+        /**
+         * @return the number of failed attempts in this session
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * @return the bytes downloaded so far in this session, including resumed partial data
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return the total size of the download, or 0 if unknown
+         */
+        public long getContentLength() {
+            return contentLength;
+        }
+    }
+}
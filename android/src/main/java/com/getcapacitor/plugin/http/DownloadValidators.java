@@ -0,0 +1,150 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * The ETag and Last-Modified validators of a downloaded file, kept in a hidden sidecar file next
+ * to it. Downloading the same URL to the same file again sends them as {@code If-None-Match} and
+ * {@code If-Modified-Since}, so that an unchanged file is answered with a 304 and not transferred.
+ */
+class DownloadValidators {
+
+    private static final String SIDECAR_SUFFIX = ".validators";
+
+    private static final String KEY_URL = "url";
+    private static final String KEY_ETAG = "etag";
+    private static final String KEY_LAST_MODIFIED = "lastModified";
+
+    final String url;
+    final String etag;
+    final String lastModified;
+
+    DownloadValidators(String url, String etag, String lastModified) {
+        this.url = url;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Returns the sidecar holding the validators of a file
+     */
+    static File getSidecar(File file) {
+        return new File(file.getParentFile(), "." + file.getName() + SIDECAR_SUFFIX);
+    }
+
+    /**
+     * Reads the validators stored for a file
+     * @param file the downloaded file
+     * @param url the URL about to be downloaded to it
+     * @return the validators, or {@code null} if the file is missing, was downloaded from another
+     * URL or has no usable validators
+     */
+    static DownloadValidators read(File file, String url) {
+        File sidecar = getSidecar(file);
+        if (!file.exists() || !sidecar.isFile()) return null;
+
+        Properties properties = new Properties();
+        try {
+            InputStream in = new FileInputStream(sidecar);
+            try {
+                properties.load(in);
+            } finally {
+                in.close();
+            }
+        } catch (IOException | IllegalArgumentException ex) {
+            return null;
+        }
+
+        if (!url.equals(properties.getProperty(KEY_URL))) return null;
+        DownloadValidators validators = new DownloadValidators(
+            url,
+            properties.getProperty(KEY_ETAG),
+            properties.getProperty(KEY_LAST_MODIFIED)
+        );
+        return validators.isEmpty() ? null : validators;
+    }
+
+    /**
+     * Takes the validators of a response
+     * @param url the URL that was downloaded
+     * @param headers the response headers, with case-insensitive names
+     */
+    static DownloadValidators fromResponse(String url, Map<String, List<String>> headers) {
+        return new DownloadValidators(url, header(headers, "ETag"), header(headers, "Last-Modified"));
+    }
+
+    /**
+     * Returns the validator to send as {@code If-Range} when resuming a download, which must be a
+     * strong ETag or a date
+     * @return the validator, or {@code null} if there is none usable
+     */
+    String getIfRange() {
+        if (etag != null && !etag.startsWith("W/")) return etag;
+        return lastModified;
+    }
+
+    boolean isEmpty() {
+        return etag == null && lastModified == null;
+    }
+
+    /**
+     * Makes a request conditional, unless the app already set the conditional headers itself
+     */
+    void apply(HttpURLConnection connection) {
+        if (connection.getRequestProperty("If-None-Match") != null || connection.getRequestProperty("If-Modified-Since") != null) {
+            return;
+        }
+        if (etag != null) {
+            connection.setRequestProperty("If-None-Match", etag);
+        } else {
+            connection.setRequestProperty("If-Modified-Since", lastModified);
+        }
+    }
+
+    /**
+     * Stores the validators for a file, replacing the previous ones. Without validators, the
+     * sidecar is removed instead.
+     * @throws IOException thrown if the sidecar can't be written
+     */
+    void write(File file) throws IOException {
+        File sidecar = getSidecar(file);
+        if (isEmpty()) {
+            sidecar.delete();
+            return;
+        }
+
+        Properties properties = new Properties();
+        properties.setProperty(KEY_URL, url);
+        if (etag != null) properties.setProperty(KEY_ETAG, etag);
+        if (lastModified != null) properties.setProperty(KEY_LAST_MODIFIED, lastModified);
+
+        // replace the sidecar in one step, so that a crash never leaves a partial one behind
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        properties.store(out, null);
+        FilesystemUtils.replaceFile(sidecar, out.toByteArray());
+    }
+
+    /**
+     * Removes the validators stored for a file
+     */
+    static void clear(File file) {
+        getSidecar(file).delete();
+    }
+
+    private static String header(Map<String, List<String>> headers, String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey() != null && entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+                return entry.getValue().get(0);
+            }
+        }
+        return null;
+    }
+}
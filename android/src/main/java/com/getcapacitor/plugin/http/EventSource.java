@@ -0,0 +1,409 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A Server-Sent Events client reading a {@code text/event-stream} on a thread of its own, through
+ * the same connection layer as regular requests, so cookies, TLS session reuse, rate limits,
+ * circuit breakers, metrics and traces all apply to it.
+ * <p>
+ * A stream that ends or fails is reconnected after the reconnection time, which the server can set
+ * with a {@code retry} field, sending the last event id in the {@code Last-Event-ID} header.
+ * Consecutive connections that dispatch no event, whether they failed or opened and ended right
+ * away, back off exponentially from at least {@link #MIN_BACKOFF_MS}. A response that isn't
+ * a {@code 200} event stream closes the source for good, as a browser's {@code EventSource} would.
+ * <p>
+ * Events are handed to the listener in batches, at most once per batch interval, to limit the
+ * traffic over the bridge.
+ */
+class EventSource implements Runnable {
+
+    static final String STATE_CONNECTING = "connecting";
+    static final String STATE_OPEN = "open";
+    static final String STATE_CLOSED = "closed";
+
+    static final long DEFAULT_RETRY_MS = 3000;
+    static final long DEFAULT_BATCH_INTERVAL_MS = 100;
+    static final long MIN_BACKOFF_MS = 1000;
+    static final long MAX_RETRY_MS = 60 * 1000;
+
+    private static final String CLOSED_ERROR = "The event source was closed";
+
+    private static final Map<String, EventSource> sources = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService flushExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CapacitorEventSourceFlush");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }
+    );
+
+    interface Listener {
+        /**
+         * Called with the events received since the last batch, oldest first
+         * @param id the id of the source
+         * @param events the events
+         */
+        void onEvents(String id, List<Event> events);
+
+        /**
+         * Called when the source connects, opens, loses its connection or is closed
+         * @param id the id of the source
+         * @param state one of the {@code STATE_} constants
+         * @param status the status of the last response, or 0 if none was received
+         * @param error the reason the source is reconnecting or was closed, or {@code null}
+         */
+        void onStateChange(String id, String state, int status, IOException error);
+    }
+
+    final String id;
+    private final PluginCall call;
+    private final long batchIntervalMs;
+    private final Listener listener;
+    private final EventStreamParser parser;
+
+    private final List<Event> batch = new ArrayList<>();
+    private final Object flushLock = new Object();
+    private volatile long retryMs;
+    // the number of events dispatched, only touched by the thread of the source
+    private int dispatched = 0;
+    private boolean closed = false;
+    private RequestContext context;
+
+    /**
+     * @param id the id of the source
+     * @param call the PluginCall describing the stream to connect to
+     * @param listener receives the events and state changes
+     */
+    EventSource(String id, PluginCall call, Listener listener) {
+        this.id = id;
+        this.call = call;
+        this.listener = listener;
+        this.retryMs = Math.max(0, call.getInt("retry", (int) DEFAULT_RETRY_MS));
+        this.batchIntervalMs = Math.max(0, call.getInt("batchInterval", (int) DEFAULT_BATCH_INTERVAL_MS));
+        this.parser =
+            new EventStreamParser(
+                call.getString("lastEventId"),
+                new EventStreamParser.Listener() {
+                    @Override
+                    public void onEvent(String type, String data, String lastEventId) {
+                        dispatched++;
+                        add(new Event(type, data, lastEventId));
+                    }
+
+                    @Override
+                    public void onRetry(long retryMs) {
+                        EventSource.this.retryMs = retryMs;
+                    }
+                }
+            );
+    }
+
+    /**
+     * Registers the source and starts connecting on a thread of its own
+     * @throws IllegalArgumentException thrown if another source with the same id is open, or the
+     * cookie policy is unknown
+     */
+    void start() {
+        // reject a bad option here, the connections only report failures as state changes
+        CapacitorCookieManager.CookieAccess.parse(call.getString("cookiePolicy"));
+        if (sources.putIfAbsent(id, this) != null) {
+            throw new IllegalArgumentException("An event source with id '" + id + "' is already open");
+        }
+        new Thread(this, "CapacitorEventSource").start();
+    }
+
+    /**
+     * Closes an open source, disconnecting it or cancelling its pending reconnection
+     * @param id the id of the source
+     * @return true if the source was open
+     */
+    static boolean close(String id) {
+        EventSource source = sources.get(id);
+        if (source == null) return false;
+        source.close();
+        return true;
+    }
+
+    private synchronized void close() {
+        closed = true;
+        if (context != null) {
+            context.abort(new RequestAbortedException(RequestAbortedException.CANCELLED, CLOSED_ERROR));
+        }
+        notifyAll();
+    }
+
+    @Override
+    public void run() {
+        int status = 0;
+        IOException error = null;
+        try {
+            int failures = 0;
+            while (true) {
+                notifyState(STATE_CONNECTING, status, error);
+                int dispatchedBefore = dispatched;
+                Result result;
+                try {
+                    result = connect();
+                } catch (RequestAbortedException ex) {
+                    // closed by the app, directly or through cancelAll()
+                    if (RequestAbortedException.CANCELLED.equals(ex.getCode())) {
+                        if (!isClosed()) error = ex;
+                        return;
+                    }
+                    result = new Result(0, false, ex);
+                } catch (MalformedURLException ex) {
+                    error = ex;
+                    return;
+                } catch (IOException ex) {
+                    result = new Result(0, false, ex);
+                }
+
+                status = result.status;
+                error = result.error;
+                if (result.fatal || isClosed()) return;
+                // a stream that opens and ends without an event is no better than one that fails
+                failures = dispatched > dispatchedBefore ? 0 : failures + 1;
+                if (!awaitReconnect(getReconnectDelay(retryMs, failures))) return;
+            }
+        } finally {
+            sources.remove(id, this);
+            notifyState(STATE_CLOSED, status, isClosed() ? null : error);
+        }
+    }
+
+    /**
+     * Connects once and reads the stream until it ends
+     * @return how the connection ended
+     * @throws IOException thrown if the connection failed before it opened
+     */
+    private Result connect() throws IOException {
+        RequestContext requestContext = RequestContext.attach(call);
+        synchronized (this) {
+            if (closed) {
+                requestContext.detach();
+                throw new RequestAbortedException(RequestAbortedException.CANCELLED, CLOSED_ERROR);
+            }
+            context = requestContext;
+        }
+
+        boolean opened = false;
+        try {
+            CapacitorHttpUrlConnection connection = new HttpRequestHandler.HttpURLConnectionBuilder()
+                .setUrl(new URL(call.getString("url", "")))
+                .setMethod("GET")
+                .setHeaders(call.getObject("headers", new JSObject()))
+                .setUrlParams(call.getObject("params", new JSObject()), call.getBoolean("shouldEncodeUrlParams", true))
+                .setConnectTimeout(call.getInt("connectTimeout"))
+                .setReadTimeout(call.getInt("readTimeout"))
+                .openConnection()
+                .build();
+            HttpURLConnection httpConnection = connection.getHttpConnection();
+            httpConnection.setRequestProperty("Accept", "text/event-stream");
+            httpConnection.setRequestProperty("Cache-Control", "no-cache");
+            if (!parser.getLastEventId().isEmpty()) {
+                httpConnection.setRequestProperty("Last-Event-ID", parser.getLastEventId());
+            }
+
+            requestContext.begin(connection);
+            connection.connect();
+            requestContext.markRequestSent();
+            int status = connection.getResponseCode();
+            requestContext.markResponseStart();
+
+            String contentType = connection.getHeaderField("Content-Type");
+            if (status != HttpURLConnection.HTTP_OK || contentType == null || !contentType.startsWith("text/event-stream")) {
+                requestContext.recordResponse(status, connection.getHeaderFields(), null);
+                requestContext.complete(status, 0, connection.getResponseBodySize());
+                // a 204 is how a server tells the client to stop reconnecting
+                IOException error = status == HttpURLConnection.HTTP_NO_CONTENT
+                    ? null
+                    : new IOException("Expected a 200 text/event-stream response, got " + status + " " + contentType);
+                return new Result(status, true, error);
+            }
+
+            requestContext.markStreaming();
+            parser.reset();
+            opened = true;
+            notifyState(STATE_OPEN, status, null);
+
+            InputStream body = connection.getInputStream();
+            try {
+                Reader reader = new InputStreamReader(body, StandardCharsets.UTF_8);
+                char[] buffer = new char[4096];
+                int count;
+                while ((count = reader.read(buffer)) > 0) {
+                    requestContext.checkAborted();
+                    parser.feed(buffer, 0, count);
+                }
+            } finally {
+                body.close();
+            }
+            requestContext.checkAborted();
+
+            requestContext.recordResponse(status, connection.getHeaderFields(), null);
+            requestContext.complete(status, 0, connection.getResponseBodySize());
+            return new Result(status, false, null);
+        } catch (URISyntaxException ex) {
+            throw new MalformedURLException(ex.getMessage());
+        } catch (IOException ex) {
+            IOException failure = requestContext.translateFailure(ex);
+            if (!opened) throw failure;
+            if (
+                failure instanceof RequestAbortedException &&
+                RequestAbortedException.CANCELLED.equals(((RequestAbortedException) failure).getCode())
+            ) {
+                throw failure;
+            }
+            return new Result(HttpURLConnection.HTTP_OK, false, failure);
+        } finally {
+            synchronized (this) {
+                context = null;
+            }
+            requestContext.detach();
+        }
+    }
+
+    /**
+     * Waits for the reconnection delay
+     * @return false if the source was closed while waiting
+     */
+    private synchronized boolean awaitReconnect(long delayMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        try {
+            long waitNanos;
+            while (!closed && (waitNanos = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            closed = true;
+        }
+        return !closed;
+    }
+
+    /**
+     * Returns the delay before the next connection attempt: the reconnection time after a stream
+     * that dispatched events, and at least {@link #MIN_BACKOFF_MS}, doubled for every further
+     * consecutive attempt, after one that dispatched none
+     * @param retryMs the reconnection time
+     * @param failures the number of consecutive attempts that dispatched no event
+     */
+    static long getReconnectDelay(long retryMs, int failures) {
+        if (failures == 0) return retryMs;
+        // a reconnection time of 0 must not turn a server that is down, or that closes every
+        // stream right away, into a busy loop
+        long delay = Math.max(retryMs, MIN_BACKOFF_MS);
+        for (int i = 1; i < failures && delay < MAX_RETRY_MS; i++) {
+            delay *= 2;
+        }
+        return Math.max(retryMs, Math.min(delay, MAX_RETRY_MS));
+    }
+
+    private synchronized boolean isClosed() {
+        return closed;
+    }
+
+    private void add(Event event) {
+        if (batchIntervalMs == 0) {
+            synchronized (flushLock) {
+                listener.onEvents(id, Collections.singletonList(event));
+            }
+            return;
+        }
+        synchronized (batch) {
+            batch.add(event);
+            if (batch.size() > 1) return;
+        }
+        flushExecutor.schedule(
+            new Runnable() {
+                @Override
+                public void run() {
+                    flush();
+                }
+            },
+            batchIntervalMs,
+            TimeUnit.MILLISECONDS
+        );
+    }
+
+    /**
+     * Hands the pending events to the listener. Deliveries never overlap, so batches arrive in
+     * order.
+     */
+    private void flush() {
+        synchronized (flushLock) {
+            List<Event> events;
+            synchronized (batch) {
+                if (batch.isEmpty()) return;
+                events = new ArrayList<>(batch);
+                batch.clear();
+            }
+            listener.onEvents(id, events);
+        }
+    }
+
+    /**
+     * Reports a state change after the events received before it
+     */
+    private void notifyState(String state, int status, IOException error) {
+        synchronized (flushLock) {
+            flush();
+            listener.onStateChange(id, state, status, error);
+        }
+    }
+
+    /**
+     * How a connection ended
+     */
+    private static class Result {
+
+        final int status;
+        final boolean fatal;
+        final IOException error;
+
+        Result(int status, boolean fatal, IOException error) {
+            this.status = status;
+            this.fatal = fatal;
+            this.error = error;
+        }
+    }
+
+    /**
+     * An event received from the stream
+     */
+    static class Event {
+
+        final String type;
+        final String data;
+        final String lastEventId;
+
+        Event(String type, String data, String lastEventId) {
+            this.type = type;
+            this.data = data;
+            this.lastEventId = lastEventId;
+        }
+    }
+}
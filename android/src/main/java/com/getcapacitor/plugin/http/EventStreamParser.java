@@ -0,0 +1,162 @@
+package com.getcapacitor.plugin.http;
+
+/**
+ * An incremental parser of {@code text/event-stream} bodies, following the interpretation rules
+ * of the HTML event stream format. Text is fed as it is read, in pieces of any size, and events are
+ * dispatched to the listener as soon as the blank line ending them arrives. A line ending split
+ * across two pieces, a CR at the end of one and an LF at the start of the next, counts once.
+ * <p>
+ * The last event id outlives the connection, so that it can be sent in the {@code Last-Event-ID}
+ * header when reconnecting, while everything else is discarded by {@link #reset()}. Like the
+ * format says, an {@code id} field only becomes the last event id once its event is dispatched, so
+ * an event cut short by a dropped connection is received again after reconnecting.
+ */
+class EventStreamParser {
+
+    static final String DEFAULT_EVENT_TYPE = "message";
+
+    interface Listener {
+        /**
+         * Called for every complete event with data
+         * @param type the event type, {@code message} unless the event has an {@code event} field
+         * @param data the data fields, joined by line feeds
+         * @param lastEventId the last event id seen on the stream, or an empty string
+         */
+        void onEvent(String type, String data, String lastEventId);
+
+        /**
+         * Called when the stream sets the reconnection time
+         * @param retryMs the reconnection time in milliseconds
+         */
+        void onRetry(long retryMs);
+    }
+
+    private final Listener listener;
+    private final StringBuilder line = new StringBuilder();
+    private final StringBuilder data = new StringBuilder();
+    private String eventType = "";
+    private String lastEventId;
+    // the id of the event being received, committed to lastEventId when it is dispatched
+    private String lastEventIdBuffer;
+    private boolean afterCarriageReturn = false;
+    private boolean atStart = true;
+
+    /**
+     * @param lastEventId the last event id to start from, or {@code null}
+     * @param listener receives the events
+     */
+    EventStreamParser(String lastEventId, Listener listener) {
+        this.lastEventId = lastEventId != null ? lastEventId : "";
+        this.lastEventIdBuffer = this.lastEventId;
+        this.listener = listener;
+    }
+
+    String getLastEventId() {
+        return lastEventId;
+    }
+
+    /**
+     * Discards a partially received event, before reading a new connection
+     */
+    void reset() {
+        line.setLength(0);
+        data.setLength(0);
+        eventType = "";
+        lastEventIdBuffer = lastEventId;
+        afterCarriageReturn = false;
+        atStart = true;
+    }
+
+    /**
+     * Parses the next piece of the stream
+     * @param chars the buffer holding the piece
+     * @param offset the start of the piece in the buffer
+     * @param length the length of the piece
+     */
+    void feed(char[] chars, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            char c = chars[i];
+            if (atStart) {
+                atStart = false;
+                // a leading byte order mark is not part of the stream
+                if (c == '\uFEFF') continue;
+            }
+            if (c == '\n' && afterCarriageReturn) {
+                afterCarriageReturn = false;
+                continue;
+            }
+            afterCarriageReturn = c == '\r';
+            if (c == '\r' || c == '\n') {
+                processLine();
+                line.setLength(0);
+            } else {
+                line.append(c);
+            }
+        }
+    }
+
+    private void processLine() {
+        if (line.length() == 0) {
+            dispatch();
+            return;
+        }
+        // comments, such as keep-alives, are ignored
+        if (line.charAt(0) == ':') return;
+
+        String field;
+        String value;
+        int colon = line.indexOf(":");
+        if (colon >= 0) {
+            field = line.substring(0, colon);
+            int valueStart = colon + 1 < line.length() && line.charAt(colon + 1) == ' ' ? colon + 2 : colon + 1;
+            value = line.substring(valueStart);
+        } else {
+            field = line.toString();
+            value = "";
+        }
+
+        switch (field) {
+            case "event":
+                eventType = value;
+                break;
+            case "data":
+                data.append(value).append('\n');
+                break;
+            case "id":
+                if (value.indexOf('\u0000') < 0) lastEventIdBuffer = value;
+                break;
+            case "retry":
+                if (isDigits(value)) {
+                    try {
+                        listener.onRetry(Long.parseLong(value));
+                    } catch (NumberFormatException ignored) {}
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void dispatch() {
+        lastEventId = lastEventIdBuffer;
+        if (data.length() == 0) {
+            eventType = "";
+            return;
+        }
+        // the data of every field ends with a line feed, except for the last one
+        String eventData = data.substring(0, data.length() - 1);
+        String type = eventType.isEmpty() ? DEFAULT_EVENT_TYPE : eventType;
+        data.setLength(0);
+        eventType = "";
+        listener.onEvent(type, eventData, lastEventId);
+    }
+
+    private static boolean isDigits(String value) {
+        if (value.isEmpty()) return false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+}
@@ -3,7 +3,12 @@ package com.getcapacitor.plugin.http;
 import android.content.Context;
 import android.net.Uri;
 import android.os.Environment;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 
 public class FilesystemUtils {
 
@@ -62,4 +67,48 @@ public class FilesystemUtils {
     public static boolean isPublicDirectory(String directory) {
         return (DIRECTORY_DOCUMENTS.equals(directory) || DIRECTORY_DOWNLOADS.equals(directory) || "EXTERNAL_STORAGE".equals(directory));
     }
+
+    /**
+     * Reads a whole file
+     * @param file the file
+     * @return the content of the file
+     * @throws IOException thrown if the file can't be read
+     */
+    static byte[] readFile(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length());
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Replaces the content of a file in one step. The new content is written and synced under a
+     * temporary name before it is renamed over the file, so a crash leaves either the old content
+     * or the new one.
+     * @param file the file
+     * @param content the new content
+     * @throws IOException thrown if the file can't be written or replaced
+     */
+    static void replaceFile(File file, byte[] content) throws IOException {
+        File tmpFile = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(tmpFile, false);
+        try {
+            out.write(content);
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!tmpFile.renameTo(file)) {
+            tmpFile.delete();
+            throw new IOException("Unable to replace " + file);
+        }
+    }
 }
@@ -37,6 +37,22 @@ public class FormUploader {
         prWriter = new PrintWriter(new OutputStreamWriter(outputStream, charset), true);
     }
 
+    /**
+     * This constructor initializes a new multipart/form-data request on a
+     * CapacitorHttpUrlConnection, so that the bytes written are counted by the connection
+     * @param connection The CapacitorHttpUrlConnection to use to upload a Form
+     * @throws IOException Thrown if unable to parse the OutputStream of the connection
+     */
+    public FormUploader(CapacitorHttpUrlConnection connection) throws IOException {
+        UUID uuid = UUID.randomUUID();
+        boundary = uuid.toString();
+
+        connection.getHttpConnection().setRequestProperty("Content-Type", "multipart/form-data; boundary=" + boundary);
+
+        outputStream = connection.getOutputStream();
+        prWriter = new PrintWriter(new OutputStreamWriter(outputStream, charset), true);
+    }
+
     /**
      * Adds a form field to the request
      *
@@ -97,6 +113,22 @@ public class FormUploader {
      * @throws IOException Thrown if unable to parse the OutputStream of the connection
      */
     public void addFilePart(String fieldName, File uploadFile, JSObject data) throws IOException {
+        addFilePart(fieldName, uploadFile, data, null, null);
+    }
+
+    /**
+     * Adds a upload file section to the request, computing the digest of the file while it is
+     * sent. Headers can't follow the body, so the digest is sent in hex as a form field after
+     * the file.
+     *
+     * @param fieldName  name attribute in <input type="file" name="..." />
+     * @param uploadFile a File to be uploaded
+     * @param digest the digest to compute, or {@code null}
+     * @param digestField the name of the form field the digest is sent in
+     * @throws IOException Thrown if unable to parse the OutputStream of the connection
+     */
+    void addFilePart(String fieldName, File uploadFile, JSObject data, ContentDigest digest, String digestField)
+        throws IOException {
         String fileName = uploadFile.getName();
         prWriter
             .append(LINE_FEED)
@@ -120,10 +152,17 @@ public class FormUploader {
         int bytesRead;
         while ((bytesRead = inputStream.read(buffer)) != -1) {
             outputStream.write(buffer, 0, bytesRead);
+            if (digest != null) {
+                digest.update(buffer, 0, bytesRead);
+            }
         }
         outputStream.flush();
         inputStream.close();
 
+        if (digest != null) {
+            appendFieldToWriter(digestField, digest.toHex());
+        }
+
         if (data != null) {
             Iterator<String> keyIterator = data.keys();
             while (keyIterator.hasNext()) {
@@ -0,0 +1,298 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Records native HTTP exchanges into a bounded ring buffer that can be exported as a HAR 1.2 file.
+ * While recording is off, the only cost per request is a single volatile read. While it is on,
+ * memory is bounded by the entry limit and the per-body size limit.
+ */
+public class HarRecorder {
+
+    public static final int DEFAULT_MAX_ENTRIES = 500;
+
+    private static final String CREATOR_NAME = "@capacitor-community/http";
+    private static final String CREATOR_VERSION = "1.4.1";
+
+    private static final HarRecorder instance = new HarRecorder();
+
+    private volatile boolean recording = false;
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+    private int maxBodySize = 0;
+    private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+    public static HarRecorder getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts recording, keeping previously recorded entries
+     * @param maxEntries the number of most recent exchanges to keep
+     * @param maxBodySize the number of characters of each request and response body to keep, 0 to
+     *                    record no bodies
+     */
+    public synchronized void start(int maxEntries, int maxBodySize) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxBodySize = Math.max(0, maxBodySize);
+        while (entries.size() > this.maxEntries) {
+            entries.removeFirst();
+        }
+        recording = true;
+    }
+
+    public void stop() {
+        recording = false;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Creates an entry for a new exchange
+     * @return a new entry, or {@code null} if not recording
+     */
+    Entry newEntry() {
+        if (!recording) return null;
+        synchronized (this) {
+            return new Entry(maxBodySize);
+        }
+    }
+
+    /**
+     * Adds a finished exchange to the buffer, dropping the oldest entry if it is full
+     * @param entry the finished entry
+     */
+    synchronized void add(Entry entry) {
+        if (entries.size() >= maxEntries) {
+            entries.removeFirst();
+        }
+        entries.addLast(entry);
+    }
+
+    /**
+     * Writes the recorded entries to a HAR 1.2 file
+     * @param file the file to write
+     * @return the number of entries written
+     * @throws IOException thrown if the file can't be written
+     */
+    public int export(File file) throws IOException {
+        List<Entry> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(entries);
+        }
+
+        JSArray entriesJsArray = new JSArray();
+        for (Entry entry : snapshot) {
+            entriesJsArray.put(entry.toJSObject());
+        }
+
+        JSObject creator = new JSObject();
+        creator.put("name", CREATOR_NAME);
+        creator.put("version", CREATOR_VERSION);
+
+        JSObject log = new JSObject();
+        log.put("version", "1.2");
+        log.put("creator", creator);
+        log.put("entries", entriesJsArray);
+
+        JSObject har = new JSObject();
+        har.put("log", log);
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, false), StandardCharsets.UTF_8)) {
+            writer.write(har.toString());
+        }
+        return snapshot.size();
+    }
+
+    /**
+     * A single recorded exchange. Fields are filled in by the request thread as the exchange
+     * progresses and only serialized on export.
+     */
+    static class Entry {
+
+        private final int maxBodySize;
+        private final long startedDateTime = System.currentTimeMillis();
+
+        private String method;
+        private String url;
+        private Map<String, List<String>> requestHeaders;
+        private String requestMimeType;
+        private String requestBody;
+        private long requestBodySize = -1;
+
+        private int status = 0;
+        private Map<String, List<String>> responseHeaders;
+        private String responseMimeType;
+        private String responseBody;
+        private long responseBodySize = -1;
+
+        private RequestTimings timings;
+        private String error;
+
+        Entry(int maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+
+        void setRequest(String method, URL url, Map<String, List<String>> headers) {
+            this.method = method;
+            this.url = url.toString();
+            this.requestHeaders = headers;
+            this.requestMimeType = firstValue(headers, "Content-Type");
+        }
+
+        void setRequestBody(Object body) {
+            if (maxBodySize > 0 && body != null) {
+                requestBody = truncate(body.toString());
+            }
+        }
+
+        void setResponse(int status, Map<String, List<String>> headers) {
+            this.status = status;
+            this.responseHeaders = headers;
+            this.responseMimeType = firstValue(headers, "Content-Type");
+        }
+
+        void setResponseBody(Object body) {
+            if (maxBodySize > 0 && body != null) {
+                responseBody = truncate(body.toString());
+            }
+        }
+
+        void setBodySizes(long requestBodySize, long responseBodySize) {
+            this.requestBodySize = requestBodySize;
+            this.responseBodySize = responseBodySize;
+        }
+
+        void setTimings(RequestTimings timings) {
+            this.timings = timings;
+        }
+
+        void setError(String error) {
+            this.error = error;
+        }
+
+        JSObject toJSObject() {
+            JSObject request = new JSObject();
+            request.put("method", method);
+            request.put("url", url);
+            request.put("httpVersion", "HTTP/1.1");
+            request.put("cookies", new JSArray());
+            request.put("headers", buildHeaders(requestHeaders));
+            request.put("queryString", buildQueryString(url));
+            request.put("headersSize", -1);
+            request.put("bodySize", requestBodySize);
+            if (requestBody != null) {
+                JSObject postData = new JSObject();
+                postData.put("mimeType", requestMimeType != null ? requestMimeType : "");
+                postData.put("text", requestBody);
+                request.put("postData", postData);
+            }
+
+            JSObject content = new JSObject();
+            content.put("size", Math.max(0, responseBodySize));
+            content.put("mimeType", responseMimeType != null ? responseMimeType : "");
+            if (responseBody != null) {
+                content.put("text", responseBody);
+            }
+
+            JSObject response = new JSObject();
+            response.put("status", status);
+            response.put("statusText", "");
+            response.put("httpVersion", "HTTP/1.1");
+            response.put("cookies", new JSArray());
+            response.put("headers", buildHeaders(responseHeaders));
+            response.put("content", content);
+            String location = firstValue(responseHeaders, "Location");
+            response.put("redirectURL", location != null ? location : "");
+            response.put("headersSize", -1);
+            response.put("bodySize", responseBodySize);
+
+            JSObject output = new JSObject();
+            output.put("startedDateTime", formatDate(startedDateTime));
+            output.put("time", timings != null ? timings.getTotalMillis() : 0);
+            output.put("request", request);
+            output.put("response", response);
+            output.put("cache", new JSObject());
+            output.put("timings", timings != null ? timings.toHarTimings() : RequestTimings.emptyHarTimings());
+            if (error != null) {
+                output.put("_error", error);
+            }
+            return output;
+        }
+
+        private String truncate(String body) {
+            return body.length() > maxBodySize ? body.substring(0, maxBodySize) : body;
+        }
+
+        private static String firstValue(Map<String, List<String>> headers, String name) {
+            if (headers == null) return null;
+            for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                    return header.getValue().get(0);
+                }
+            }
+            return null;
+        }
+
+        private static JSArray buildHeaders(Map<String, List<String>> headers) {
+            JSArray output = new JSArray();
+            if (headers != null) {
+                for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+                    // HttpURLConnection reports the status line as a header without a name
+                    if (header.getKey() == null) continue;
+                    for (String value : header.getValue()) {
+                        JSObject pair = new JSObject();
+                        pair.put("name", header.getKey());
+                        pair.put("value", value);
+                        output.put(pair);
+                    }
+                }
+            }
+            return output;
+        }
+
+        private static JSArray buildQueryString(String url) {
+            JSArray output = new JSArray();
+            int start = url != null ? url.indexOf('?') : -1;
+            if (start < 0) return output;
+            int end = url.indexOf('#', start);
+            String query = end < 0 ? url.substring(start + 1) : url.substring(start + 1, end);
+            for (String param : query.split("&")) {
+                if (param.isEmpty()) continue;
+                int separator = param.indexOf('=');
+                JSObject pair = new JSObject();
+                pair.put("name", separator < 0 ? param : param.substring(0, separator));
+                pair.put("value", separator < 0 ? "" : param.substring(separator + 1));
+                output.put(pair);
+            }
+            return output;
+        }
+
+        private static String formatDate(long millis) {
+            SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return format.format(new Date(millis));
+        }
+    }
+}
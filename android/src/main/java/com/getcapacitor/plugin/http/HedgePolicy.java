@@ -0,0 +1,113 @@
+package com.getcapacitor.plugin.http;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import org.json.JSONObject;
+
+/**
+ * Decides whether and when a slow exchange is hedged with another exchange for the same request.
+ * The hedge delay is either fixed, or adapts to a percentile of the time the endpoint takes to
+ * respond, so that only the slowest exchanges are hedged. Only requests without a body whose
+ * methods are safe to send twice are hedged, and hedges are capped both per attempt and as a share
+ * of all hedgeable requests, so that a slow backend doesn't get twice the load.
+ */
+public class HedgePolicy {
+
+    public static final int DEFAULT_MAX_HEDGES = 0;
+    public static final long DEFAULT_DELAY_MS = -1;
+    public static final double DEFAULT_PERCENTILE = 95;
+    public static final long DEFAULT_MIN_DELAY_MS = 10;
+    public static final double DEFAULT_BUDGET = 0.1;
+
+    // the adaptive delay is not computed from fewer responses than this
+    static final long MIN_SAMPLES = 20;
+
+    private static final Set<String> HEDGEABLE_METHODS = new HashSet<>(Arrays.asList("GET", "HEAD", "OPTIONS"));
+
+    private static volatile HedgePolicy defaultPolicy = new HedgePolicy(
+        DEFAULT_MAX_HEDGES,
+        DEFAULT_DELAY_MS,
+        DEFAULT_PERCENTILE,
+        DEFAULT_MIN_DELAY_MS,
+        DEFAULT_BUDGET
+    );
+
+    private final int maxHedges;
+    private final long delayMs;
+    private final double percentile;
+    private final long minDelayMs;
+    private final double budget;
+
+    /**
+     * @param maxHedges the number of hedges an attempt may send, 0 to never hedge
+     * @param delayMs how long an exchange may go without response headers before it is hedged, or
+     *                -1 to use the percentile of the endpoint's time to response headers
+     * @param percentile the percentile of the time to response headers used as adaptive delay
+     * @param minDelayMs the lower bound of the adaptive delay
+     * @param budget the share of hedgeable requests that may be hedged, between 0 and 1
+     */
+    public HedgePolicy(int maxHedges, long delayMs, double percentile, long minDelayMs, double budget) {
+        this.maxHedges = Math.max(0, maxHedges);
+        this.delayMs = delayMs < 0 ? -1 : delayMs;
+        this.percentile = Math.max(0, Math.min(100, percentile));
+        this.minDelayMs = Math.max(0, minDelayMs);
+        this.budget = Math.max(0, Math.min(1, budget));
+    }
+
+    public static HedgePolicy getDefault() {
+        return defaultPolicy;
+    }
+
+    public static void setDefault(HedgePolicy policy) {
+        defaultPolicy = policy;
+    }
+
+    /**
+     * Builds a policy from JSON options, falling back to another policy for missing values
+     * @param options the options, with {@code maxHedges}, {@code delay}, {@code percentile},
+     *                {@code minDelay} and {@code budget}
+     * @param defaults the policy to take missing values from
+     * @return the policy, or {@code defaults} if there are no options
+     */
+    public static HedgePolicy fromJSON(JSONObject options, HedgePolicy defaults) {
+        if (options == null) return defaults;
+
+        return new HedgePolicy(
+            options.optInt("maxHedges", defaults.maxHedges),
+            options.optLong("delay", defaults.delayMs),
+            options.optDouble("percentile", defaults.percentile),
+            options.optLong("minDelay", defaults.minDelayMs),
+            options.optDouble("budget", defaults.budget)
+        );
+    }
+
+    public int getMaxHedges() {
+        return maxHedges;
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+
+    /**
+     * Decides whether requests with a method may be hedged
+     * @param method the HTTP method
+     * @return true if hedging is on and the method is safe to send twice
+     */
+    public boolean appliesTo(String method) {
+        return maxHedges > 0 && method != null && HEDGEABLE_METHODS.contains(method.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Returns how long an exchange may go without response headers before it is hedged
+     * @param endpoint the metrics of the endpoint the request is made to
+     * @return the delay in milliseconds, or -1 if there are too few responses to adapt to yet
+     */
+    public long getDelay(HttpMetrics.EndpointMetrics endpoint) {
+        if (delayMs >= 0) return delayMs;
+        if (endpoint.getTimeToHeadersCount() < MIN_SAMPLES) return -1;
+        return Math.max(minDelayMs, endpoint.getTimeToHeaders(percentile) / 1000);
+    }
+}
@@ -7,13 +7,25 @@ import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
+import com.getcapacitor.PluginConfig;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
 import com.getcapacitor.annotation.Permission;
+import java.io.File;
 import java.io.IOException;
 import java.net.HttpCookie;
 import java.net.MalformedURLException;
 import java.net.URI;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
 
 /**
  * Native HTTP Plugin
@@ -30,8 +42,18 @@ public class Http extends Plugin {
     public static final int HTTP_REQUEST_DOWNLOAD_WRITE_PERMISSIONS = 9022;
     public static final int HTTP_REQUEST_UPLOAD_READ_PERMISSIONS = 9023;
 
+    private static final String SPANS_DIRECTORY = "http-spans";
+    private static final String OUTBOX_DIRECTORY = "http-outbox";
+    private static final String DOWNLOADS_DIRECTORY = "http-downloads";
+    // the requestId of a background download, so that it can be aborted
+    private static final String DOWNLOAD_REQUEST_PREFIX = "download:";
+
     CapConfig capConfig;
     CapacitorCookieManager cookieManager;
+    private Outbox outbox;
+    private int outboxConcurrency = Outbox.DEFAULT_CONCURRENCY;
+    private DownloadManager downloadManager;
+    private int downloadConcurrency = DownloadManager.DEFAULT_CONCURRENCY;
 
     /**
      * Helper function for getting the serverUrl from the Capacitor Config. Returns an empty
@@ -64,6 +86,83 @@ public class Http extends Plugin {
         }
     }
 
+    /**
+     * Reads the {@code cookiePolicyByHost} plugin config, a map of host names to cookie policies
+     * @param pluginConfig the plugin config
+     * @return a map of host names to their cookie access, with hosts of an unknown policy mapped to
+     * {@link CapacitorCookieManager.CookieAccess#NONE}
+     */
+    private Map<String, CapacitorCookieManager.CookieAccess> getHostCookieAccess(PluginConfig pluginConfig) {
+        Map<String, CapacitorCookieManager.CookieAccess> hostCookieAccess = new HashMap<>();
+        JSONObject hosts = pluginConfig.getObject("cookiePolicyByHost");
+        if (hosts != null) {
+            Iterator<String> keys = hosts.keys();
+            while (keys.hasNext()) {
+                String host = keys.next();
+                String policy = hosts.optString(host);
+                try {
+                    hostCookieAccess.put(host.toLowerCase(), CapacitorCookieManager.CookieAccess.parse(policy));
+                } catch (IllegalArgumentException ex) {
+                    // a typo must not silently turn full cookie handling back on for the host, nor
+                    // fail the plugin load, which would crash the app
+                    Log.e(getLogTag(), "Invalid cookiePolicyByHost entry for host '" + host + "', disabling its cookies", ex);
+                    hostCookieAccess.put(host.toLowerCase(), CapacitorCookieManager.CookieAccess.NONE);
+                }
+            }
+        }
+        return hostCookieAccess;
+    }
+
+    /**
+     * Configures trace context propagation from the {@code tracing} plugin config, with spans
+     * written as OTLP/JSON files to the cache directory
+     * @param pluginConfig the plugin config
+     */
+    private void configureTracing(PluginConfig pluginConfig) {
+        JSONObject tracing = pluginConfig.getObject("tracing");
+        if (tracing == null) return;
+
+        Tracer tracer = Tracer.getInstance();
+        tracer.setExporter(
+            new OtlpJsonFileExporter(
+                new File(getContext().getCacheDir(), SPANS_DIRECTORY),
+                tracing.optString("serviceName", getContext().getPackageName()),
+                tracing.optInt("batchSize", OtlpJsonFileExporter.DEFAULT_BATCH_SIZE),
+                tracing.optLong("flushInterval", OtlpJsonFileExporter.DEFAULT_FLUSH_DELAY_MS)
+            )
+        );
+        tracer.configure(
+            tracing.optBoolean("enabled", true),
+            tracing.optDouble("sampleRate", 1.0),
+            tracing.has("traceState") ? tracing.optString("traceState") : null
+        );
+    }
+
+    /**
+     * Converts an array of {@code { key, value, path?, expires? }} objects to 'Set-Cookie' header values
+     * @param cookies the cookie objects passed from JS
+     * @return the cookies as 'Set-Cookie' header values
+     * @throws JSONException thrown if an entry is not an object or has no key
+     */
+    private List<String> buildSetCookieValues(JSONArray cookies) throws JSONException {
+        List<String> values = new ArrayList<>(cookies.length());
+        for (int i = 0; i < cookies.length(); i++) {
+            JSONObject cookie = cookies.getJSONObject(i);
+            StringBuilder value = new StringBuilder();
+            value.append(cookie.getString("key")).append("=").append(cookie.optString("value", ""));
+            String path = cookie.optString("path", "");
+            if (!path.isEmpty()) {
+                value.append("; Path=").append(path);
+            }
+            String expires = cookie.optString("expires", "");
+            if (!expires.isEmpty()) {
+                value.append("; Expires=").append(expires);
+            }
+            values.add(value.toString());
+        }
+        return values;
+    }
+
     private boolean isStoragePermissionGranted(PluginCall call, String permission) {
         if (hasPermission(permission)) {
             Log.v(getLogTag(), "Permission '" + permission + "' is granted");
@@ -79,9 +178,17 @@ public class Http extends Plugin {
         Runnable asyncHttpCall = new Runnable() {
             @Override
             public void run() {
+                if (call.getBoolean("stream", false) || call.getObject("pages", null) != null) {
+                    stream(call, httpMethod);
+                    return;
+                }
                 try {
-                    JSObject response = HttpRequestHandler.request(call, httpMethod);
+                    JSObject response = call.getBoolean("outbox", false)
+                        ? requestThroughOutbox(call, httpMethod)
+                        : HttpRequestHandler.request(call, httpMethod);
                     call.resolve(response);
+                } catch (RequestAbortedException e) {
+                    call.reject(e.getMessage(), e.getCode(), e);
                 } catch (Exception e) {
                     System.out.println(e.toString());
                     call.reject(e.getClass().getSimpleName(), e);
@@ -92,11 +199,323 @@ public class Http extends Plugin {
         httpThread.start();
     }
 
+    /**
+     * Makes a request whose body is emitted in {@code data} events as it arrives, or in
+     * {@code page} events for a paged JSON array, followed by an {@code end} event. The call
+     * resolves as soon as the status and headers arrived.
+     * @param call the PluginCall describing the request
+     * @param httpMethod the HTTP method that overrides the PluginCall HTTP method
+     */
+    private void stream(final PluginCall call, String httpMethod) {
+        try {
+            HttpRequestHandler.stream(
+                call,
+                httpMethod,
+                new ResponseStream.Listener() {
+                    @Override
+                    public void onResponse(JSObject response) {
+                        call.resolve(response);
+                    }
+
+                    @Override
+                    public void onData(String streamId, String chunk) {
+                        JSObject event = new JSObject();
+                        event.put("streamId", streamId);
+                        event.put("chunk", chunk);
+                        notifyListeners("data", event);
+                    }
+
+                    @Override
+                    public void onPage(String streamId, int index, JSArray items) {
+                        JSObject event = new JSObject();
+                        event.put("streamId", streamId);
+                        event.put("index", index);
+                        event.put("items", items);
+                        notifyListeners("page", event);
+                    }
+
+                    @Override
+                    public void onEnd(String streamId, long bytes, Exception error) {
+                        JSObject event = new JSObject();
+                        event.put("streamId", streamId);
+                        event.put("bytes", bytes);
+                        if (error != null) {
+                            event.put("error", error.getMessage());
+                            if (error instanceof RequestAbortedException) {
+                                event.put("code", ((RequestAbortedException) error).getCode());
+                            }
+                        }
+                        notifyListeners("end", event);
+                    }
+                }
+            );
+        } catch (RequestAbortedException e) {
+            call.reject(e.getMessage(), e.getCode(), e);
+        } catch (Exception e) {
+            call.reject(e.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Sends a mutating request, or queues it in the outbox when it can't be sent. Requests are
+     * queued while the device is offline, when they fail before reaching the server, and while
+     * earlier requests are still queued, so that they are sent in order. A request that may have
+     * reached the server fails instead, so that it is never applied twice.
+     * @param call the PluginCall describing the request
+     * @param httpMethod the HTTP method that overrides the PluginCall HTTP method
+     * @return the response, or a response with status 0 and the {@code outboxId} if it was queued
+     */
+    private JSObject requestThroughOutbox(PluginCall call, String httpMethod) throws Exception {
+        String method = httpMethod != null ? httpMethod.toUpperCase() : call.getString("method", "").toUpperCase();
+        if (method.equals("GET") || method.equals("HEAD")) {
+            return HttpRequestHandler.request(call, httpMethod);
+        }
+
+        Outbox outbox = openOutbox();
+        if (outbox.isOnline() && outbox.isEmpty()) {
+            try {
+                return HttpRequestHandler.request(call, httpMethod);
+            } catch (IOException ex) {
+                if (!Outbox.isUnsent(ex)) throw ex;
+            }
+        }
+
+        JSObject options = new JSObject(call.getData().toString());
+        options.put("method", method);
+        options.remove("outbox");
+        Outbox.Entry entry = outbox.enqueue(options.toString());
+
+        JSObject response = new JSObject();
+        response.put("status", 0);
+        response.put("headers", new JSObject());
+        response.put("url", call.getString("url"));
+        response.put("outboxId", entry.getId());
+        return response;
+    }
+
+    /**
+     * Returns the outbox, opening it on first use
+     */
+    private synchronized Outbox openOutbox() throws IOException {
+        if (outbox != null) return outbox;
+
+        Outbox.Sender sender = new Outbox.Sender() {
+            @Override
+            public JSObject send(Outbox.Entry entry) throws Exception {
+                JSObject options = new JSObject(entry.getRequest());
+                PluginCall call = new PluginCall(null, getPluginHandle().getId(), PluginCall.CALLBACK_ID_DANGLING, "request", options);
+                return HttpRequestHandler.request(call, null);
+            }
+        };
+        Outbox.Listener listener = new Outbox.Listener() {
+            @Override
+            public void onResult(Outbox.Entry entry, JSObject response, Exception error) {
+                JSObject event = buildOutboxEntry(entry);
+                if (response != null) {
+                    event.put("response", response);
+                } else {
+                    event.put("error", error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName());
+                    if (error instanceof RequestAbortedException) {
+                        event.put("code", ((RequestAbortedException) error).getCode());
+                    }
+                }
+                // results of requests queued by earlier sessions may arrive before JS listens
+                notifyListeners("outboxResult", event, true);
+            }
+        };
+        outbox =
+            new Outbox(
+                new File(getContext().getFilesDir(), OUTBOX_DIRECTORY),
+                new NetworkConnectivitySource(getContext()),
+                sender,
+                listener,
+                outboxConcurrency
+            );
+        return outbox;
+    }
+
+    private static JSObject buildOutboxEntry(Outbox.Entry entry) {
+        JSObject output = new JSObject();
+        output.put("id", entry.getId());
+        output.put("createdAt", entry.getCreatedAt());
+        output.put("attempts", entry.getAttempts());
+        try {
+            JSObject options = new JSObject(entry.getRequest());
+            output.put("url", options.getString("url"));
+            output.put("method", options.getString("method"));
+        } catch (JSONException ignored) {}
+        return output;
+    }
+
+    /**
+     * Returns the download manager, opening it on first use
+     */
+    private synchronized DownloadManager openDownloadManager() throws IOException {
+        if (downloadManager != null) return downloadManager;
+
+        DownloadManager.Downloader downloader = new DownloadManager.Downloader() {
+            @Override
+            public JSObject download(DownloadManager.Job job, HttpRequestHandler.ProgressEmitter progress) throws Exception {
+                JSObject options = new JSObject(job.getRequest());
+                options.put("requestId", DOWNLOAD_REQUEST_PREFIX + job.getId());
+                options.put("resume", true);
+                PluginCall call = new PluginCall(null, getPluginHandle().getId(), PluginCall.CALLBACK_ID_DANGLING, "downloadFile", options);
+                return HttpRequestHandler.downloadFile(call, getContext(), progress);
+            }
+
+            @Override
+            public void abort(DownloadManager.Job job) {
+                InFlightRequest.cancel(DOWNLOAD_REQUEST_PREFIX + job.getId());
+            }
+
+            @Override
+            public void discard(DownloadManager.Job job) {
+                try {
+                    JSObject options = new JSObject(job.getRequest());
+                    String fileDirectory = options.getString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS);
+                    HttpRequestHandler.discardPartialFile(
+                        FilesystemUtils.getFileObject(getContext(), options.getString("filePath"), fileDirectory)
+                    );
+                } catch (JSONException ignored) {}
+            }
+        };
+        DownloadManager.Listener listener = new DownloadManager.Listener() {
+            @Override
+            public void onStateChanged(DownloadManager.Job job, JSObject result) {
+                JSObject event = buildDownloadJob(job);
+                if (result != null) {
+                    event.put("result", result);
+                }
+                // jobs resumed from earlier sessions may change state before JS listens
+                notifyListeners("downloadState", event, true);
+            }
+
+            @Override
+            public void onProgress(DownloadManager.Job job) {
+                JSObject event = new JSObject();
+                event.put("id", job.getId());
+                event.put("bytes", job.getBytes());
+                event.put("contentLength", job.getContentLength());
+                notifyListeners("downloadProgress", event);
+            }
+        };
+        downloadManager =
+            new DownloadManager(
+                new File(getContext().getFilesDir(), DOWNLOADS_DIRECTORY),
+                new NetworkConnectivitySource(getContext()),
+                downloader,
+                listener,
+                downloadConcurrency
+            );
+        return downloadManager;
+    }
+
+    private static JSObject buildDownloadJob(DownloadManager.Job job) {
+        JSObject output = new JSObject();
+        output.put("id", job.getId());
+        output.put("state", job.getState());
+        output.put("createdAt", job.getCreatedAt());
+        output.put("attempts", job.getAttempts());
+        output.put("bytes", job.getBytes());
+        output.put("contentLength", job.getContentLength());
+        if (job.getError() != null) {
+            output.put("error", job.getError());
+        }
+        if (job.getErrorCode() != null) {
+            output.put("code", job.getErrorCode());
+        }
+        try {
+            JSObject options = new JSObject(job.getRequest());
+            output.put("url", options.getString("url"));
+            output.put("filePath", options.getString("filePath"));
+        } catch (JSONException ignored) {}
+        return output;
+    }
+
     @Override
     public void load() {
         this.cookieManager = new CapacitorCookieManager(null, java.net.CookiePolicy.ACCEPT_ALL);
         java.net.CookieHandler.setDefault(cookieManager);
         capConfig = getBridge().getConfig();
+
+        PluginConfig pluginConfig = getConfig();
+        cookieManager.setCookieCacheMaxAge(pluginConfig.getInt("cookieCacheMaxAge", (int) CookieIndex.DEFAULT_MAX_AGE_MS));
+        cookieManager.setHostCookieAccess(getHostCookieAccess(pluginConfig));
+        configureTracing(pluginConfig);
+        JSONObject circuitBreaker = pluginConfig.getObject("circuitBreaker");
+        CircuitBreakerRegistry.getInstance().configure(circuitBreaker != null ? CircuitBreaker.Settings.fromJSON(circuitBreaker) : null);
+        RetryPolicy.setDefault(RetryPolicy.fromJSON(pluginConfig.getObject("retry"), RetryPolicy.getDefault()));
+        HedgePolicy.setDefault(HedgePolicy.fromJSON(pluginConfig.getObject("hedge"), HedgePolicy.getDefault()));
+        RateLimiter.getInstance().configure(pluginConfig.getConfigJSON().optJSONArray("rateLimits"));
+        JSONObject outboxConfig = pluginConfig.getObject("outbox");
+        if (outboxConfig != null) {
+            outboxConcurrency = outboxConfig.optInt("concurrency", Outbox.DEFAULT_CONCURRENCY);
+        }
+        JSONObject downloadsConfig = pluginConfig.getObject("downloads");
+        if (downloadsConfig != null) {
+            downloadConcurrency = downloadsConfig.optInt("concurrency", DownloadManager.DEFAULT_CONCURRENCY);
+        }
+        if (new File(new File(getContext().getFilesDir(), DOWNLOADS_DIRECTORY), DownloadManager.STATE_FILE).exists()) {
+            // resume the downloads queued by earlier sessions
+            new Thread(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            openDownloadManager();
+                        } catch (IOException ex) {
+                            Log.e(getLogTag(), "Unable to open the download manager", ex);
+                        }
+                    }
+                }
+            )
+                .start();
+        }
+        if (new File(new File(getContext().getFilesDir(), OUTBOX_DIRECTORY), Outbox.LOG_FILE).exists()) {
+            // replay the requests queued by earlier sessions
+            new Thread(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            openOutbox();
+                        } catch (IOException ex) {
+                            Log.e(getLogTag(), "Unable to open the outbox", ex);
+                        }
+                    }
+                }
+            )
+                .start();
+        }
+
+        RequestWatchdog watchdog = RequestWatchdog.getInstance();
+        watchdog.setListener(
+            new RequestWatchdog.Listener() {
+                @Override
+                public void onSlowRequest(JSObject event) {
+                    notifyListeners("slowRequest", event);
+                }
+            }
+        );
+        watchdog.configure(
+            pluginConfig.getInt("slowRequestThreshold", 0),
+            pluginConfig.getInt("stallTimeout", 0),
+            pluginConfig.getBoolean("abortStalledRequests", false)
+        );
+        try {
+            TlsSessionCache.configure(
+                pluginConfig.getInt("tlsSessionCacheSize", TlsSessionCache.DEFAULT_SESSION_CACHE_SIZE),
+                pluginConfig.getInt("tlsSessionTimeout", TlsSessionCache.DEFAULT_SESSION_TIMEOUT)
+            );
+        } catch (GeneralSecurityException ex) {
+            Log.e(getLogTag(), "Unable to configure the TLS session cache", ex);
+        }
+    }
+
+    @Override
+    protected void handleOnPause() {
+        // persist any cookie writes still waiting for a background flush
+        cookieManager.flush();
     }
 
     @PluginMethod
@@ -131,44 +550,82 @@ public class Http extends Plugin {
 
     @PluginMethod
     public void downloadFile(final PluginCall call) {
+        bridge.saveCall(call);
+        String fileDirectory = call.getString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS);
+
+        if (
+            !FilesystemUtils.isPublicDirectory(fileDirectory) ||
+            isStoragePermissionGranted(call, Manifest.permission.WRITE_EXTERNAL_STORAGE)
+        ) {
+            call.release(bridge);
+
+            // transfer on a thread of its own, so that cancel() can reach it from the plugin thread
+            Runnable asyncDownload = new Runnable() {
+                @Override
+                public void run() {
+                    download(call);
+                }
+            };
+            Thread downloadThread = new Thread(asyncDownload);
+            downloadThread.start();
+        }
+    }
+
+    private void download(final PluginCall call) {
         try {
-            bridge.saveCall(call);
-            String fileDirectory = call.getString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS);
+            HttpRequestHandler.ProgressEmitter emitter = new HttpRequestHandler.ProgressEmitter() {
+                @Override
+                public void emit(Integer bytes, Integer contentLength) {
+                    // no-op
+                }
+            };
+            Boolean progress = call.getBoolean("progress", false);
+            if (progress) {
+                emitter =
+                    new HttpRequestHandler.ProgressEmitter() {
+                        @Override
+                        public void emit(final Integer bytes, final Integer contentLength) {
+                            JSObject ret = new JSObject();
+                            ret.put("type", "DOWNLOAD");
+                            ret.put("url", call.getString("url"));
+                            ret.put("bytes", bytes);
+                            ret.put("contentLength", contentLength);
 
-            if (
-                !FilesystemUtils.isPublicDirectory(fileDirectory) ||
-                isStoragePermissionGranted(call, Manifest.permission.WRITE_EXTERNAL_STORAGE)
-            ) {
-                call.release(bridge);
+                            notifyListeners("progress", ret);
+                        }
+                    };
+            }
 
-                HttpRequestHandler.ProgressEmitter emitter = new HttpRequestHandler.ProgressEmitter() {
-                    @Override
-                    public void emit(Integer bytes, Integer contentLength) {
-                        // no-op
-                    }
-                };
-                Boolean progress = call.getBoolean("progress", false);
-                if (progress) {
-                    emitter =
-                        new HttpRequestHandler.ProgressEmitter() {
-                            @Override
-                            public void emit(final Integer bytes, final Integer contentLength) {
-                                JSObject ret = new JSObject();
-                                ret.put("type", "DOWNLOAD");
-                                ret.put("url", call.getString("url"));
-                                ret.put("bytes", bytes);
-                                ret.put("contentLength", contentLength);
-
-                                notifyListeners("progress", ret);
-                            }
-                        };
+            ArchiveExtractor.Listener entries = new ArchiveExtractor.Listener() {
+                @Override
+                public void onEntry(String name, long bytes, int files) {
+                    // no-op
                 }
+            };
+            if (progress) {
+                entries =
+                    new ArchiveExtractor.Listener() {
+                        @Override
+                        public void onEntry(String name, long bytes, int files) {
+                            JSObject ret = new JSObject();
+                            ret.put("type", "EXTRACT");
+                            ret.put("url", call.getString("url"));
+                            ret.put("entry", name);
+                            ret.put("bytes", bytes);
+                            ret.put("contentLength", bytes);
+                            ret.put("files", files);
 
-                JSObject response = HttpRequestHandler.downloadFile(call, getContext(), emitter);
-                call.resolve(response);
+                            notifyListeners("progress", ret);
+                        }
+                    };
             }
+
+            JSObject response = HttpRequestHandler.downloadFile(call, getContext(), emitter, entries);
+            call.resolve(response);
         } catch (MalformedURLException ex) {
             call.reject("Invalid URL", ex);
+        } catch (RequestAbortedException ex) {
+            call.reject(ex.getMessage(), ex.getCode(), ex);
         } catch (IOException ex) {
             call.reject("IO Error", ex);
         } catch (Exception ex) {
@@ -177,21 +634,32 @@ public class Http extends Plugin {
     }
 
     @PluginMethod
-    public void uploadFile(PluginCall call) {
-        try {
-            String fileDirectory = call.getString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS);
-            bridge.saveCall(call);
+    public void uploadFile(final PluginCall call) {
+        String fileDirectory = call.getString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS);
+        bridge.saveCall(call);
 
-            if (
-                !FilesystemUtils.isPublicDirectory(fileDirectory) ||
-                isStoragePermissionGranted(call, Manifest.permission.WRITE_EXTERNAL_STORAGE)
-            ) {
-                call.release(bridge);
-                JSObject response = HttpRequestHandler.uploadFile(call, getContext());
-                call.resolve(response);
-            }
-        } catch (Exception ex) {
-            call.reject("Error", ex);
+        if (
+            !FilesystemUtils.isPublicDirectory(fileDirectory) ||
+            isStoragePermissionGranted(call, Manifest.permission.WRITE_EXTERNAL_STORAGE)
+        ) {
+            call.release(bridge);
+
+            // like downloadFile, off the plugin thread
+            Runnable asyncUpload = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        JSObject response = HttpRequestHandler.uploadFile(call, getContext());
+                        call.resolve(response);
+                    } catch (RequestAbortedException ex) {
+                        call.reject(ex.getMessage(), ex.getCode(), ex);
+                    } catch (Exception ex) {
+                        call.reject("Error", ex);
+                    }
+                }
+            };
+            Thread uploadThread = new Thread(asyncUpload);
+            uploadThread.start();
         }
     }
 
@@ -207,6 +675,19 @@ public class Http extends Plugin {
         }
     }
 
+    @PluginMethod
+    public void setCookies(PluginCall call) {
+        String url = getServerUrl(call);
+        if (!url.isEmpty()) {
+            try {
+                cookieManager.setCookies(url, buildSetCookieValues(call.getArray("cookies", new JSArray())));
+                call.resolve();
+            } catch (JSONException ex) {
+                call.reject("Invalid cookies", ex);
+            }
+        }
+    }
+
     @PluginMethod
     public void getCookiesMap(PluginCall call) {
         String url = getServerUrl(call);
@@ -260,19 +741,77 @@ public class Http extends Plugin {
         String key = call.getString("key");
         String url = getServerUrl(call);
         if (!url.isEmpty()) {
-            cookieManager.setCookie(url, key + "=; Expires=Wed, 31 Dec 2000 23:59:59 GMT");
+            cookieManager.deleteCookie(url, key);
             call.resolve();
         }
     }
 
+    @PluginMethod
+    public void deleteCookies(PluginCall call) {
+        String url = getServerUrl(call);
+        if (!url.isEmpty()) {
+            try {
+                List<String> keys = call.getArray("keys", new JSArray()).toList();
+                cookieManager.deleteCookies(url, keys);
+                call.resolve();
+            } catch (JSONException ex) {
+                call.reject("Invalid keys", ex);
+            }
+        }
+    }
+
+    @PluginMethod
+    public void exportCookies(PluginCall call) {
+        try {
+            List<String> urls = call.getArray("urls", new JSArray()).toList();
+            JSObject snapshot = new JSObject();
+            for (String url : urls) {
+                JSArray cookiesJsArray = new JSArray();
+                for (HttpCookie cookie : cookieManager.getCookies(url)) {
+                    JSObject cookieJsPair = new JSObject();
+                    cookieJsPair.put("key", cookie.getName());
+                    cookieJsPair.put("value", cookie.getValue());
+                    cookiesJsArray.put(cookieJsPair);
+                }
+                snapshot.put(url, cookiesJsArray);
+            }
+            JSObject ret = new JSObject();
+            ret.put("cookies", snapshot);
+            call.resolve(ret);
+        } catch (JSONException ex) {
+            call.reject("Invalid urls", ex);
+        }
+    }
+
+    @PluginMethod
+    public void importCookies(PluginCall call) {
+        JSObject snapshot = call.getObject("cookies", new JSObject());
+        try {
+            Iterator<String> urls = snapshot.keys();
+            while (urls.hasNext()) {
+                String url = urls.next();
+                if (getUri(url) == null) {
+                    call.reject("Invalid URL '" + url + "'");
+                    return;
+                }
+                cookieManager.setCookies(url, buildSetCookieValues(snapshot.getJSONArray(url)));
+            }
+            call.resolve();
+        } catch (JSONException ex) {
+            call.reject("Invalid cookies", ex);
+        }
+    }
+
     @PluginMethod
     public void clearCookies(PluginCall call) {
         String url = getServerUrl(call);
         if (!url.isEmpty()) {
             HttpCookie[] cookies = cookieManager.getCookies(url);
+            List<String> keys = new ArrayList<>(cookies.length);
             for (HttpCookie cookie : cookies) {
-                cookieManager.setCookie(url, cookie.getName() + "=; Expires=Wed, 31 Dec 2000 23:59:59 GMT");
+                keys.add(cookie.getName());
             }
+            cookieManager.deleteCookies(url, keys);
             call.resolve();
         }
     }
@@ -282,4 +821,418 @@ public class Http extends Plugin {
         cookieManager.removeAllCookies();
         call.resolve();
     }
+
+    @PluginMethod
+    public void flushCookies(PluginCall call) {
+        cookieManager.flush();
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getMetrics(PluginCall call) {
+        JSObject metrics = HttpMetrics.getInstance().snapshot();
+
+        CookieIndex cookieIndex = cookieManager.getCookieIndex();
+        JSObject cookieCache = new JSObject();
+        cookieCache.put("hits", cookieIndex.getHitCount());
+        cookieCache.put("misses", cookieIndex.getMissCount());
+        cookieCache.put("averageLookupTime", cookieIndex.getAverageLookupNanos() / 1000000.0);
+        metrics.put("cookieCache", cookieCache);
+
+        try {
+            metrics.put("tls", TlsSessionCache.getInstance().getStats());
+        } catch (GeneralSecurityException ex) {
+            Log.e(getLogTag(), "Unable to read the TLS session cache stats", ex);
+        }
+
+        call.resolve(metrics);
+    }
+
+    @PluginMethod
+    public void resetMetrics(PluginCall call) {
+        HttpMetrics.getInstance().reset();
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void getTlsSessionStats(PluginCall call) {
+        try {
+            call.resolve(TlsSessionCache.getInstance().getStats());
+        } catch (GeneralSecurityException ex) {
+            call.reject("Error", ex);
+        }
+    }
+
+    @PluginMethod
+    public void startHarRecording(PluginCall call) {
+        Integer maxEntries = call.getInt("maxEntries", HarRecorder.DEFAULT_MAX_ENTRIES);
+        Integer maxBodySize = call.getInt("maxBodySize", 0);
+        HarRecorder.getInstance().start(maxEntries, maxBodySize);
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void stopHarRecording(PluginCall call) {
+        HarRecorder.getInstance().stop();
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void clearHar(PluginCall call) {
+        HarRecorder.getInstance().clear();
+        call.resolve();
+    }
+
+    @PluginMethod
+    public void exportHar(final PluginCall call) {
+        String fileName = call.getString("fileName", "http-" + System.currentTimeMillis() + ".har");
+        // the export must stay in the cache directory
+        if (fileName.isEmpty() || fileName.contains(File.separator) || fileName.contains("..")) {
+            call.reject("The HAR file name must not contain a path");
+            return;
+        }
+        final File file = new File(getContext().getCacheDir(), fileName);
+
+        Runnable asyncExport = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    int entries = HarRecorder.getInstance().export(file);
+                    JSObject ret = new JSObject();
+                    ret.put("path", file.getAbsolutePath());
+                    ret.put("entries", entries);
+                    call.resolve(ret);
+                } catch (IOException ex) {
+                    call.reject("IO Error", ex);
+                }
+            }
+        };
+        Thread exportThread = new Thread(asyncExport);
+        exportThread.start();
+    }
+
+    @PluginMethod
+    public void flushSpans(final PluginCall call) {
+        final SpanExporter exporter = Tracer.getInstance().getExporter();
+        if (exporter == null) {
+            call.resolve();
+            return;
+        }
+
+        Runnable asyncFlush = new Runnable() {
+            @Override
+            public void run() {
+                exporter.flush();
+                JSObject ret = new JSObject();
+                if (exporter instanceof OtlpJsonFileExporter) {
+                    ret.put("directory", ((OtlpJsonFileExporter) exporter).getDirectory().getAbsolutePath());
+                }
+                call.resolve(ret);
+            }
+        };
+        Thread flushThread = new Thread(asyncFlush);
+        flushThread.start();
+    }
+
+    @PluginMethod
+    public void cancel(PluginCall call) {
+        String requestId = call.getString("requestId");
+        if (requestId == null) {
+            call.reject("Must provide a requestId");
+            return;
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("cancelled", InFlightRequest.cancel(requestId));
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void cancelAll(PluginCall call) {
+        JSObject ret = new JSObject();
+        ret.put("cancelled", InFlightRequest.cancelAll(call.getString("tag")));
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void ackStream(PluginCall call) {
+        String streamId = call.getString("streamId");
+        if (streamId == null) {
+            call.reject("Must provide a streamId");
+            return;
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("open", ResponseStream.ack(streamId, call.getInt("count", 1)));
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void openEventSource(final PluginCall call) {
+        if (call.getString("url") == null) {
+            call.reject("Must provide a url");
+            return;
+        }
+
+        String id = call.getString("id", UUID.randomUUID().toString());
+        EventSource source = new EventSource(
+            id,
+            call,
+            new EventSource.Listener() {
+                @Override
+                public void onEvents(String id, List<EventSource.Event> events) {
+                    JSArray messages = new JSArray();
+                    for (EventSource.Event event : events) {
+                        JSObject message = new JSObject();
+                        message.put("type", event.type);
+                        message.put("data", event.data);
+                        message.put("lastEventId", event.lastEventId);
+                        messages.put(message);
+                    }
+                    JSObject ret = new JSObject();
+                    ret.put("id", id);
+                    ret.put("messages", messages);
+                    notifyListeners("eventSourceMessages", ret);
+                }
+
+                @Override
+                public void onStateChange(String id, String state, int status, IOException error) {
+                    JSObject ret = new JSObject();
+                    ret.put("id", id);
+                    ret.put("state", state);
+                    if (status != 0) ret.put("status", status);
+                    if (error != null) {
+                        ret.put("error", error.getMessage());
+                        if (error instanceof RequestAbortedException) {
+                            ret.put("code", ((RequestAbortedException) error).getCode());
+                        }
+                    }
+                    notifyListeners("eventSourceState", ret);
+                }
+            }
+        );
+        try {
+            source.start();
+        } catch (IllegalArgumentException ex) {
+            call.reject(ex.getMessage(), ex);
+            return;
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("id", id);
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void closeEventSource(PluginCall call) {
+        String id = call.getString("id");
+        if (id == null) {
+            call.reject("Must provide an id");
+            return;
+        }
+
+        JSObject ret = new JSObject();
+        ret.put("closed", EventSource.close(id));
+        call.resolve(ret);
+    }
+
+    @PluginMethod
+    public void getCircuitBreakers(PluginCall call) {
+        call.resolve(CircuitBreakerRegistry.getInstance().snapshot());
+    }
+
+    @PluginMethod
+    public void getOutbox(final PluginCall call) {
+        Runnable asyncGet = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Outbox outbox = openOutbox();
+                    JSArray entries = new JSArray();
+                    for (Outbox.Entry entry : outbox.getEntries()) {
+                        entries.put(buildOutboxEntry(entry));
+                    }
+                    JSObject ret = new JSObject();
+                    ret.put("online", outbox.isOnline());
+                    ret.put("entries", entries);
+                    call.resolve(ret);
+                } catch (IOException ex) {
+                    call.reject("IO Error", ex);
+                }
+            }
+        };
+        new Thread(asyncGet).start();
+    }
+
+    @PluginMethod
+    public void removeFromOutbox(final PluginCall call) {
+        final String id = call.getString("id");
+        if (id == null) {
+            call.reject("Must provide an id");
+            return;
+        }
+
+        Runnable asyncRemove = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    JSObject ret = new JSObject();
+                    ret.put("removed", openOutbox().remove(id));
+                    call.resolve(ret);
+                } catch (IOException ex) {
+                    call.reject("IO Error", ex);
+                }
+            }
+        };
+        new Thread(asyncRemove).start();
+    }
+
+    @PluginMethod
+    public void replayOutbox(final PluginCall call) {
+        Runnable asyncReplay = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    openOutbox().replay();
+                    call.resolve();
+                } catch (IOException ex) {
+                    call.reject("IO Error", ex);
+                }
+            }
+        };
+        new Thread(asyncReplay).start();
+    }
+
+    @PluginMethod
+    public void enqueueDownload(final PluginCall call) {
+        try {
+            bridge.saveCall(call);
+            String fileDirectory = call.getString("fileDirectory", FilesystemUtils.DIRECTORY_DOCUMENTS);
+
+            if (
+                !FilesystemUtils.isPublicDirectory(fileDirectory) ||
+                isStoragePermissionGranted(call, Manifest.permission.WRITE_EXTERNAL_STORAGE)
+            ) {
+                call.release(bridge);
+                if (call.getString("url") == null || call.getString("filePath") == null) {
+                    call.reject("Must provide a url and a filePath");
+                    return;
+                }
+
+                JSObject options = new JSObject(call.getData().toString());
+                options.remove("progress");
+                DownloadManager.Job job = openDownloadManager().enqueue(options.toString());
+                JSObject ret = new JSObject();
+                ret.put("id", job.getId());
+                call.resolve(ret);
+            }
+        } catch (IOException ex) {
+            call.reject("IO Error", ex);
+        } catch (Exception ex) {
+            call.reject("Error", ex);
+        }
+    }
+
+    @PluginMethod
+    public void pauseDownload(final PluginCall call) {
+        final String id = call.getString("id");
+        if (id == null) {
+            call.reject("Must provide an id");
+            return;
+        }
+
+        Runnable asyncPause = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    JSObject ret = new JSObject();
+                    ret.put("paused", openDownloadManager().pause(id));
+                    call.resolve(ret);
+                } catch (IOException ex) {
+                    call.reject("IO Error", ex);
+                }
+            }
+        };
+        new Thread(asyncPause).start();
+    }
+
+    @PluginMethod
+    public void resumeDownload(final PluginCall call) {
+        final String id = call.getString("id");
+        if (id == null) {
+            call.reject("Must provide an id");
+            return;
+        }
+
+        Runnable asyncResume = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    JSObject ret = new JSObject();
+                    ret.put("resumed", openDownloadManager().resume(id));
+                    call.resolve(ret);
+                } catch (IOException ex) {
+                    call.reject("IO Error", ex);
+                }
+            }
+        };
+        new Thread(asyncResume).start();
+    }
+
+    @PluginMethod
+    public void cancelDownload(final PluginCall call) {
+        final String id = call.getString("id");
+        if (id == null) {
+            call.reject("Must provide an id");
+            return;
+        }
+
+        Runnable asyncCancel = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    JSObject ret = new JSObject();
+                    ret.put("cancelled", openDownloadManager().cancel(id));
+                    call.resolve(ret);
+                } catch (IOException ex) {
+                    call.reject("IO Error", ex);
+                }
+            }
+        };
+        new Thread(asyncCancel).start();
+    }
+
+    @PluginMethod
+    public void getDownloads(final PluginCall call) {
+        Runnable asyncGet = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    DownloadManager manager = openDownloadManager();
+                    JSArray downloads = new JSArray();
+                    for (DownloadManager.Job job : manager.getJobs()) {
+                        downloads.put(buildDownloadJob(job));
+                    }
+                    JSObject ret = new JSObject();
+                    ret.put("online", manager.isOnline());
+                    ret.put("downloads", downloads);
+                    call.resolve(ret);
+                } catch (IOException ex) {
+                    call.reject("IO Error", ex);
+                }
+            }
+        };
+        new Thread(asyncGet).start();
+    }
+
+    @PluginMethod
+    public void getRateLimits(PluginCall call) {
+        call.resolve(RateLimiter.getInstance().snapshot());
+    }
+
+    @PluginMethod
+    public void resetCircuitBreakers(PluginCall call) {
+        CircuitBreakerRegistry.getInstance().reset(call.getString("host"));
+        call.resolve();
+    }
 }
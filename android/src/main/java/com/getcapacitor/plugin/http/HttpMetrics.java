@@ -0,0 +1,249 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide registry of request metrics, aggregated per host and HTTP method. Recording only
+ * touches atomic counters and a {@link LatencyHistogram}, so it never blocks a request, and a
+ * snapshot is cheap enough to be polled every few seconds.
+ */
+public class HttpMetrics {
+
+    private static final HttpMetrics instance = new HttpMetrics();
+
+    private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private volatile long since = System.currentTimeMillis();
+
+    private final AtomicLong hedgeableRequests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong hedgesDenied = new AtomicLong();
+
+    public static HttpMetrics getInstance() {
+        return instance;
+    }
+
+    /**
+     * Returns the metrics of a host and method pair, creating them on first use
+     * @param host the request host
+     * @param method the HTTP method
+     * @return the metrics for that pair
+     */
+    public EndpointMetrics getEndpoint(String host, String method) {
+        String key = method + " " + host;
+        EndpointMetrics endpoint = endpoints.get(key);
+        if (endpoint == null) {
+            endpoint = new EndpointMetrics(host, method);
+            EndpointMetrics existing = endpoints.putIfAbsent(key, endpoint);
+            if (existing != null) endpoint = existing;
+        }
+        return endpoint;
+    }
+
+    /**
+     * Builds a snapshot of every endpoint's metrics
+     * @return a JSObject with the time of the last reset and one entry per endpoint
+     */
+    public JSObject snapshot() {
+        JSArray endpointsJsArray = new JSArray();
+        for (EndpointMetrics endpoint : endpoints.values()) {
+            endpointsJsArray.put(endpoint.toJSObject());
+        }
+
+        JSObject hedging = new JSObject();
+        hedging.put("requests", hedgeableRequests.get());
+        hedging.put("hedges", hedges.get());
+        hedging.put("wins", hedgeWins.get());
+        hedging.put("denied", hedgesDenied.get());
+
+        JSObject output = new JSObject();
+        output.put("since", since);
+        output.put("endpoints", endpointsJsArray);
+        output.put("hedging", hedging);
+        return output;
+    }
+
+    /**
+     * Records an attempt that may be hedged
+     */
+    void recordHedgeableRequest() {
+        hedgeableRequests.incrementAndGet();
+    }
+
+    /**
+     * Asks for permission to send a hedge, so that hedges never exceed a share of the requests that
+     * may be hedged
+     * @param budget the share of hedgeable requests that may be hedged, between 0 and 1
+     * @return true if the hedge may be sent
+     */
+    boolean tryAcquireHedge(double budget) {
+        long limit = (long) Math.ceil(budget * hedgeableRequests.get());
+        for (long current = hedges.get(); current < limit; current = hedges.get()) {
+            if (hedges.compareAndSet(current, current + 1)) return true;
+        }
+        hedgesDenied.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Records a hedge whose response arrived before that of the exchange it hedged
+     */
+    void recordHedgeWin() {
+        hedgeWins.incrementAndGet();
+    }
+
+    /**
+     * Clears all counters and histograms. In-flight counts are kept, since those requests will
+     * still complete.
+     */
+    public void reset() {
+        for (EndpointMetrics endpoint : endpoints.values()) {
+            endpoint.reset();
+        }
+        hedgeableRequests.set(0);
+        hedges.set(0);
+        hedgeWins.set(0);
+        hedgesDenied.set(0);
+        since = System.currentTimeMillis();
+    }
+
+    /**
+     * The metrics of every request made to one host with one HTTP method
+     */
+    public static class EndpointMetrics {
+
+        private final String host;
+        private final String method;
+
+        private final AtomicLong inFlight = new AtomicLong();
+        private final AtomicLong requests = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong clientErrors = new AtomicLong();
+        private final AtomicLong serverErrors = new AtomicLong();
+        private final AtomicLong bytesIn = new AtomicLong();
+        private final AtomicLong bytesOut = new AtomicLong();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram timeToHeaders = new LatencyHistogram();
+
+        EndpointMetrics(String host, String method) {
+            this.host = host;
+            this.method = method;
+        }
+
+        /**
+         * Marks the start of a request
+         */
+        public void begin() {
+            inFlight.incrementAndGet();
+        }
+
+        /**
+         * Records the arrival of the response headers of a request
+         * @param micros the time from the start of the request in microseconds
+         */
+        public void recordResponseStart(long micros) {
+            timeToHeaders.record(micros);
+        }
+
+        /**
+         * Returns the time it takes to receive the response headers
+         * @param percentile the percentile, between 0 and 100
+         * @return the time in microseconds, or 0 if nothing was recorded
+         */
+        long getTimeToHeaders(double percentile) {
+            return timeToHeaders.getPercentile(percentile);
+        }
+
+        long getTimeToHeadersCount() {
+            return timeToHeaders.getCount();
+        }
+
+        /**
+         * Records a request that received a response
+         * @param statusCode the HTTP status code
+         * @param micros the request duration in microseconds
+         * @param requestBytes the number of request body bytes sent
+         * @param responseBytes the number of response body bytes received
+         */
+        public void complete(int statusCode, long micros, long requestBytes, long responseBytes) {
+            inFlight.decrementAndGet();
+            requests.incrementAndGet();
+            if (statusCode >= 500) {
+                serverErrors.incrementAndGet();
+            } else if (statusCode >= 400) {
+                clientErrors.incrementAndGet();
+            }
+            bytesOut.addAndGet(requestBytes);
+            bytesIn.addAndGet(responseBytes);
+            latency.record(micros);
+        }
+
+        /**
+         * Records a request that failed without a response, such as on a connection error
+         * @param micros the time until the failure in microseconds
+         * @param requestBytes the number of request body bytes sent
+         * @param responseBytes the number of response body bytes received
+         */
+        public void fail(long micros, long requestBytes, long responseBytes) {
+            inFlight.decrementAndGet();
+            requests.incrementAndGet();
+            failures.incrementAndGet();
+            bytesOut.addAndGet(requestBytes);
+            bytesIn.addAndGet(responseBytes);
+            latency.record(micros);
+        }
+
+        /**
+         * Records the end of a request that was given up on purpose, such as a cancelled request or
+         * the slower exchange of a hedged request. It says nothing about the endpoint, so it is
+         * neither counted nor timed.
+         */
+        public void abandon() {
+            inFlight.decrementAndGet();
+        }
+
+        void reset() {
+            requests.set(0);
+            failures.set(0);
+            clientErrors.set(0);
+            serverErrors.set(0);
+            bytesIn.set(0);
+            bytesOut.set(0);
+            latency.reset();
+            timeToHeaders.reset();
+        }
+
+        JSObject toJSObject() {
+            JSObject latencyJsObject = new JSObject();
+            latencyJsObject.put("mean", latency.getMean() / 1000.0);
+            latencyJsObject.put("p50", latency.getPercentile(50) / 1000.0);
+            latencyJsObject.put("p95", latency.getPercentile(95) / 1000.0);
+            latencyJsObject.put("p99", latency.getPercentile(99) / 1000.0);
+            latencyJsObject.put("max", latency.getMax() / 1000.0);
+
+            JSObject timeToHeadersJsObject = new JSObject();
+            timeToHeadersJsObject.put("p50", timeToHeaders.getPercentile(50) / 1000.0);
+            timeToHeadersJsObject.put("p95", timeToHeaders.getPercentile(95) / 1000.0);
+            timeToHeadersJsObject.put("p99", timeToHeaders.getPercentile(99) / 1000.0);
+
+            long total = requests.get();
+            JSObject output = new JSObject();
+            output.put("host", host);
+            output.put("method", method);
+            output.put("requests", total);
+            output.put("inFlight", inFlight.get());
+            output.put("failures", failures.get());
+            output.put("clientErrors", clientErrors.get());
+            output.put("serverErrors", serverErrors.get());
+            output.put("errorRate", total == 0 ? 0 : (double) (failures.get() + serverErrors.get()) / total);
+            output.put("bytesIn", bytesIn.get());
+            output.put("bytesOut", bytesOut.get());
+            output.put("latency", latencyJsObject);
+            output.put("timeToHeaders", timeToHeadersJsObject);
+            return output;
+        }
+    }
+}
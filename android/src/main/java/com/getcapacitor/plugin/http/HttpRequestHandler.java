@@ -12,7 +12,9 @@ import com.getcapacitor.PluginCall;
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -21,9 +23,14 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import javax.net.ssl.HttpsURLConnection;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -62,7 +69,7 @@ public class HttpRequestHandler {
     /**
      * Internal builder class for building a CapacitorHttpUrlConnection
      */
-    private static class HttpURLConnectionBuilder {
+    static class HttpURLConnectionBuilder {
 
         private Integer connectTimeout;
         private Integer readTimeout;
@@ -104,7 +111,19 @@ public class HttpRequestHandler {
         }
 
         public HttpURLConnectionBuilder openConnection() throws IOException {
-            connection = new CapacitorHttpUrlConnection((HttpURLConnection) url.openConnection());
+            RequestContext requestContext = RequestContext.current();
+            if (requestContext != null) requestContext.acquireRateLimit(url);
+
+            HttpURLConnection httpConnection = (HttpURLConnection) url.openConnection();
+            if (httpConnection instanceof HttpsURLConnection) {
+                try {
+                    HttpsURLConnection httpsConnection = (HttpsURLConnection) httpConnection;
+                    httpsConnection.setSSLSocketFactory(TlsSessionCache.getInstance().wrap(httpsConnection.getSSLSocketFactory()));
+                } catch (GeneralSecurityException e) {
+                    throw new IOException("Unable to initialize the TLS session cache", e);
+                }
+            }
+            connection = new CapacitorHttpUrlConnection(httpConnection);
 
             connection.setAllowUserInteraction(false);
             connection.setRequestMethod(method);
@@ -187,32 +206,67 @@ public class HttpRequestHandler {
      * @throws JSONException Thrown if the JSON is unable to be parsed
      */
     private static JSObject buildResponse(CapacitorHttpUrlConnection connection) throws IOException, JSONException {
-        return buildResponse(connection, ResponseType.DEFAULT);
+        return buildResponse(connection, ResponseType.DEFAULT, null);
     }
 
     /**
      * Builds an HTTP Response given CapacitorHttpUrlConnection and ResponseType objects
      * @param connection The CapacitorHttpUrlConnection to respond with
      * @param responseType The requested ResponseType
+     * @param requestContext The context of the request, completed once the response is read
      * @return A JSObject that contains the HTTPResponse to return to the browser
      * @throws IOException Thrown if the InputStream is unable to be parsed correctly
      * @throws JSONException Thrown if the JSON is unable to be parsed
      */
-    private static JSObject buildResponse(CapacitorHttpUrlConnection connection, ResponseType responseType)
-        throws IOException, JSONException {
+    private static JSObject buildResponse(
+        CapacitorHttpUrlConnection connection,
+        ResponseType responseType,
+        RequestContext requestContext
+    ) throws IOException, JSONException {
+        return buildResponse(connection, responseType, null, requestContext);
+    }
+
+    /**
+     * Builds an HTTP Response given CapacitorHttpUrlConnection and ResponseType objects
+     * @param connection The CapacitorHttpUrlConnection to respond with
+     * @param responseType The requested ResponseType
+     * @param projection The projection to apply to a successful JSON response, or null
+     * @param requestContext The context of the request, completed once the response is read
+     * @return A JSObject that contains the HTTPResponse to return to the browser
+     * @throws IOException Thrown if the InputStream is unable to be parsed correctly
+     * @throws JSONException Thrown if the JSON is unable to be parsed
+     */
+    private static JSObject buildResponse(
+        CapacitorHttpUrlConnection connection,
+        ResponseType responseType,
+        JsonProjection projection,
+        RequestContext requestContext
+    ) throws IOException, JSONException {
         int statusCode = connection.getResponseCode();
+        if (requestContext != null) requestContext.markResponseStart();
 
         JSObject output = new JSObject();
         output.put("status", statusCode);
         output.put("headers", buildResponseHeaders(connection));
         output.put("url", connection.getURL());
-        output.put("data", readData(connection, responseType));
+        Object data = readData(connection, responseType, projection);
+        output.put("data", data);
 
         InputStream errorStream = connection.getErrorStream();
         if (errorStream != null) {
             output.put("error", true);
         }
 
+        if (requestContext != null) {
+            // a disconnected stream may look like a normal end of the body
+            requestContext.checkAborted();
+            requestContext.recordResponse(statusCode, connection.getHeaderFields(), data);
+            requestContext.complete(statusCode, connection.getRequestBodySize(), connection.getResponseBodySize());
+            if (requestContext.includeTimings) {
+                output.put("timings", requestContext.timings.toJSObject());
+            }
+        }
+
         return output;
     }
 
@@ -225,6 +279,21 @@ public class HttpRequestHandler {
      * @throws JSONException Thrown if the JSON is malformed when parsing as JSON
      */
     static Object readData(ICapacitorHttpUrlConnection connection, ResponseType responseType) throws IOException, JSONException {
+        return readData(connection, responseType, null);
+    }
+
+    /**
+     * Read the existing ICapacitorHttpUrlConnection data
+     * @param connection The ICapacitorHttpUrlConnection object to read in
+     * @param responseType The type of HTTP response to return to the API
+     * @param projection The projection to read a successful JSON response with, instead of parsing
+     *                   all of it, or null
+     * @return The parsed data from the connection
+     * @throws IOException Thrown if the InputStreams cannot be properly parsed
+     * @throws JSONException Thrown if the JSON is malformed when parsing as JSON
+     */
+    static Object readData(ICapacitorHttpUrlConnection connection, ResponseType responseType, JsonProjection projection)
+        throws IOException, JSONException {
         InputStream errorStream = connection.getErrorStream();
         String contentType = connection.getHeaderField("Content-Type");
 
@@ -234,6 +303,12 @@ public class HttpRequestHandler {
             } else {
                 return readStreamAsString(errorStream);
             }
+        } else if (
+            projection != null &&
+            (responseType == ResponseType.JSON || isOneOf(contentType, APPLICATION_JSON, APPLICATION_VND_API_JSON))
+        ) {
+            // only the selected values are built, the rest of the body is skipped as it is read
+            return projection.project(connection.getInputStream(), ResponseStream.getCharset(contentType));
         } else if (contentType != null && contentType.contains(APPLICATION_JSON.getValue())) {
             // backward compatibility
             return parseJSON(readStreamAsString(connection.getInputStream()));
@@ -353,7 +428,9 @@ public class HttpRequestHandler {
     }
 
     /**
-     * Makes an Http Request based on the PluginCall parameters
+     * Makes an Http Request based on the PluginCall parameters, retrying failed attempts as
+     * allowed by the call's {@link RetryPolicy} and hedging slow ones as allowed by its
+     * {@link HedgePolicy}
      * @param call The Capacitor PluginCall that contains the options need for an Http request
      * @param httpMethod The HTTP method that overrides the PluginCall HTTP method
      * @throws IOException throws an IO request when a connection can't be made
@@ -361,6 +438,180 @@ public class HttpRequestHandler {
      * @throws JSONException thrown when the incoming JSON is malformed
      */
     public static JSObject request(PluginCall call, String httpMethod) throws IOException, URISyntaxException, JSONException {
+        String method = httpMethod != null ? httpMethod.toUpperCase() : call.getString("method", "").toUpperCase();
+        RetryPolicy retryPolicy = RetryPolicy.fromJSON(call.getObject("retry"), RetryPolicy.getDefault());
+        HedgePolicy hedgePolicy = HedgePolicy.fromJSON(call.getObject("hedge"), HedgePolicy.getDefault());
+        if (!hedgePolicy.appliesTo(method)) hedgePolicy = null;
+
+        InFlightRequest inFlightRequest = InFlightRequest.start(call);
+        int hedges = 0;
+        try {
+            for (int attempt = 1;; attempt++) {
+                long delay;
+                RequestAttempt requestAttempt = new RequestAttempt(call, httpMethod, inFlightRequest, hedgePolicy);
+                try {
+                    JSObject response = requestAttempt.execute();
+                    RequestContext requestContext = requestAttempt.getContext();
+                    delay =
+                        retryPolicy.getDelay(
+                            attempt,
+                            method,
+                            requestContext.getStatusCode(),
+                            requestContext.getResponseHeader("Retry-After")
+                        );
+                    if (delay < 0) {
+                        response.put("attempts", attempt);
+                        if (hedgePolicy != null) response.put("hedges", hedges + requestAttempt.getHedges());
+                        return response;
+                    }
+                } catch (IOException ex) {
+                    IOException failure = inFlightRequest.translateFailure(ex);
+                    delay = retryPolicy.getDelay(attempt, method, failure);
+                    if (delay < 0) throw failure;
+                } catch (JSONException ex) {
+                    // a body cut short by an abort fails to parse
+                    inFlightRequest.checkAborted();
+                    throw ex;
+                }
+                hedges += requestAttempt.getHedges();
+                inFlightRequest.sleep(delay);
+            }
+        } finally {
+            inFlightRequest.finish();
+        }
+    }
+
+    /**
+     * Performs a single exchange of the request described by {@link #request(PluginCall, String)}
+     * on the current thread
+     */
+    static JSObject executeRequest(PluginCall call, String httpMethod, RequestContext requestContext)
+        throws IOException, URISyntaxException, JSONException {
+        ResponseType responseType = ResponseType.parse(call.getString("responseType"));
+        JsonProjection projection = getProjection(call);
+        CapacitorHttpUrlConnection connection = connect(call, httpMethod, requestContext);
+        return buildResponse(connection, responseType, projection, requestContext);
+    }
+
+    /**
+     * Makes an Http Request whose response body is handed over in chunks as it arrives instead of
+     * being buffered whole. The listener receives the status and headers as soon as they arrive,
+     * then the body chunk by chunk on the calling thread. With the {@code pages} option, the body
+     * is instead parsed as JSON and the elements of an array in it are handed over in pages, while
+     * an error response is returned whole with the status and headers. Streamed requests aren't
+     * retried or hedged, since part of the body may already have been handed over.
+     * @param call The Capacitor PluginCall that contains the options need for an Http request
+     * @param httpMethod The HTTP method that overrides the PluginCall HTTP method
+     * @param listener Receives the response and its body
+     * @throws IOException thrown if no response was received, a failure while reading the body is
+     *                     reported to the listener instead
+     * @throws URISyntaxException thrown when the URI is malformed
+     * @throws JSONException thrown when the incoming JSON is malformed
+     */
+    static void stream(PluginCall call, String httpMethod, ResponseStream.Listener listener)
+        throws IOException, URISyntaxException, JSONException {
+        String streamId = call.getString("requestId", UUID.randomUUID().toString());
+        int chunkSize = call.getInt("chunkSize", ResponseStream.DEFAULT_CHUNK_SIZE);
+        int maxPendingChunks = call.getInt("maxPendingChunks", 0);
+        ResponseType responseType = ResponseType.parse(call.getString("responseType"));
+        boolean binary = responseType == ResponseType.ARRAY_BUFFER || responseType == ResponseType.BLOB;
+        JSObject pages = call.getObject("pages", null);
+        List<JsonProjection.Step> pagePath = pages != null ? getPagePath(pages.getString("path", "$")) : null;
+        int pageSize = pages != null ? pages.getInteger("size", ResponseStream.DEFAULT_PAGE_SIZE) : 0;
+
+        ResponseStream stream = new ResponseStream(streamId, maxPendingChunks);
+        RequestContext requestContext = RequestContext.attach(call);
+        CapacitorHttpUrlConnection connection = null;
+        boolean started = false;
+        try {
+            stream.open();
+            connection = connect(call, httpMethod, requestContext);
+            int statusCode = connection.getResponseCode();
+            requestContext.markResponseStart();
+            requestContext.markStreaming();
+
+            InputStream errorStream = connection.getErrorStream();
+            JSObject response = new JSObject();
+            response.put("status", statusCode);
+            response.put("headers", buildResponseHeaders(connection));
+            response.put("url", connection.getURL());
+            response.put("streamId", streamId);
+            if (errorStream != null) {
+                response.put("error", true);
+                if (pagePath != null) {
+                    // error bodies are small and rarely hold the array, so they are returned whole
+                    response.put("data", readData(connection, responseType));
+                }
+            }
+            listener.onResponse(response);
+            started = true;
+
+            if (pagePath == null || errorStream == null) {
+                InputStream body = errorStream != null ? errorStream : connection.getInputStream();
+                try {
+                    Charset charset = binary ? null : ResponseStream.getCharset(connection.getHeaderField("Content-Type"));
+                    if (pagePath != null) {
+                        stream.readPages(body, charset, pagePath, pageSize, requestContext, listener);
+                    } else {
+                        stream.read(body, charset, chunkSize, requestContext, listener);
+                    }
+                } finally {
+                    body.close();
+                }
+            }
+
+            requestContext.recordResponse(statusCode, connection.getHeaderFields(), null);
+            requestContext.complete(statusCode, connection.getRequestBodySize(), connection.getResponseBodySize());
+            listener.onEnd(streamId, connection.getResponseBodySize(), null);
+        } catch (IOException ex) {
+            IOException failure = requestContext.translateFailure(ex);
+            if (!started) throw failure;
+            listener.onEnd(streamId, connection.getResponseBodySize(), failure);
+        } catch (JSONException ex) {
+            if (!started) throw ex;
+            listener.onEnd(streamId, connection.getResponseBodySize(), ex);
+        } finally {
+            stream.close();
+            requestContext.detach();
+        }
+    }
+
+    /**
+     * Parses the path of the array to page through
+     * @throws IllegalArgumentException thrown if the path is malformed or has a wildcard
+     */
+    private static List<JsonProjection.Step> getPagePath(String expression) {
+        List<JsonProjection.Step> path = JsonProjection.parse(expression);
+        for (JsonProjection.Step step : path) {
+            if (step == JsonProjection.Step.ANY) {
+                throw new IllegalArgumentException("The pages path must lead to a single array: " + expression);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * Compiles the {@code select} expressions of a request
+     * @return the projection, or null if the request selects nothing
+     * @throws IllegalArgumentException thrown if an expression is malformed
+     */
+    private static JsonProjection getProjection(PluginCall call) throws JSONException {
+        JSArray select = call.getArray("select", null);
+        if (select == null || select.length() == 0) return null;
+
+        List<String> expressions = new ArrayList<>();
+        for (int i = 0; i < select.length(); i++) {
+            expressions.add(select.getString(i));
+        }
+        return JsonProjection.compile(expressions);
+    }
+
+    /**
+     * Opens the connection of the request described by {@link #request(PluginCall, String)} and
+     * sends the request
+     */
+    private static CapacitorHttpUrlConnection connect(PluginCall call, String httpMethod, RequestContext requestContext)
+        throws IOException, URISyntaxException, JSONException {
         String urlString = call.getString("url", "");
         JSObject headers = call.getObject("headers");
         JSObject params = call.getObject("params");
@@ -368,7 +619,6 @@ public class HttpRequestHandler {
         Integer readTimeout = call.getInt("readTimeout");
         Boolean disableRedirects = call.getBoolean("disableRedirects");
         Boolean shouldEncode = call.getBoolean("shouldEncodeUrlParams", true);
-        ResponseType responseType = ResponseType.parse(call.getString("responseType"));
 
         String method = httpMethod != null ? httpMethod.toUpperCase() : call.getString("method", "").toUpperCase();
 
@@ -386,6 +636,7 @@ public class HttpRequestHandler {
             .openConnection();
 
         CapacitorHttpUrlConnection connection = connectionBuilder.build();
+        requestContext.begin(connection);
 
         // Set HTTP body on a non GET or HEAD request
         if (isHttpMutate) {
@@ -393,12 +644,14 @@ public class HttpRequestHandler {
             if (data.getValue() != null) {
                 connection.setDoOutput(true);
                 connection.setRequestBody(call, data);
+                requestContext.recordRequestBody(data.getValue());
             }
         }
 
         connection.connect();
+        requestContext.markRequestSent();
 
-        return buildResponse(connection, responseType);
+        return connection;
     }
 
     /**
@@ -410,6 +663,35 @@ public class HttpRequestHandler {
      * @throws URISyntaxException thrown when the URI is malformed
      */
     public static JSObject downloadFile(PluginCall call, Context context, ProgressEmitter progress)
+        throws IOException, URISyntaxException, JSONException {
+        return downloadFile(
+            call,
+            context,
+            progress,
+            new ArchiveExtractor.Listener() {
+                @Override
+                public void onEntry(String name, long bytes, int files) {
+                    // no-op
+                }
+            }
+        );
+    }
+
+    /**
+     * Makes an Http Request to download a file based on the PluginCall parameters. The file is
+     * downloaded to a temporary file that replaces it once complete. With the {@code extract}
+     * option, the download is an archive extracted into the directory at {@code filePath} while
+     * it is downloaded, instead of being saved. With the {@code conditional} option, the request
+     * is made conditional on the validators of the previous download, and a 304 leaves the file
+     * untouched.
+     * @param call The Capacitor PluginCall that contains the options need for an Http request
+     * @param context The Android Context required for writing to the filesystem
+     * @param progress The emitter which notifies listeners on downloading progression
+     * @param entries Notified of every file extracted from an archive
+     * @throws IOException throws an IO request when a connection can't be made
+     * @throws URISyntaxException thrown when the URI is malformed
+     */
+    static JSObject downloadFile(PluginCall call, Context context, ProgressEmitter progress, ArchiveExtractor.Listener entries)
         throws IOException, URISyntaxException, JSONException {
         String urlString = call.getString("url");
         String method = call.getString("method", "GET").toUpperCase();
@@ -420,51 +702,293 @@ public class HttpRequestHandler {
         Integer connectTimeout = call.getInt("connectTimeout");
         Integer readTimeout = call.getInt("readTimeout");
 
+        JSObject extract = call.getObject("extract", null);
+        JSObject digestOptions = call.getObject("digest", null);
+        boolean conditional = call.getBoolean("conditional", false);
+        boolean resume = call.getBoolean("resume", false) && extract == null;
+
         final URL url = new URL(urlString);
         final File file = FilesystemUtils.getFileObject(context, filePath, fileDirectory);
+        String archiveFormat = extract != null ? ArchiveExtractor.parseFormat(extract.getString("format")) : null;
+        final ContentDigest digest = digestOptions != null ? ContentDigest.create(digestOptions.getString("algorithm")) : null;
+        byte[] expectedDigest = null;
+        if (digest != null && digestOptions.getString("expected") != null) {
+            expectedDigest = digest.parseExpected(digestOptions.getString("expected"));
+        }
 
-        HttpURLConnectionBuilder connectionBuilder = new HttpURLConnectionBuilder()
-            .setUrl(url)
-            .setMethod(method)
-            .setHeaders(headers)
-            .setUrlParams(params)
-            .setConnectTimeout(connectTimeout)
-            .setReadTimeout(readTimeout)
-            .openConnection();
+        final RequestContext requestContext = RequestContext.attach(call);
+        try {
+            HttpURLConnectionBuilder connectionBuilder = new HttpURLConnectionBuilder()
+                .setUrl(url)
+                .setMethod(method)
+                .setHeaders(headers)
+                .setUrlParams(params)
+                .setConnectTimeout(connectTimeout)
+                .setReadTimeout(readTimeout)
+                .openConnection();
+
+            CapacitorHttpUrlConnection connection = connectionBuilder.build();
+            String validatedUrl = connection.getURL().toString();
+            if (digest != null && expectedDigest == null) {
+                // the digest headers may be checked, keep the body as they describe it
+                ContentDigest.requestIdentityEncoding(connection.getHttpConnection());
+            }
+            if (conditional) {
+                DownloadValidators validators = DownloadValidators.read(file, validatedUrl);
+                if (validators != null) validators.apply(connection.getHttpConnection());
+            }
+            // a resumable download keeps its partial data under a fixed name, and continues it
+            // only if the server still has the same version of the file
+            File partial = resume ? getPartialFile(file) : null;
+            long offset = 0;
+            if (resume) {
+                DownloadValidators validators = DownloadValidators.read(partial, validatedUrl);
+                String ifRange = validators != null ? validators.getIfRange() : null;
+                if (ifRange != null && partial.length() > 0) {
+                    offset = partial.length();
+                    connection.getHttpConnection().setRequestProperty("Range", "bytes=" + offset + "-");
+                    connection.getHttpConnection().setRequestProperty("If-Range", ifRange);
+                }
+            }
+            requestContext.begin(connection);
+            int statusCode = connection.getResponseCode();
+            requestContext.markResponseStart();
+            if (statusCode >= 400) {
+                // there is no file to keep, but the server did respond, which only a 5xx holds against it
+                requestContext.recordResponse(statusCode, connection.getHeaderFields(), null);
+                requestContext.complete(statusCode, 0, 0);
+                if (offset > 0 && statusCode == 416) {
+                    discardPartialFile(file);
+                    throw new IOException("The partial download of " + file + " can't be resumed");
+                }
+                throw new HttpStatusException(statusCode, "The server responded with " + statusCode + " to " + connection.getURL());
+            }
+            InputStream connectionInputStream = connection.getInputStream();
+
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                // the copy on disk is current, keep it as it is
+                connectionInputStream.close();
+                requestContext.recordResponse(connection.getResponseCode(), connection.getHeaderFields(), null);
+                requestContext.complete(connection.getResponseCode(), 0, 0);
+
+                return new JSObject() {
+                    {
+                        put("path", file.getAbsolutePath());
+                        put("notModified", true);
+                        if (requestContext.includeTimings) {
+                            put("timings", requestContext.timings.toJSObject());
+                        }
+                    }
+                };
+            }
 
-        ICapacitorHttpUrlConnection connection = connectionBuilder.build();
-        InputStream connectionInputStream = connection.getInputStream();
+            if (extract != null) {
+                long maxTotalSize = extract.optLong("maxTotalSize", ArchiveExtractor.DEFAULT_MAX_TOTAL_SIZE);
+                final ArchiveExtractor extractor = new ArchiveExtractor(
+                    file,
+                    extract.getInteger("maxEntries", ArchiveExtractor.DEFAULT_MAX_ENTRIES),
+                    extract.optLong("maxEntrySize", maxTotalSize),
+                    maxTotalSize
+                );
+                InputStream archive = new ProgressInputStream(connectionInputStream, getContentLength(connection), progress, digest);
+                try {
+                    extractor.extract(archive, archiveFormat, requestContext, entries);
+                    if (digest != null) {
+                        // the digest covers the whole download, including anything after the archive
+                        byte[] rest = new byte[8192];
+                        while (archive.read(rest) > 0) {
+                            requestContext.checkAborted();
+                        }
+                    }
+                    connectionInputStream.close();
+                    // a disconnected stream may look like a normal end of the archive
+                    requestContext.checkAborted();
+                    verifyDigest(digest, expectedDigest, connection);
+                    extractor.commit();
+                } finally {
+                    // the target directory keeps its previous content unless the extraction was committed
+                    extractor.rollback();
+                }
+                storeValidators(conditional, file, validatedUrl, connection);
+
+                requestContext.recordResponse(connection.getResponseCode(), connection.getHeaderFields(), null);
+                requestContext.complete(connection.getResponseCode(), 0, connection.getResponseBodySize());
+
+                return new JSObject() {
+                    {
+                        put("path", file.getAbsolutePath());
+                        put("files", extractor.getFiles());
+                        put("bytes", extractor.getTotalBytes());
+                        if (digest != null) {
+                            put("digest", digest.toHex());
+                        }
+                        if (requestContext.includeTimings) {
+                            put("timings", requestContext.timings.toJSObject());
+                        }
+                    }
+                };
+            }
 
-        FileOutputStream fileOutputStream = new FileOutputStream(file, false);
+            boolean append = offset > 0 && connection.getResponseCode() == HttpURLConnection.HTTP_PARTIAL;
+            if (append && !isContentRangeFrom(connection, offset)) {
+                connectionInputStream.close();
+                discardPartialFile(file);
+                throw new IOException("Unexpected Content-Range: " + connection.getHeaderField("content-range"));
+            }
+            if (resume && !append) {
+                // starting over, remember which version of the file the partial data belongs to
+                DownloadValidators.fromResponse(validatedUrl, connection.getHeaderFields()).write(partial);
+            } else if (append && digest != null) {
+                digestFile(partial, digest);
+            }
 
-        String contentLength = connection.getHeaderField("content-length");
-        int bytes = 0;
-        int maxBytes = 0;
+            // download next to the file and only replace it once complete, so that a failed
+            // download leaves the previous copy intact
+            if (partial == null) {
+                partial = File.createTempFile("." + file.getName() + "-", ".part", file.getParentFile());
+            }
+            FileOutputStream fileOutputStream = new FileOutputStream(partial, append);
+            boolean written = false;
+            int bytes = (int) (append ? offset : 0);
+            try {
+                // the length of a resumed response only counts what is left, 0 staying unknown
+                int contentLength = getContentLength(connection);
+                int maxBytes = contentLength > 0 ? contentLength + bytes : 0;
+
+                byte[] buffer = new byte[1024];
+                int len;
+
+                while ((len = connectionInputStream.read(buffer)) > 0) {
+                    requestContext.checkAborted();
+                    fileOutputStream.write(buffer, 0, len);
+                    if (digest != null) {
+                        digest.update(buffer, 0, len);
+                    }
 
-        try {
-            maxBytes = contentLength != null ? Integer.parseInt(contentLength) : 0;
-        } catch (NumberFormatException e) {
-            maxBytes = 0;
-        }
+                    bytes += len;
+                    progress.emit(bytes, maxBytes);
+                }
 
-        byte[] buffer = new byte[1024];
-        int len;
+                connectionInputStream.close();
+                // a disconnected stream may look like a normal end of the body
+                requestContext.checkAborted();
+                // the digest headers of a 206 describe the resumed part, not the whole file
+                verifyDigest(digest, expectedDigest, append ? null : connection);
+                fileOutputStream.getFD().sync();
+                fileOutputStream.close();
+                if (!partial.renameTo(file)) {
+                    throw new IOException("Unable to replace " + file);
+                }
+                written = true;
+                if (resume) DownloadValidators.clear(partial);
+            } catch (RequestAbortedException ex) {
+                // corrupted data can't be resumed
+                if (RequestAbortedException.DIGEST_MISMATCH.equals(ex.getCode())) resume = false;
+                throw ex;
+            } finally {
+                fileOutputStream.close();
+                // don't leave a truncated or corrupted file behind when the download fails or is cancelled,
+                // unless it can be resumed
+                if (!written && !resume) {
+                    partial.delete();
+                    DownloadValidators.clear(partial);
+                }
+            }
+            storeValidators(conditional, file, validatedUrl, connection);
 
-        while ((len = connectionInputStream.read(buffer)) > 0) {
-            fileOutputStream.write(buffer, 0, len);
+            requestContext.recordResponse(connection.getResponseCode(), connection.getHeaderFields(), null);
+            requestContext.complete(connection.getResponseCode(), 0, bytes);
 
-            bytes += len;
-            progress.emit(bytes, maxBytes);
+            return new JSObject() {
+                {
+                    put("path", file.getAbsolutePath());
+                    if (digest != null) {
+                        put("digest", digest.toHex());
+                    }
+                    if (requestContext.includeTimings) {
+                        put("timings", requestContext.timings.toJSObject());
+                    }
+                }
+            };
+        } catch (IOException ex) {
+            throw requestContext.translateFailure(ex);
+        } finally {
+            requestContext.detach();
         }
+    }
 
-        connectionInputStream.close();
-        fileOutputStream.close();
+    /**
+     * Returns the file the partial data of a resumable download to a file is kept in
+     */
+    static File getPartialFile(File file) {
+        return new File(file.getParentFile(), "." + file.getName() + ".part");
+    }
+
+    /**
+     * Removes the partial data of a resumable download
+     */
+    static void discardPartialFile(File file) {
+        File partial = getPartialFile(file);
+        partial.delete();
+        DownloadValidators.clear(partial);
+    }
+
+    private static boolean isContentRangeFrom(CapacitorHttpUrlConnection connection, long offset) {
+        String contentRange = connection.getHeaderField("content-range");
+        return contentRange != null && contentRange.trim().startsWith("bytes " + offset + "-");
+    }
+
+    /**
+     * Feeds the partial data of a resumed download to its digest
+     */
+    private static void digestFile(File file, ContentDigest digest) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, count);
+            }
+        } finally {
+            in.close();
+        }
+    }
 
-        return new JSObject() {
-            {
-                put("path", file.getAbsolutePath());
+    /**
+     * Remembers the validators of a completed download for the next conditional one. Any
+     * validators of the file it replaced are dropped, since they no longer describe it.
+     */
+    private static void storeValidators(boolean conditional, File file, String url, CapacitorHttpUrlConnection connection) {
+        try {
+            if (conditional) {
+                DownloadValidators.fromResponse(url, connection.getHeaderFields()).write(file);
+            } else {
+                DownloadValidators.clear(file);
             }
-        };
+        } catch (IOException ex) {
+            // the download itself succeeded, the next one just won't be conditional
+            DownloadValidators.clear(file);
+        }
+    }
+
+    /**
+     * Compares the digest of a completed download to the one given by the app or, failing that,
+     * announced by the response headers. A download with nothing to compare to passes.
+     * @param connection the connection whose headers may announce the digest, or {@code null}
+     * @throws RequestAbortedException thrown if the digests differ
+     */
+    private static void verifyDigest(ContentDigest digest, byte[] expected, CapacitorHttpUrlConnection connection)
+        throws RequestAbortedException {
+        if (digest == null) return;
+        if (expected == null && connection != null) {
+            expected = digest.fromHeaders(connection.getHeaderFields());
+        }
+        if (expected != null && !digest.matches(expected)) {
+            throw new RequestAbortedException(
+                RequestAbortedException.DIGEST_MISMATCH,
+                "The " + digest.getAlgorithm() + " digest of the download doesn't match: " + digest.toHex()
+            );
+        }
     }
 
     /**
@@ -487,32 +1011,118 @@ public class HttpRequestHandler {
         JSObject params = call.getObject("params");
         JSObject data = call.getObject("data");
         ResponseType responseType = ResponseType.parse(call.getString("responseType"));
+        JSObject digestOptions = call.getObject("digest", null);
 
         URL url = new URL(urlString);
 
         File file = FilesystemUtils.getFileObject(context, filePath, fileDirectory);
+        ContentDigest digest = digestOptions != null ? ContentDigest.create(digestOptions.getString("algorithm")) : null;
 
-        HttpURLConnectionBuilder connectionBuilder = new HttpURLConnectionBuilder()
-            .setUrl(url)
-            .setMethod(method)
-            .setHeaders(headers)
-            .setUrlParams(params)
-            .setConnectTimeout(connectTimeout)
-            .setReadTimeout(readTimeout)
-            .openConnection();
-
-        CapacitorHttpUrlConnection connection = connectionBuilder.build();
-        connection.setDoOutput(true);
-
-        FormUploader builder = new FormUploader(connection.getHttpConnection());
-        builder.addFilePart(name, file, data);
-        builder.finish();
+        RequestContext requestContext = RequestContext.attach(call);
+        try {
+            HttpURLConnectionBuilder connectionBuilder = new HttpURLConnectionBuilder()
+                .setUrl(url)
+                .setMethod(method)
+                .setHeaders(headers)
+                .setUrlParams(params)
+                .setConnectTimeout(connectTimeout)
+                .setReadTimeout(readTimeout)
+                .openConnection();
+
+            CapacitorHttpUrlConnection connection = connectionBuilder.build();
+            requestContext.begin(connection);
+            connection.setDoOutput(true);
+
+            FormUploader builder = new FormUploader(connection);
+            builder.addFilePart(name, file, data, digest, digestOptions != null ? digestOptions.getString("field", "digest") : null);
+            builder.finish();
+            requestContext.markRequestSent();
+
+            JSObject response = buildResponse(connection, responseType, requestContext);
+            if (digest != null) {
+                response.put("digest", digest.toHex());
+            }
+            return response;
+        } catch (IOException ex) {
+            throw requestContext.translateFailure(ex);
+        } catch (JSONException ex) {
+            // a body cut short by an abort fails to parse
+            requestContext.checkAborted();
+            throw ex;
+        } finally {
+            requestContext.detach();
+        }
+    }
 
-        return buildResponse(connection, responseType);
+    private static int getContentLength(CapacitorHttpUrlConnection connection) {
+        String contentLength = connection.getHeaderField("content-length");
+        try {
+            return contentLength != null ? Integer.parseInt(contentLength) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
 
     @FunctionalInterface
     public interface ProgressEmitter {
         void emit(Integer bytes, Integer contentLength);
     }
+
+    /**
+     * Reports the progress of a download that is consumed by something other than the download
+     * loop, such as an archive extractor, and feeds it to the digest of the download if any
+     */
+    private static class ProgressInputStream extends FilterInputStream {
+
+        private final int contentLength;
+        private final ProgressEmitter progress;
+        private final ContentDigest digest;
+        private int bytes = 0;
+
+        ProgressInputStream(InputStream in, int contentLength, ProgressEmitter progress, ContentDigest digest) {
+            super(in);
+            this.contentLength = contentLength;
+            this.progress = progress;
+            this.digest = digest;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                if (digest != null) digest.update(new byte[] { (byte) value }, 0, 1);
+                progress.emit(++bytes, contentLength);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = super.read(buffer, offset, length);
+            if (count > 0) {
+                if (digest != null) digest.update(buffer, offset, count);
+                bytes += count;
+                progress.emit(bytes, contentLength);
+            }
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // read through, so that skipped bytes are still reported and digested
+            byte[] buffer = new byte[(int) Math.min(Math.max(n, 0), 8192)];
+            long skipped = 0;
+            while (skipped < n) {
+                int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (count < 0) break;
+                skipped += count;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
 }
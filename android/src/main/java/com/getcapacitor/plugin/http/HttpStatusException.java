@@ -0,0 +1,22 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.IOException;
+
+/**
+ * Thrown by a download whose server responded with an error status, instead of the
+ * {@link java.io.FileNotFoundException} that {@link java.net.HttpURLConnection#getInputStream()}
+ * throws for any of them, so that callers can tell a server error apart from a missing file.
+ */
+public class HttpStatusException extends IOException {
+
+    private final int status;
+
+    public HttpStatusException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+}
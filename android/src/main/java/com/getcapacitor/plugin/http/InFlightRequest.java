@@ -0,0 +1,214 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.PluginCall;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A plugin call that is being handled, from the moment it is received until it is resolved or
+ * rejected. A call runs one or more exchanges, each with its own {@link RequestContext}, such as
+ * retries of a failed request. Cancellation and the end-to-end deadline apply to the call as a
+ * whole: aborting it disconnects every exchange it is running and prevents new ones from starting.
+ */
+class InFlightRequest {
+
+    private static final Map<String, InFlightRequest> byId = new ConcurrentHashMap<>();
+    private static final Set<InFlightRequest> all = Collections.newSetFromMap(new ConcurrentHashMap<InFlightRequest, Boolean>());
+    private static final ScheduledThreadPoolExecutor deadlineExecutor = new ScheduledThreadPoolExecutor(
+        1,
+        new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CapacitorRequestDeadline");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }
+    );
+
+    static {
+        // most requests finish before their deadline, don't keep their cancelled tasks around
+        deadlineExecutor.setRemoveOnCancelPolicy(true);
+    }
+
+    final String requestId;
+    final String tag;
+
+    private final Set<RequestContext> exchanges = Collections.newSetFromMap(new ConcurrentHashMap<RequestContext, Boolean>());
+    private final CountDownLatch abortLatch = new CountDownLatch(1);
+    private volatile RequestAbortedException abortCause;
+    private ScheduledFuture<?> deadline;
+
+    private InFlightRequest(PluginCall call) {
+        requestId = call.getString("requestId");
+        tag = call.getString("tag");
+    }
+
+    /**
+     * Registers a call as in flight and starts its deadline. Every call must be paired with
+     * {@link #finish()} in a {@code finally} block.
+     * @param call the PluginCall describing the request
+     * @return the in-flight request
+     * @throws IllegalArgumentException thrown if another request with the same id is in flight
+     */
+    static InFlightRequest start(PluginCall call) {
+        InFlightRequest request = new InFlightRequest(call);
+        if (request.requestId != null && byId.putIfAbsent(request.requestId, request) != null) {
+            throw new IllegalArgumentException("A request with id '" + request.requestId + "' is already in flight");
+        }
+        all.add(request);
+        request.scheduleDeadline(call.getInt("timeout", 0));
+        return request;
+    }
+
+    /**
+     * Cancels an in-flight request
+     * @param requestId the id the request was made with
+     * @return true if a request with that id was in flight
+     */
+    static boolean cancel(String requestId) {
+        InFlightRequest request = byId.get(requestId);
+        if (request == null) return false;
+        request.abort(cancelled());
+        return true;
+    }
+
+    /**
+     * Cancels every in-flight request with the given tag
+     * @param tag the tag the requests were made with, or {@code null} to cancel every request
+     * @return the number of requests cancelled
+     */
+    static int cancelAll(String tag) {
+        int count = 0;
+        for (InFlightRequest request : all) {
+            if (tag == null || tag.equals(request.tag)) {
+                request.abort(cancelled());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static RequestAbortedException cancelled() {
+        return new RequestAbortedException(RequestAbortedException.CANCELLED, "The request was cancelled");
+    }
+
+    /**
+     * Aborts the request once its total timeout expires, however far along it is
+     * @param timeoutMs the timeout in milliseconds, 0 for none
+     */
+    private void scheduleDeadline(final int timeoutMs) {
+        if (timeoutMs <= 0) return;
+        deadline =
+            deadlineExecutor.schedule(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        abort(
+                            new RequestAbortedException(
+                                RequestAbortedException.TIMEOUT,
+                                "The request did not complete within " + timeoutMs + "ms"
+                            )
+                        );
+                    }
+                },
+                timeoutMs,
+                TimeUnit.MILLISECONDS
+            );
+    }
+
+    /**
+     * Adds an exchange whose connection has been configured
+     * @param exchange the context of the exchange
+     * @throws RequestAbortedException thrown if the request was already aborted
+     */
+    void addExchange(RequestContext exchange) throws RequestAbortedException {
+        exchanges.add(exchange);
+        // checked after adding, so that a concurrent abort either sees the exchange or is seen here
+        checkAborted();
+    }
+
+    void removeExchange(RequestContext exchange) {
+        exchanges.remove(exchange);
+    }
+
+    /**
+     * Aborts the request from another thread by disconnecting its exchanges, which makes any
+     * blocked connect, write or read fail. The request then fails with the given exception instead
+     * of the resulting I/O error.
+     * @param cause the reason of the abort
+     */
+    void abort(RequestAbortedException cause) {
+        if (abortCause != null) return;
+        abortCause = cause;
+        abortLatch.countDown();
+        for (RequestContext exchange : exchanges) {
+            exchange.disconnect();
+        }
+    }
+
+    boolean isAborted() {
+        return abortCause != null;
+    }
+
+    boolean isCancelled() {
+        RequestAbortedException cause = abortCause;
+        return cause != null && RequestAbortedException.CANCELLED.equals(cause.getCode());
+    }
+
+    /**
+     * Fails fast between blocking operations once the request has been aborted
+     * @throws RequestAbortedException thrown if the request was aborted
+     */
+    void checkAborted() throws RequestAbortedException {
+        RequestAbortedException cause = abortCause;
+        if (cause != null) throw cause;
+    }
+
+    /**
+     * Returns the exception a failed request should be reported with
+     * @param failure the exception the request failed with
+     * @return the abort reason if the request was aborted, otherwise the failure itself
+     */
+    IOException translateFailure(IOException failure) {
+        RequestAbortedException cause = abortCause;
+        if (cause == null || cause == failure) return failure;
+        if (cause.getCause() == null) cause.initCause(failure);
+        return cause;
+    }
+
+    /**
+     * Waits before an exchange, such as between retries, returning early if the request is aborted
+     * meanwhile
+     * @param delayMs how long to wait in milliseconds
+     * @throws RequestAbortedException thrown if the request was aborted
+     * @throws InterruptedIOException thrown if the thread was interrupted
+     */
+    void sleep(long delayMs) throws IOException {
+        try {
+            abortLatch.await(delayMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to send the request");
+        }
+        checkAborted();
+    }
+
+    /**
+     * Unregisters the request once it is done
+     */
+    void finish() {
+        all.remove(this);
+        if (requestId != null) byId.remove(requestId, this);
+        if (deadline != null) deadline.cancel(false);
+    }
+}
@@ -0,0 +1,300 @@
+package com.getcapacitor.plugin.http;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.MalformedJsonException;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Extracts the values matching a set of JSONPath-like expressions from a JSON body while it is
+ * read, without building the rest of the document. Values on the way to a match are streamed
+ * through, everything else is skipped, and only the matched sub-trees are materialized.
+ * <p>
+ * An expression starts with {@code $} followed by any number of steps: {@code .name} or
+ * {@code ['name']} for a member of an object, {@code [n]} for an element of an array, and
+ * {@code .*} or {@code [*]} for every member or element. For example, {@code $.items[*].id}
+ * matches the {@code id} of every element of the {@code items} array.
+ */
+class JsonProjection {
+
+    private final List<String> expressions;
+    private final List<List<Step>> paths;
+
+    private JsonProjection(List<String> expressions, List<List<Step>> paths) {
+        this.expressions = expressions;
+        this.paths = paths;
+    }
+
+    /**
+     * Compiles a set of expressions
+     * @param expressions the expressions
+     * @return the projection
+     * @throws IllegalArgumentException thrown if an expression is malformed
+     */
+    static JsonProjection compile(List<String> expressions) {
+        List<List<Step>> paths = new ArrayList<>();
+        for (String expression : expressions) {
+            paths.add(parse(expression));
+        }
+        return new JsonProjection(new ArrayList<>(expressions), paths);
+    }
+
+    /**
+     * Reads a JSON body, collecting the values matched by every expression
+     * @param in the body
+     * @param charset the charset of the body
+     * @return the matches of each expression, in document order, keyed by expression
+     * @throws IOException thrown if the body can't be read
+     * @throws JSONException thrown if the body isn't valid JSON
+     */
+    JSObject project(InputStream in, Charset charset) throws IOException, JSONException {
+        List<List<Object>> matches = new ArrayList<>();
+        List<Cursor> cursors = new ArrayList<>();
+        for (int i = 0; i < paths.size(); i++) {
+            matches.add(new ArrayList<>());
+            cursors.add(new Cursor(i, 0));
+        }
+
+        JsonReader reader = new JsonReader(new InputStreamReader(in, charset));
+        try {
+            visit(reader, cursors, matches);
+        } catch (MalformedJsonException | IllegalStateException | NumberFormatException ex) {
+            throw new JSONException("Malformed JSON: " + ex.getMessage());
+        }
+
+        JSObject output = new JSObject();
+        for (int i = 0; i < expressions.size(); i++) {
+            JSArray values = new JSArray();
+            for (Object value : matches.get(i)) {
+                values.put(value);
+            }
+            output.put(expressions.get(i), values);
+        }
+        return output;
+    }
+
+    /**
+     * Visits the next value of the reader
+     * @param cursors the expressions still matching the path to the value, and how far
+     */
+    private void visit(JsonReader reader, List<Cursor> cursors, List<List<Object>> matches)
+        throws IOException, JSONException {
+        if (cursors.isEmpty()) {
+            reader.skipValue();
+            return;
+        }
+        for (Cursor cursor : cursors) {
+            if (cursor.step == paths.get(cursor.path).size()) {
+                // a match: materialize the value once and evaluate what is left of the others on it
+                Object value = readValue(reader);
+                for (Cursor other : cursors) {
+                    collect(value, other.path, other.step, matches.get(other.path));
+                }
+                return;
+            }
+        }
+
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_OBJECT) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                visit(reader, advance(cursors, name, -1), matches);
+            }
+            reader.endObject();
+        } else if (token == JsonToken.BEGIN_ARRAY) {
+            reader.beginArray();
+            for (int index = 0; reader.hasNext(); index++) {
+                visit(reader, advance(cursors, null, index), matches);
+            }
+            reader.endArray();
+        } else {
+            reader.skipValue();
+        }
+    }
+
+    private List<Cursor> advance(List<Cursor> cursors, String name, int index) {
+        List<Cursor> next = null;
+        for (Cursor cursor : cursors) {
+            if (paths.get(cursor.path).get(cursor.step).matches(name, index)) {
+                if (next == null) next = new ArrayList<>(cursors.size());
+                next.add(new Cursor(cursor.path, cursor.step + 1));
+            }
+        }
+        return next != null ? next : Collections.<Cursor>emptyList();
+    }
+
+    /**
+     * Evaluates the rest of an expression on a materialized value
+     */
+    private void collect(Object value, int path, int step, List<Object> matches) throws JSONException {
+        List<Step> steps = paths.get(path);
+        if (step == steps.size()) {
+            matches.add(value);
+            return;
+        }
+
+        Step next = steps.get(step);
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            Iterator<String> names = object.keys();
+            while (names.hasNext()) {
+                String name = names.next();
+                if (next.matches(name, -1)) collect(object.get(name), path, step + 1, matches);
+            }
+        } else if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            for (int index = 0; index < array.length(); index++) {
+                if (next.matches(null, index)) collect(array.get(index), path, step + 1, matches);
+            }
+        }
+    }
+
+    /**
+     * Materializes the next value of the reader
+     * @return a JSObject, JSArray, String, Long, Double, Boolean or {@code JSONObject.NULL}
+     */
+    static Object readValue(JsonReader reader) throws IOException, JSONException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                JSObject object = new JSObject();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    String name = reader.nextName();
+                    object.put(name, readValue(reader));
+                }
+                reader.endObject();
+                return object;
+            case BEGIN_ARRAY:
+                JSArray array = new JSArray();
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    array.put(readValue(reader));
+                }
+                reader.endArray();
+                return array;
+            case NUMBER:
+                String number = reader.nextString();
+                try {
+                    return Long.parseLong(number);
+                } catch (NumberFormatException ex) {
+                    return Double.parseDouble(number);
+                }
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case NULL:
+                reader.nextNull();
+                return JSONObject.NULL;
+            default:
+                return reader.nextString();
+        }
+    }
+
+    /**
+     * Parses an expression into its steps
+     * @throws IllegalArgumentException thrown if the expression is malformed
+     */
+    static List<Step> parse(String expression) {
+        if (expression == null || !expression.startsWith("$")) {
+            throw new IllegalArgumentException("A select expression must start with '$': " + expression);
+        }
+
+        List<Step> steps = new ArrayList<>();
+        int i = 1;
+        while (i < expression.length()) {
+            char c = expression.charAt(i);
+            if (c == '.') {
+                int start = ++i;
+                while (i < expression.length() && expression.charAt(i) != '.' && expression.charAt(i) != '[') i++;
+                String name = expression.substring(start, i);
+                if (name.isEmpty()) throw malformed(expression);
+                steps.add(name.equals("*") ? Step.ANY : Step.name(name));
+            } else if (c == '[') {
+                int end = expression.indexOf(']', i);
+                if (end < 0) throw malformed(expression);
+                String selector = expression.substring(i + 1, end).trim();
+                i = end + 1;
+                if (selector.equals("*")) {
+                    steps.add(Step.ANY);
+                } else if (selector.length() >= 2 && (selector.charAt(0) == '\'' || selector.charAt(0) == '"')) {
+                    if (selector.charAt(selector.length() - 1) != selector.charAt(0)) throw malformed(expression);
+                    steps.add(Step.name(selector.substring(1, selector.length() - 1)));
+                } else {
+                    try {
+                        int index = Integer.parseInt(selector);
+                        if (index < 0) throw malformed(expression);
+                        steps.add(Step.index(index));
+                    } catch (NumberFormatException ex) {
+                        throw malformed(expression);
+                    }
+                }
+            } else {
+                throw malformed(expression);
+            }
+        }
+        return steps;
+    }
+
+    private static IllegalArgumentException malformed(String expression) {
+        return new IllegalArgumentException("Malformed select expression: " + expression);
+    }
+
+    /**
+     * One step of an expression: a member name, an array index, or any member or element
+     */
+    static class Step {
+
+        static final Step ANY = new Step(null, -1);
+
+        final String name;
+        final int index;
+
+        private Step(String name, int index) {
+            this.name = name;
+            this.index = index;
+        }
+
+        static Step name(String name) {
+            return new Step(name, -1);
+        }
+
+        static Step index(int index) {
+            return new Step(null, index);
+        }
+
+        /**
+         * @param name the name of an object member, or {@code null} for an array element
+         * @param index the index of an array element, or -1 for an object member
+         */
+        boolean matches(String name, int index) {
+            if (this == ANY) return true;
+            return this.name != null ? this.name.equals(name) : index >= 0 && this.index == index;
+        }
+    }
+
+    /**
+     * How far an expression has matched the path to the current value
+     */
+    private static class Cursor {
+
+        final int path;
+        final int step;
+
+        Cursor(int path, int step) {
+            this.path = path;
+            this.step = step;
+        }
+    }
+}
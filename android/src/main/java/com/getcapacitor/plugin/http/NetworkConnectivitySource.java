@@ -0,0 +1,53 @@
+package com.getcapacitor.plugin.http;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.net.NetworkInfo;
+import android.net.NetworkRequest;
+
+/**
+ * Connectivity of the device as reported by the {@link ConnectivityManager}. The network callback
+ * is only registered while a listener is set.
+ */
+public class NetworkConnectivitySource implements ConnectivitySource {
+
+    private final ConnectivityManager connectivityManager;
+    private ConnectivityManager.NetworkCallback callback;
+
+    public NetworkConnectivitySource(Context context) {
+        connectivityManager = (ConnectivityManager) context.getApplicationContext().getSystemService(Context.CONNECTIVITY_SERVICE);
+    }
+
+    @Override
+    public boolean isOnline() {
+        NetworkInfo networkInfo = connectivityManager.getActiveNetworkInfo();
+        return networkInfo != null && networkInfo.isConnected();
+    }
+
+    @Override
+    public synchronized void setListener(final Listener listener) {
+        if (callback != null) {
+            connectivityManager.unregisterNetworkCallback(callback);
+            callback = null;
+        }
+        if (listener == null) return;
+
+        callback =
+            new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(Network network) {
+                    listener.onConnectivityChanged(true);
+                }
+
+                @Override
+                public void onLost(Network network) {
+                    // another network may still be up
+                    listener.onConnectivityChanged(isOnline());
+                }
+            };
+        NetworkRequest request = new NetworkRequest.Builder().addCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET).build();
+        connectivityManager.registerNetworkCallback(request, callback);
+    }
+}
@@ -0,0 +1,226 @@
+package com.getcapacitor.plugin.http;
+
+import android.util.Log;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes spans to local files in the OTLP/JSON format, one {@code ExportTraceServiceRequest} per
+ * file, ready to be uploaded to a collector. Spans are batched in memory and written on a
+ * background thread once a batch is full or {@link #getFlushDelayMs()} after its first span, and
+ * only the most recent {@link #MAX_FILES} files are kept.
+ */
+public class OtlpJsonFileExporter implements SpanExporter {
+
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final long DEFAULT_FLUSH_DELAY_MS = 5000;
+    public static final int MAX_FILES = 50;
+
+    private static final String TAG = "OtlpJsonFileExporter";
+    private static final String FILE_PREFIX = "spans-";
+    private static final String FILE_SUFFIX = ".json";
+    private static final String SCOPE_NAME = "@capacitor-community/http";
+    private static final String SCOPE_VERSION = "1.4.1";
+
+    private final File directory;
+    private final String serviceName;
+    private final int batchSize;
+    private final long flushDelayMs;
+
+    private final ScheduledExecutorService writeExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CapacitorSpanExport");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }
+    );
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    private List<Span> batch = new ArrayList<>();
+    private int sequence = 0;
+
+    /**
+     * @param directory the directory to write span files to, created if needed
+     * @param serviceName the {@code service.name} resource attribute
+     * @param batchSize the number of spans written per file at most
+     * @param flushDelayMs how long spans may wait in memory before being written
+     */
+    public OtlpJsonFileExporter(File directory, String serviceName, int batchSize, long flushDelayMs) {
+        this.directory = directory;
+        this.serviceName = serviceName;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushDelayMs = Math.max(0, flushDelayMs);
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getFlushDelayMs() {
+        return flushDelayMs;
+    }
+
+    @Override
+    public void export(Span span) {
+        boolean full;
+        synchronized (this) {
+            batch.add(span);
+            full = batch.size() >= batchSize;
+        }
+
+        if (full) {
+            writeExecutor.execute(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        writeBatch();
+                    }
+                }
+            );
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            writeExecutor.schedule(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        writeBatch();
+                    }
+                },
+                flushDelayMs,
+                TimeUnit.MILLISECONDS
+            );
+        }
+    }
+
+    /**
+     * Writes any pending spans and waits until they are on disk
+     */
+    @Override
+    public void flush() {
+        try {
+            writeExecutor
+                .submit(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            writeBatch();
+                        }
+                    }
+                )
+                .get();
+        } catch (Exception ex) {
+            Log.e(TAG, "Unable to flush spans", ex);
+        }
+    }
+
+    private void writeBatch() {
+        flushScheduled.set(false);
+        List<Span> spans;
+        synchronized (this) {
+            if (batch.isEmpty()) return;
+            spans = batch;
+            batch = new ArrayList<>();
+        }
+
+        // a batch may have grown past the limit while waiting for the executor
+        for (int from = 0; from < spans.size(); from += batchSize) {
+            List<Span> chunk = spans.subList(from, Math.min(spans.size(), from + batchSize));
+            try {
+                writeFile(chunk);
+            } catch (IOException ex) {
+                Log.e(TAG, "Unable to write " + chunk.size() + " spans", ex);
+            }
+        }
+        deleteOldFiles();
+    }
+
+    private void writeFile(List<Span> spans) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+
+        JSArray spansJsArray = new JSArray();
+        for (Span span : spans) {
+            spansJsArray.put(span.toOtlpJson());
+        }
+
+        JSObject scope = new JSObject();
+        scope.put("name", SCOPE_NAME);
+        scope.put("version", SCOPE_VERSION);
+
+        JSObject scopeSpans = new JSObject();
+        scopeSpans.put("scope", scope);
+        scopeSpans.put("spans", spansJsArray);
+
+        Map<String, Object> resourceAttributes = new LinkedHashMap<>();
+        resourceAttributes.put("service.name", serviceName);
+        resourceAttributes.put("telemetry.sdk.name", SCOPE_NAME);
+        resourceAttributes.put("telemetry.sdk.language", "java");
+
+        JSObject resource = new JSObject();
+        resource.put("attributes", Span.toOtlpAttributes(resourceAttributes));
+
+        JSObject resourceSpans = new JSObject();
+        resourceSpans.put("resource", resource);
+        resourceSpans.put("scopeSpans", new JSArray().put(scopeSpans));
+
+        JSObject request = new JSObject();
+        request.put("resourceSpans", new JSArray().put(resourceSpans));
+
+        // write under a temporary name so that an uploader never picks up a partial file
+        String name = FILE_PREFIX + System.currentTimeMillis() + "-" + (sequence++);
+        File partial = new File(directory, name + ".tmp");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(partial, false), StandardCharsets.UTF_8)) {
+            writer.write(request.toString());
+        }
+        if (!partial.renameTo(new File(directory, name + FILE_SUFFIX))) {
+            partial.delete();
+            throw new IOException("Unable to rename " + partial);
+        }
+    }
+
+    private void deleteOldFiles() {
+        File[] files = directory.listFiles();
+        if (files == null) return;
+
+        List<File> spanFiles = new ArrayList<>();
+        for (File file : files) {
+            if (file.getName().startsWith(FILE_PREFIX) && file.getName().endsWith(FILE_SUFFIX)) {
+                spanFiles.add(file);
+            }
+        }
+        if (spanFiles.size() <= MAX_FILES) return;
+
+        Collections.sort(
+            spanFiles,
+            new Comparator<File>() {
+                @Override
+                public int compare(File a, File b) {
+                    return Long.compare(a.lastModified(), b.lastModified());
+                }
+            }
+        );
+        for (int i = 0; i < spanFiles.size() - MAX_FILES; i++) {
+            spanFiles.get(i).delete();
+        }
+    }
+}
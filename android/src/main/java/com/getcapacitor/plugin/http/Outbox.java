@@ -0,0 +1,369 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSObject;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.PortUnreachableException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * A durable queue of requests waiting to be sent. Queued requests are kept in an append-only log,
+ * synced to disk before {@link #enqueue(String)} returns, so that they survive the app being
+ * killed. They are replayed in the order they were queued, with bounded concurrency, whenever the
+ * device is online. A request that failed before it could reach the server, see
+ * {@link #isUnsent(Exception)}, stays queued and is retried with an exponential backoff or on the
+ * next connectivity change. Any other outcome, including a failure that may have happened after
+ * the server received the request, removes it from the queue and is reported to the listener.
+ * <p>
+ * Delivery is at least once: a request whose response arrived just before the app was killed is
+ * still in the log, and is sent again on the next start.
+ * <p>
+ * The log holds one record per line: {@code +<TAB>id<TAB>createdAt<TAB>request} when a request is
+ * queued and {@code -<TAB>id} when it is removed. A record cut short by a crash is discarded on
+ * load, and the log is rewritten with only the queued requests once removals pile up.
+ */
+public class Outbox {
+
+    public static final int DEFAULT_CONCURRENCY = 1;
+
+    static final String LOG_FILE = "outbox.log";
+    // removal records tolerated in the log before it is compacted
+    private static final int COMPACT_THRESHOLD = 64;
+
+    /**
+     * Sends a queued request
+     */
+    public interface Sender {
+        /**
+         * @param entry the queued request
+         * @return the response
+         * @throws Exception thrown if no response was received, the request stays queued if the
+         * failure is {@link #isUnsent(Exception) unsent} and is removed otherwise
+         */
+        JSObject send(Entry entry) throws Exception;
+    }
+
+    public interface Listener {
+        /**
+         * Called once a queued request was sent, or removed because it can never succeed
+         * @param entry the request
+         * @param response the response, or {@code null} on error
+         * @param error the error, or {@code null} if a response was received
+         */
+        void onResult(Entry entry, JSObject response, Exception error);
+    }
+
+    private final File logFile;
+    private final ConnectivitySource connectivity;
+    private final Sender sender;
+    private final Listener listener;
+    private final int concurrency;
+    private final RetryScheduler scheduler;
+
+    private final LinkedHashMap<String, Entry> queued = new LinkedHashMap<>();
+    private final Set<String> sending = new HashSet<>();
+    private FileOutputStream log;
+    private int removals = 0;
+
+    /**
+     * Opens the outbox, loading the requests queued by earlier sessions, and starts replaying them
+     * once the device is online
+     * @param directory the directory of the log
+     * @param connectivity the source of connectivity changes
+     * @param sender sends the queued requests
+     * @param listener notified of the outcome of every request
+     * @param concurrency the number of requests sent at once
+     * @throws IOException thrown if the log can't be read or written
+     */
+    public Outbox(File directory, ConnectivitySource connectivity, Sender sender, Listener listener, int concurrency)
+        throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the outbox directory " + directory);
+        }
+        this.logFile = new File(directory, LOG_FILE);
+        this.connectivity = connectivity;
+        this.sender = sender;
+        this.listener = listener;
+        this.concurrency = Math.max(1, concurrency);
+        this.scheduler =
+            new RetryScheduler(
+                "CapacitorOutbox",
+                this.concurrency,
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        pump();
+                    }
+                }
+            );
+
+        synchronized (this) {
+            load();
+        }
+        connectivity.setListener(
+            new ConnectivitySource.Listener() {
+                @Override
+                public void onConnectivityChanged(boolean online) {
+                    if (online) replay();
+                }
+            }
+        );
+        pump();
+    }
+
+    /**
+     * Queues a request
+     * @param request the request options as a single line of JSON
+     * @return the queued entry
+     * @throws IOException thrown if the request can't be written to the log
+     */
+    public Entry enqueue(String request) throws IOException {
+        if (request.indexOf('\n') >= 0) {
+            throw new IllegalArgumentException("The request must fit on a single line");
+        }
+        Entry entry = new Entry(UUID.randomUUID().toString(), System.currentTimeMillis(), request);
+        synchronized (this) {
+            append("+\t" + entry.id + "\t" + entry.createdAt + "\t" + entry.request + "\n");
+            queued.put(entry.id, entry);
+        }
+        pump();
+        return entry;
+    }
+
+    /**
+     * Removes a queued request that isn't being sent
+     * @param id the id of the request
+     * @return true if the request was removed
+     * @throws IOException thrown if the removal can't be written to the log
+     */
+    public synchronized boolean remove(String id) throws IOException {
+        if (!queued.containsKey(id) || sending.contains(id)) return false;
+        removeQueued(id);
+        return true;
+    }
+
+    /**
+     * Returns the queued requests, oldest first
+     */
+    public synchronized List<Entry> getEntries() {
+        return new ArrayList<>(queued.values());
+    }
+
+    public synchronized boolean isEmpty() {
+        return queued.isEmpty();
+    }
+
+    public boolean isOnline() {
+        return connectivity.isOnline();
+    }
+
+    /**
+     * Replays the queued requests right away if the device is online, without waiting for a
+     * pending retry
+     */
+    public void replay() {
+        scheduler.retryNow();
+    }
+
+    /**
+     * Starts sending queued requests in order, up to the concurrency limit
+     */
+    private void pump() {
+        if (!connectivity.isOnline()) return;
+        synchronized (this) {
+            if (scheduler.isRetryPending()) return;
+            for (final Entry entry : queued.values()) {
+                if (sending.size() >= concurrency) return;
+                if (!sending.add(entry.id)) continue;
+                scheduler.execute(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            send(entry);
+                        }
+                    }
+                );
+            }
+        }
+    }
+
+    /**
+     * Tells whether a request failed before any of it could reach the server, so that sending it
+     * again can't apply it twice: the host couldn't be resolved or connected to, or a circuit
+     * breaker or rate limit held the request back. A timeout or a connection lost later may have
+     * happened after the server received the request, so it doesn't qualify.
+     * @param ex the failure
+     * @return true if the request can safely be sent again
+     */
+    static boolean isUnsent(Exception ex) {
+        if (ex instanceof RequestAbortedException) {
+            String code = ((RequestAbortedException) ex).getCode();
+            return RequestAbortedException.CIRCUIT_OPEN.equals(code) || RequestAbortedException.RATE_LIMITED.equals(code);
+        }
+        return (
+            ex instanceof UnknownHostException ||
+            ex instanceof ConnectException ||
+            ex instanceof NoRouteToHostException ||
+            ex instanceof PortUnreachableException
+        );
+    }
+
+    private void send(Entry entry) {
+        JSObject response = null;
+        Exception error = null;
+        boolean keep = false;
+        try {
+            response = sender.send(entry);
+        } catch (Exception ex) {
+            error = ex;
+            keep = isUnsent(ex);
+        }
+
+        synchronized (this) {
+            sending.remove(entry.id);
+            if (keep) {
+                entry.attempts++;
+                scheduler.scheduleRetry();
+                return;
+            }
+            scheduler.resetBackoff();
+            try {
+                if (queued.containsKey(entry.id)) removeQueued(entry.id);
+            } catch (IOException ex) {
+                // the request was sent, at worst it is sent again after a restart
+            }
+        }
+
+        listener.onResult(entry, response, error);
+        pump();
+    }
+
+    private void removeQueued(String id) throws IOException {
+        queued.remove(id);
+        append("-\t" + id + "\n");
+        if (++removals >= COMPACT_THRESHOLD && removals > queued.size()) {
+            compact();
+        }
+    }
+
+    /**
+     * Appends a record and syncs it to disk
+     */
+    private void append(String record) throws IOException {
+        if (log == null) log = new FileOutputStream(logFile, true);
+        log.write(record.getBytes(StandardCharsets.UTF_8));
+        log.getFD().sync();
+    }
+
+    /**
+     * Reads the log, dropping a last record cut short by a crash
+     */
+    private void load() throws IOException {
+        if (!logFile.exists()) return;
+
+        byte[] bytes = FilesystemUtils.readFile(logFile);
+        int end = 0;
+        for (int start = 0, newline; (newline = indexOf(bytes, (byte) '\n', start)) >= 0; start = newline + 1) {
+            end = newline + 1;
+            String[] fields = new String(bytes, start, newline - start, StandardCharsets.UTF_8).split("\t", 4);
+            if ("+".equals(fields[0]) && fields.length == 4) {
+                try {
+                    Entry entry = new Entry(fields[1], Long.parseLong(fields[2]), fields[3]);
+                    queued.put(entry.id, entry);
+                } catch (NumberFormatException ignored) {}
+            } else if ("-".equals(fields[0]) && fields.length == 2) {
+                queued.remove(fields[1]);
+                removals++;
+            }
+        }
+
+        if (end < bytes.length) {
+            // the last record was never fully written, so it was never acknowledged either
+            RandomAccessFile file = new RandomAccessFile(logFile, "rw");
+            try {
+                file.setLength(end);
+            } finally {
+                file.close();
+            }
+        }
+        if (removals > 0) compact();
+    }
+
+    /**
+     * Rewrites the log with only the queued requests, see {@link FilesystemUtils#replaceFile(File, byte[])}
+     */
+    private void compact() throws IOException {
+        StringBuilder records = new StringBuilder();
+        for (Entry entry : queued.values()) {
+            records.append("+\t").append(entry.id).append('\t').append(entry.createdAt).append('\t').append(entry.request).append('\n');
+        }
+
+        // the next record is appended to the new log
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+        FilesystemUtils.replaceFile(logFile, records.toString().getBytes(StandardCharsets.UTF_8));
+        removals = 0;
+    }
+
+    private static int indexOf(byte[] bytes, byte value, int from) {
+        for (int i = from; i < bytes.length; i++) {
+            if (bytes[i] == value) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * A queued request
+     */
+    public static class Entry {
+
+        private final String id;
+        private final long createdAt;
+        private final String request;
+        private volatile int attempts = 0;
+
+        Entry(String id, long createdAt, String request) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.request = request;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * @return when the request was queued, in milliseconds since the epoch
+         */
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        /**
+         * @return the request options as JSON
+         */
+        public String getRequest() {
+            return request;
+        }
+
+        /**
+         * @return the number of failed attempts to send the request in this session
+         */
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Process-wide client-side rate limits. Each rule limits the requests to a host, or to the URLs
+ * starting with a prefix, with a {@link TokenBucket} of its own. A request is limited by the
+ * longest URL prefix it matches, or else by the rule for its host, and by no rule at all if
+ * neither matches.
+ */
+public class RateLimiter {
+
+    public static final int DEFAULT_MAX_WAIT_MS = 5000;
+
+    private static final RateLimiter instance = new RateLimiter();
+
+    private volatile List<Rule> rules = Collections.emptyList();
+
+    public static RateLimiter getInstance() {
+        return instance;
+    }
+
+    /**
+     * Replaces the rules, resetting the state of every bucket
+     * @param rulesJson the rules, each with either a {@code host} or a {@code urlPrefix}, a
+     *                  {@code rate} in requests per second, and optionally a {@code burst} and
+     *                  a {@code maxWait} in milliseconds, or {@code null} for no rules
+     */
+    public void configure(JSONArray rulesJson) {
+        List<Rule> rules = new ArrayList<>();
+        long now = System.nanoTime();
+        if (rulesJson != null) {
+            for (int i = 0; i < rulesJson.length(); i++) {
+                JSONObject ruleJson = rulesJson.optJSONObject(i);
+                if (ruleJson == null) continue;
+                double rate = ruleJson.optDouble("rate", 0);
+                String host = ruleJson.optString("host", null);
+                String urlPrefix = ruleJson.optString("urlPrefix", null);
+                if (!(rate > 0) || (host == null) == (urlPrefix == null)) continue;
+
+                TokenBucket bucket = new TokenBucket(
+                    host != null ? host : urlPrefix,
+                    rate,
+                    ruleJson.optInt("burst", (int) Math.ceil(rate)),
+                    ruleJson.optLong("maxWait", DEFAULT_MAX_WAIT_MS),
+                    now
+                );
+                rules.add(new Rule(host != null ? host.toLowerCase(Locale.ROOT) : null, urlPrefix, bucket));
+            }
+        }
+        this.rules = Collections.unmodifiableList(rules);
+    }
+
+    /**
+     * Finds the bucket that limits requests to a URL
+     * @param url the request URL, including its query
+     * @return the bucket, or {@code null} if no rule matches
+     */
+    TokenBucket find(URL url) {
+        List<Rule> rules = this.rules;
+        if (rules.isEmpty()) return null;
+
+        String urlString = url.toString();
+        String host = url.getHost().toLowerCase(Locale.ROOT);
+        Rule match = null;
+        for (Rule rule : rules) {
+            if (rule.urlPrefix != null) {
+                boolean longer = match == null || match.urlPrefix == null || rule.urlPrefix.length() > match.urlPrefix.length();
+                if (longer && urlString.startsWith(rule.urlPrefix)) {
+                    match = rule;
+                }
+            } else if (match == null && rule.host.equals(host)) {
+                match = rule;
+            }
+        }
+        return match != null ? match.bucket : null;
+    }
+
+    /**
+     * Builds a snapshot of every bucket's state
+     * @return a JSObject with one entry per rule
+     */
+    public JSObject snapshot() {
+        long now = System.nanoTime();
+        JSArray buckets = new JSArray();
+        for (Rule rule : rules) {
+            JSObject bucket = rule.bucket.toJSObject(now);
+            if (rule.host != null) {
+                bucket.put("host", rule.host);
+            } else {
+                bucket.put("urlPrefix", rule.urlPrefix);
+            }
+            buckets.put(bucket);
+        }
+
+        JSObject output = new JSObject();
+        output.put("buckets", buckets);
+        return output;
+    }
+
+    private static class Rule {
+
+        final String host;
+        final String urlPrefix;
+        final TokenBucket bucket;
+
+        Rule(String host, String urlPrefix, TokenBucket bucket) {
+            this.host = host;
+            this.urlPrefix = urlPrefix;
+            this.bucket = bucket;
+        }
+    }
+}
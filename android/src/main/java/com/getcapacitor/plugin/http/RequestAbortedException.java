@@ -0,0 +1,59 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.IOException;
+
+/**
+ * Thrown by a request that was aborted natively rather than failing on its own. The code is
+ * passed to JS as the error code of the rejected call, so that apps can tell an abort apart from
+ * a network error.
+ */
+public class RequestAbortedException extends IOException {
+
+    /**
+     * The request made no progress for longer than the watchdog's stall timeout
+     */
+    public static final String STALLED = "REQUEST_STALLED";
+
+    /**
+     * The request was cancelled by the app
+     */
+    public static final String CANCELLED = "REQUEST_CANCELLED";
+
+    /**
+     * The request didn't complete within its {@code timeout}
+     */
+    public static final String TIMEOUT = "REQUEST_TIMEOUT";
+
+    /**
+     * The request was rejected without being sent, because the circuit breaker of its host is open
+     */
+    public static final String CIRCUIT_OPEN = "CIRCUIT_OPEN";
+
+    /**
+     * The request was rejected without being sent, because its rate limit would have delayed it
+     * for longer than the limit's max wait
+     */
+    public static final String RATE_LIMITED = "RATE_LIMITED";
+
+    /**
+     * The download was aborted because its archive has an unsafe entry or exceeds the extraction
+     * limits
+     */
+    public static final String ARCHIVE_REJECTED = "ARCHIVE_REJECTED";
+
+    /**
+     * The transfer completed, but its digest doesn't match the expected one
+     */
+    public static final String DIGEST_MISMATCH = "DIGEST_MISMATCH";
+
+    private final String code;
+
+    public RequestAbortedException(String code, String message) {
+        super(message);
+        this.code = code;
+    }
+
+    public String getCode() {
+        return code;
+    }
+}
@@ -0,0 +1,231 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSObject;
+import com.getcapacitor.PluginCall;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONException;
+
+/**
+ * One attempt of a call made through {@link HttpRequestHandler#request(PluginCall, String)}.
+ * Without hedging, the attempt is a single exchange on the calling thread. With hedging, exchanges
+ * run on worker threads: if an exchange hasn't received its response headers by the hedge delay,
+ * another one is sent for the same request. The first exchange to receive response headers wins
+ * and the others are disconnected.
+ * <p>
+ * A connection stays out of the pool while its exchange is running, so a hedge is always sent on a
+ * different connection than the exchange it hedges.
+ */
+class RequestAttempt {
+
+    private static final ExecutorService executor = Executors.newCachedThreadPool(
+        new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CapacitorHedgedRequest");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }
+    );
+
+    private final PluginCall call;
+    private final String httpMethod;
+    private final InFlightRequest request;
+    private final HedgePolicy hedgePolicy;
+
+    private final List<Exchange> exchanges = new ArrayList<>();
+    private Exchange winner;
+    private RequestContext context;
+    private int hedges = 0;
+
+    /**
+     * @param call the PluginCall describing the request
+     * @param httpMethod the HTTP method that overrides the PluginCall HTTP method
+     * @param request the in-flight call the attempt belongs to
+     * @param hedgePolicy the policy to hedge the attempt with, or {@code null} to not hedge it
+     */
+    RequestAttempt(PluginCall call, String httpMethod, InFlightRequest request, HedgePolicy hedgePolicy) {
+        this.call = call;
+        this.httpMethod = httpMethod;
+        this.request = request;
+        this.hedgePolicy = hedgePolicy;
+    }
+
+    /**
+     * Makes the attempt
+     * @return the response of the winning exchange
+     * @throws IOException thrown if no exchange received a response, or the winner failed to read it
+     * @throws URISyntaxException thrown when the URI is malformed
+     * @throws JSONException thrown when the incoming JSON is malformed
+     */
+    JSObject execute() throws IOException, URISyntaxException, JSONException {
+        if (hedgePolicy == null) {
+            context = RequestContext.attach(call, request);
+            try {
+                return HttpRequestHandler.executeRequest(call, httpMethod, context);
+            } finally {
+                context.detach();
+            }
+        }
+        return executeHedged();
+    }
+
+    /**
+     * Returns the context of the exchange whose response the attempt returned or failed with
+     * @return the context, or {@code null} if every exchange failed before receiving a response
+     */
+    synchronized RequestContext getContext() {
+        return context;
+    }
+
+    /**
+     * Returns the number of hedges sent
+     */
+    synchronized int getHedges() {
+        return hedges;
+    }
+
+    private synchronized JSObject executeHedged() throws IOException, URISyntaxException, JSONException {
+        String method = httpMethod != null ? httpMethod.toUpperCase() : call.getString("method", "").toUpperCase();
+        String host = new URL(call.getString("url", "")).getHost();
+        HttpMetrics metrics = HttpMetrics.getInstance();
+        long delayMs = hedgePolicy.getDelay(metrics.getEndpoint(host, method));
+        metrics.recordHedgeableRequest();
+
+        start();
+        boolean mayHedge = delayMs >= 0;
+        long nextHedgeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+        try {
+            while (true) {
+                if (winner != null) {
+                    if (winner.done) return winner.getResponse();
+                } else if (isEveryExchangeDone()) {
+                    // no exchange received a response, report the failure of the first one
+                    return exchanges.get(0).getResponse();
+                } else if (mayHedge && hedges < hedgePolicy.getMaxHedges()) {
+                    long waitNanos = nextHedgeAt - System.nanoTime();
+                    if (waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+                        continue;
+                    }
+                    if (request.isAborted() || !metrics.tryAcquireHedge(hedgePolicy.getBudget())) {
+                        mayHedge = false;
+                        continue;
+                    }
+                    hedges++;
+                    start();
+                    nextHedgeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs);
+                    continue;
+                }
+                wait();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            for (Exchange exchange : exchanges) {
+                exchange.supersede();
+            }
+            throw new InterruptedIOException("Interrupted while waiting for a response");
+        }
+    }
+
+    private void start() {
+        Exchange exchange = new Exchange();
+        exchanges.add(exchange);
+        executor.execute(exchange);
+    }
+
+    private boolean isEveryExchangeDone() {
+        for (Exchange exchange : exchanges) {
+            if (!exchange.done) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Called by an exchange once its response headers arrived
+     * @param exchange the context of the exchange
+     * @return true if the exchange won, false if another one received its response first
+     */
+    synchronized boolean onResponseStart(RequestContext exchange) {
+        if (winner != null) return false;
+        for (Exchange candidate : exchanges) {
+            if (candidate.context == exchange) {
+                winner = candidate;
+                context = exchange;
+            } else {
+                candidate.supersede();
+            }
+        }
+        if (winner != exchanges.get(0)) {
+            HttpMetrics.getInstance().recordHedgeWin();
+        }
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * One of the racing exchanges of a hedged attempt, running on a worker thread
+     */
+    private class Exchange implements Runnable {
+
+        // guarded by the enclosing attempt
+        RequestContext context;
+        boolean superseded = false;
+        boolean done = false;
+        JSObject response;
+        Throwable failure;
+
+        @Override
+        public void run() {
+            RequestContext context = RequestContext.attach(call, request);
+            context.setAttempt(RequestAttempt.this);
+            synchronized (RequestAttempt.this) {
+                this.context = context;
+                if (superseded) context.supersede();
+            }
+
+            JSObject response = null;
+            Throwable failure = null;
+            try {
+                response = HttpRequestHandler.executeRequest(call, httpMethod, context);
+            } catch (Throwable ex) {
+                failure = ex;
+            } finally {
+                context.detach();
+            }
+
+            synchronized (RequestAttempt.this) {
+                this.response = response;
+                this.failure = failure;
+                done = true;
+                RequestAttempt.this.notifyAll();
+            }
+        }
+
+        /**
+         * Disconnects the exchange because another one won, or the attempt was given up
+         */
+        void supersede() {
+            superseded = true;
+            if (context != null) context.supersede();
+        }
+
+        JSObject getResponse() throws IOException, URISyntaxException, JSONException {
+            if (failure == null) return response;
+            if (failure instanceof IOException) throw (IOException) failure;
+            if (failure instanceof URISyntaxException) throw (URISyntaxException) failure;
+            if (failure instanceof JSONException) throw (JSONException) failure;
+            if (failure instanceof RuntimeException) throw (RuntimeException) failure;
+            throw (Error) failure;
+        }
+    }
+}
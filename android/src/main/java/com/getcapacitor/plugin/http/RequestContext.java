@@ -0,0 +1,401 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.PluginCall;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request state of the HTTP exchange running on the current thread. Hooks that are called
+ * by {@code HttpURLConnection} itself and can't be handed the {@code PluginCall}, such as the cookie
+ * handler and the TLS socket factory, look it up through {@link #current()}. A call that makes
+ * several exchanges, such as a retried or hedged request, runs each of them in a context of its
+ * own, all sharing the call's {@link InFlightRequest}.
+ */
+class RequestContext {
+
+    static final String PHASE_CONNECTING = "connecting";
+    static final String PHASE_SENDING = "sending";
+    static final String PHASE_WAITING = "waiting";
+    static final String PHASE_RECEIVING = "receiving";
+
+    private static final String INCOMPLETE_ERROR = "The request did not complete";
+    private static final String SUPERSEDED_ERROR = "The request was superseded by a faster hedged request";
+
+    private static final ThreadLocal<RequestContext> current = new ThreadLocal<>();
+    final InFlightRequest request;
+    final CapacitorCookieManager.CookieAccess cookieAccess;
+    final boolean includeTimings;
+    final RequestTimings timings;
+    final HarRecorder.Entry harEntry;
+
+    private HttpMetrics.EndpointMetrics metrics;
+    private Span span;
+    private volatile CapacitorHttpUrlConnection connection;
+    private volatile String url;
+    private volatile String method;
+    private volatile String phase = PHASE_CONNECTING;
+    private volatile long startNanos;
+    private long responseStartNanos = 0;
+    private CircuitBreaker breaker;
+    private RequestAttempt attempt;
+    private volatile boolean superseded = false;
+    private final boolean ownsRequest;
+    private int statusCode = 0;
+    private Map<String, List<String>> responseHeaders;
+    private boolean completed = false;
+
+    private RequestContext(PluginCall call, InFlightRequest request, boolean ownsRequest) {
+        this.request = request;
+        this.ownsRequest = ownsRequest;
+        cookieAccess = CapacitorCookieManager.CookieAccess.parse(call.getString("cookiePolicy"));
+        includeTimings = call.getBoolean("timings", false);
+        harEntry = HarRecorder.getInstance().newEntry();
+        // the HAR recorder and spans need phase timings even when the response doesn't include them
+        timings = includeTimings || harEntry != null || Tracer.getInstance().isEnabled() ? new RequestTimings() : null;
+    }
+
+    /**
+     * Creates the context for a call that makes a single exchange and binds it to the current
+     * thread. Every call must be paired with {@link #detach()} in a {@code finally} block.
+     * @param call the PluginCall describing the request
+     * @return the new context
+     * @throws IllegalArgumentException thrown if another request with the same id is in flight, or
+     * the cookie policy is unknown
+     */
+    static RequestContext attach(PluginCall call) {
+        return attach(call, InFlightRequest.start(call), true);
+    }
+
+    /**
+     * Creates the context for one of the exchanges of a call and binds it to the current thread.
+     * Every call must be paired with {@link #detach()} in a {@code finally} block.
+     * @param call the PluginCall describing the request
+     * @param request the in-flight call the exchange belongs to
+     * @return the new context
+     * @throws IllegalArgumentException thrown if the cookie policy is unknown
+     */
+    static RequestContext attach(PluginCall call, InFlightRequest request) {
+        return attach(call, request, false);
+    }
+
+    private static RequestContext attach(PluginCall call, InFlightRequest request, boolean ownsRequest) {
+        RequestContext context;
+        try {
+            context = new RequestContext(call, request, ownsRequest);
+        } catch (IllegalArgumentException ex) {
+            if (ownsRequest) request.finish();
+            throw ex;
+        }
+        current.set(context);
+        return context;
+    }
+
+    /**
+     * Makes this exchange one of the racing exchanges of a hedged attempt
+     * @param attempt the attempt to report the arrival of the response headers to
+     */
+    void setAttempt(RequestAttempt attempt) {
+        this.attempt = attempt;
+    }
+
+    /**
+     * Returns the context of the request running on the current thread
+     * @return the current context, or {@code null} outside of a request
+     */
+    static RequestContext current() {
+        return current.get();
+    }
+
+    /**
+     * Waits until the rate limit of a URL lets the exchange go ahead. Must be called before the
+     * connection is opened.
+     * @param url the request URL
+     * @throws RequestAbortedException thrown if the wait would exceed the limit's max wait, or the
+     *                                 call was aborted while waiting
+     * @throws IOException thrown if the thread was interrupted while waiting
+     */
+    void acquireRateLimit(URL url) throws IOException {
+        TokenBucket bucket = RateLimiter.getInstance().find(url);
+        if (bucket == null) return;
+
+        long waitNanos = bucket.reserve(System.nanoTime());
+        if (waitNanos < 0) {
+            throw new RequestAbortedException(
+                RequestAbortedException.RATE_LIMITED,
+                "The rate limit for " + bucket.getName() + " would delay the request by more than " + bucket.getMaxWaitMs() + "ms"
+            );
+        }
+        if (waitNanos == 0) return;
+        try {
+            request.sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+        } catch (IOException ex) {
+            bucket.refund(System.nanoTime());
+            throw ex;
+        }
+    }
+
+    /**
+     * Marks the start of the exchange once its connection has been configured, but before it is
+     * connected
+     * @param connection the configured connection
+     * @throws RequestAbortedException thrown if the request was aborted before it began
+     */
+    void begin(CapacitorHttpUrlConnection connection) throws RequestAbortedException {
+        HttpURLConnection httpConnection = connection.getHttpConnection();
+        URL url = httpConnection.getURL();
+        String method = httpConnection.getRequestMethod();
+
+        this.url = url.toString();
+        this.method = method;
+        this.connection = connection;
+        request.addExchange(this);
+        // checked after setting the connection, so that a concurrent supersede either disconnects it or is seen here
+        if (superseded) throw new RequestAbortedException(RequestAbortedException.CANCELLED, SUPERSEDED_ERROR);
+        breaker = CircuitBreakerRegistry.getInstance().acquire(url.getHost());
+        startNanos = System.nanoTime();
+        metrics = HttpMetrics.getInstance().getEndpoint(url.getHost(), method);
+        metrics.begin();
+
+        if (timings != null) timings.setSecure("https".equalsIgnoreCase(url.getProtocol()));
+        // injects the trace headers, so it must come before the headers are recorded
+        span = Tracer.getInstance().startSpan(httpConnection);
+        if (harEntry != null) {
+            harEntry.setRequest(method, url, new HashMap<>(httpConnection.getRequestProperties()));
+        }
+        RequestWatchdog.getInstance().watch(this);
+    }
+
+    /**
+     * Marks the request, including its body, as fully sent
+     */
+    void markRequestSent() {
+        phase = PHASE_WAITING;
+        if (timings != null) timings.markRequestSent();
+    }
+
+    /**
+     * Marks the arrival of the response headers
+     */
+    void markResponseStart() {
+        phase = PHASE_RECEIVING;
+        if (responseStartNanos == 0) {
+            responseStartNanos = System.nanoTime();
+            if (metrics != null) metrics.recordResponseStart((responseStartNanos - startNanos) / 1000);
+        }
+        if (timings != null) timings.markResponseStart();
+        if (attempt != null && !attempt.onResponseStart(this)) supersede();
+    }
+
+    /**
+     * Marks the start of a streamed response body. The body lasts as long as the server keeps
+     * sending and pauses whenever JS falls behind, so the exchange is no longer checked for being
+     * slow or stalled.
+     */
+    void markStreaming() {
+        RequestWatchdog.getInstance().unwatch(this);
+    }
+
+    /**
+     * Aborts the call this exchange belongs to
+     * @param cause the reason of the abort
+     */
+    void abort(RequestAbortedException cause) {
+        request.abort(cause);
+    }
+
+    /**
+     * Disconnects the connection of this exchange from another thread, which makes any blocked
+     * connect, write or read on the request thread fail
+     */
+    void disconnect() {
+        CapacitorHttpUrlConnection connection = this.connection;
+        if (connection != null) {
+            connection.getHttpConnection().disconnect();
+        }
+    }
+
+    /**
+     * Disconnects this exchange because another exchange of the same hedged attempt won, without
+     * aborting the call
+     */
+    void supersede() {
+        superseded = true;
+        disconnect();
+    }
+
+    /**
+     * Fails fast between blocking operations once the call has been aborted
+     * @throws RequestAbortedException thrown if the call was aborted
+     */
+    void checkAborted() throws RequestAbortedException {
+        request.checkAborted();
+    }
+
+    /**
+     * Returns the exception a failed exchange should be reported with
+     * @param failure the exception the exchange failed with
+     * @return the abort reason if the call was aborted, otherwise the failure itself
+     */
+    IOException translateFailure(IOException failure) {
+        return request.translateFailure(failure);
+    }
+
+    /**
+     * Returns the status code of the response
+     * @return the status code, or 0 if no response was received
+     */
+    int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Returns the first value of a response header
+     * @param name the header name, matched case-insensitively
+     * @return the header value, or {@code null} if it wasn't sent or no response was received
+     */
+    String getResponseHeader(String name) {
+        if (responseHeaders == null) return null;
+        for (Map.Entry<String, List<String>> header : responseHeaders.entrySet()) {
+            if (name.equalsIgnoreCase(header.getKey()) && !header.getValue().isEmpty()) {
+                return header.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    String getUrl() {
+        return url;
+    }
+
+    String getMethod() {
+        return method;
+    }
+
+    long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     * Returns the phase the exchange is in: connecting, sending the request body, waiting for the
+     * response, or receiving the response body
+     * @return the current phase
+     */
+    String getPhase() {
+        String phase = this.phase;
+        return PHASE_CONNECTING.equals(phase) && getBytesSent() > 0 ? PHASE_SENDING : phase;
+    }
+
+    long getBytesSent() {
+        CapacitorHttpUrlConnection connection = this.connection;
+        return connection != null ? connection.getRequestBodySize() : 0;
+    }
+
+    long getBytesReceived() {
+        CapacitorHttpUrlConnection connection = this.connection;
+        return connection != null ? connection.getResponseBodySize() : 0;
+    }
+
+    long getBytesTransferred() {
+        return getBytesSent() + getBytesReceived();
+    }
+
+    /**
+     * Records the request body of the exchange, if it is being recorded
+     * @param body the request body
+     */
+    void recordRequestBody(Object body) {
+        if (harEntry != null) harEntry.setRequestBody(body);
+    }
+
+    /**
+     * Records the response of the exchange
+     * @param statusCode the HTTP status code
+     * @param headers the response headers
+     * @param body the response body as returned to JS, or {@code null} if it isn't available
+     */
+    void recordResponse(int statusCode, Map<String, List<String>> headers, Object body) {
+        this.statusCode = statusCode;
+        this.responseHeaders = headers;
+        if (harEntry != null) {
+            harEntry.setResponse(statusCode, headers);
+            harEntry.setResponseBody(body);
+        }
+    }
+
+    /**
+     * Records the outcome of an exchange that received a response
+     * @param statusCode the HTTP status code
+     * @param requestBytes the number of request body bytes sent
+     * @param responseBytes the number of response body bytes received
+     */
+    void complete(int statusCode, long requestBytes, long responseBytes) {
+        if (metrics != null && !completed) {
+            completed = true;
+            metrics.complete(statusCode, elapsedMicros(), requestBytes, responseBytes);
+        }
+        if (breaker != null) {
+            // slowness is judged by the time to the response headers, so that large bodies don't count
+            long untilResponse = (responseStartNanos != 0 ? responseStartNanos : System.nanoTime()) - startNanos;
+            breaker.onResult(statusCode >= 500, untilResponse / 1000000, CircuitBreakerRegistry.now());
+            breaker = null;
+        }
+        if (timings != null) {
+            timings.markResponseEnd();
+            timings.setBodySizes(requestBytes, responseBytes);
+        }
+        if (harEntry != null) {
+            harEntry.setBodySizes(requestBytes, responseBytes);
+        }
+        if (span != null) {
+            span.setAttribute("http.request.body.size", requestBytes);
+            span.setAttribute("http.response.body.size", responseBytes);
+        }
+    }
+
+    /**
+     * Unbinds this context from the current thread and ends its span. An exchange that began but
+     * never completed is recorded as a failure.
+     */
+    void detach() {
+        current.remove();
+        request.removeExchange(this);
+        if (ownsRequest) request.finish();
+        RequestWatchdog.getInstance().unwatch(this);
+        if (breaker != null) {
+            // a cancelled call says nothing about the health of the host, unlike a stalled or timed out one
+            if (superseded || request.isCancelled()) {
+                breaker.release();
+            } else {
+                breaker.onResult(true, elapsedMicros() / 1000, CircuitBreakerRegistry.now());
+            }
+            breaker = null;
+        }
+        if (metrics != null && !completed) {
+            completed = true;
+            // like the breaker, the endpoint's error rate and latency ignore exchanges given up on purpose
+            if (superseded || request.isCancelled()) {
+                metrics.abandon();
+            } else {
+                metrics.fail(elapsedMicros(), 0, 0);
+            }
+            String error = superseded ? SUPERSEDED_ERROR : INCOMPLETE_ERROR;
+            if (harEntry != null) harEntry.setError(error);
+            if (span != null) Tracer.getInstance().endSpan(span, timings, 0, error);
+        } else if (span != null) {
+            Tracer.getInstance().endSpan(span, timings, statusCode, null);
+        }
+        if (harEntry != null && metrics != null) {
+            harEntry.setTimings(timings);
+            HarRecorder.getInstance().add(harEntry);
+        }
+    }
+
+    private long elapsedMicros() {
+        return (System.nanoTime() - startNanos) / 1000;
+    }
+}
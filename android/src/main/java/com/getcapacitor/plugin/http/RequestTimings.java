@@ -0,0 +1,190 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSObject;
+
+/**
+ * Phase timestamps of a single request, collected when the request sets the {@code timings}
+ * option, or when the request is recorded by the HAR recorder or traced. Marks are recorded in
+ * nanoseconds relative to the start of the request and reported in milliseconds. Phases that
+ * didn't happen, such as the TLS handshake on a reused connection, are left out of the report.
+ * <p>
+ * The connection resolves the host itself, out of sight of the plugin, so the DNS lookup of a new
+ * connection is counted in its connect phase and is not reported on its own.
+ */
+class RequestTimings {
+
+    private static final long NOT_SET = -1;
+
+    private final long startTime = System.currentTimeMillis();
+    private final long start = System.nanoTime();
+
+    private long connectEnd = NOT_SET;
+    private long tlsEnd = NOT_SET;
+    private long requestSent = NOT_SET;
+    private long responseStart = NOT_SET;
+    private long responseEnd = NOT_SET;
+
+    private boolean secure = false;
+    private boolean connectionOpened = false;
+    private long requestBodySize = 0;
+    private long responseBodySize = 0;
+
+    void setSecure(boolean secure) {
+        this.secure = secure;
+    }
+
+    /**
+     * Called by the TLS socket factory when it creates the socket for a new connection
+     * @param connected true if the socket is already connected, marking the end of the connect phase
+     */
+    void markConnectionOpened(boolean connected) {
+        connectionOpened = true;
+        if (connected) {
+            connectEnd = elapsed();
+        }
+    }
+
+    /**
+     * Called by the TLS socket factory when a new connection has completed its handshake
+     */
+    void markTlsEnd() {
+        tlsEnd = elapsed();
+    }
+
+    void markRequestSent() {
+        requestSent = elapsed();
+    }
+
+    void markResponseStart() {
+        responseStart = elapsed();
+    }
+
+    void markResponseEnd() {
+        responseEnd = elapsed();
+    }
+
+    void setBodySizes(long requestBodySize, long responseBodySize) {
+        this.requestBodySize = requestBodySize;
+        this.responseBodySize = responseBodySize;
+    }
+
+    /**
+     * Builds the {@code timings} object returned with the response. Durations are in milliseconds.
+     * {@code send} covers everything between connection setup and the request being handed off,
+     * including the upload of the request body. {@code wait} is the server time until the first
+     * response byte, and {@code receive} the transfer of the response body.
+     * @return the timings as a JSObject
+     */
+    JSObject toJSObject() {
+        long end = responseEnd != NOT_SET ? responseEnd : elapsed();
+        long connected = latest(0, connectEnd, tlsEnd);
+
+        JSObject marks = new JSObject();
+        putMillis(marks, "connectEnd", connectEnd);
+        putMillis(marks, "tlsEnd", tlsEnd);
+        putMillis(marks, "requestSent", requestSent);
+        putMillis(marks, "responseStart", responseStart);
+        putMillis(marks, "responseEnd", responseEnd);
+
+        JSObject output = new JSObject();
+        output.put("startTime", startTime);
+        output.put("marks", marks);
+        putMillis(output, "connect", connectEnd);
+        if (tlsEnd != NOT_SET && connectEnd != NOT_SET) putMillis(output, "tls", tlsEnd - connectEnd);
+        if (requestSent != NOT_SET && requestSent >= connected) putMillis(output, "send", requestSent - connected);
+        if (responseStart != NOT_SET) {
+            putMillis(output, "ttfb", responseStart);
+            if (requestSent != NOT_SET) putMillis(output, "wait", responseStart - requestSent);
+            if (responseEnd != NOT_SET) putMillis(output, "receive", responseEnd - responseStart);
+        }
+        putMillis(output, "total", end);
+        output.put("requestBodySize", requestBodySize);
+        output.put("responseBodySize", responseBodySize);
+        // reuse can only be observed for HTTPS, where new connections go through our socket factory
+        if (secure) output.put("connectionReused", !connectionOpened);
+        return output;
+    }
+
+    /**
+     * Returns the time from the start of the request until the response was read, or until now
+     * @return the total duration in milliseconds
+     */
+    double getTotalMillis() {
+        return toMillis(responseEnd != NOT_SET ? responseEnd : elapsed());
+    }
+
+    /**
+     * Builds the timings of a HAR 1.2 entry. HAR counts the TLS handshake as part of
+     * {@code connect} and uses -1 for phases that don't apply.
+     * @return the HAR timings as a JSObject
+     */
+    JSObject toHarTimings() {
+        long connected = latest(0, connectEnd, tlsEnd);
+
+        JSObject output = emptyHarTimings();
+        if (connectEnd != NOT_SET) output.put("connect", toMillis(latest(connectEnd, tlsEnd)));
+        if (tlsEnd != NOT_SET && connectEnd != NOT_SET) output.put("ssl", toMillis(tlsEnd - connectEnd));
+        output.put("send", requestSent != NOT_SET && requestSent >= connected ? toMillis(requestSent - connected) : 0);
+        if (responseStart != NOT_SET) {
+            output.put("wait", requestSent != NOT_SET ? toMillis(responseStart - requestSent) : toMillis(responseStart - connected));
+            output.put("receive", responseEnd != NOT_SET ? toMillis(responseEnd - responseStart) : 0);
+        }
+        return output;
+    }
+
+    /**
+     * Adds each recorded phase mark to a span as an event
+     * @param span the span of the request
+     */
+    void addSpanEvents(Span span) {
+        addSpanEvent(span, "connectEnd", connectEnd);
+        addSpanEvent(span, "tlsEnd", tlsEnd);
+        addSpanEvent(span, "requestSent", requestSent);
+        addSpanEvent(span, "responseStart", responseStart);
+        addSpanEvent(span, "responseEnd", responseEnd);
+    }
+
+    /**
+     * Builds HAR 1.2 timings for an exchange without any recorded phases
+     * @return the HAR timings as a JSObject
+     */
+    static JSObject emptyHarTimings() {
+        JSObject output = new JSObject();
+        output.put("blocked", -1);
+        output.put("dns", -1);
+        output.put("connect", -1);
+        output.put("ssl", -1);
+        output.put("send", 0);
+        output.put("wait", 0);
+        output.put("receive", 0);
+        return output;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    private long elapsed() {
+        return System.nanoTime() - start;
+    }
+
+    private static long latest(long... marks) {
+        long latest = 0;
+        for (long mark : marks) {
+            latest = Math.max(latest, mark);
+        }
+        return latest;
+    }
+
+    private void addSpanEvent(Span span, String name, long mark) {
+        if (mark != NOT_SET) {
+            span.addEvent(name, start + mark);
+        }
+    }
+
+    private static void putMillis(JSObject output, String key, long nanos) {
+        if (nanos != NOT_SET) {
+            output.put(key, toMillis(nanos));
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSObject;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically checks in-flight requests for ones that are slow, taking longer than a latency
+ * threshold in total, or stalled, making no byte progress in either direction for longer than the
+ * stall timeout. Each condition is reported once per request, and stalled requests can optionally
+ * be aborted instead of waiting for the read timeout. The watchdog doesn't run while both limits
+ * are off.
+ */
+public class RequestWatchdog {
+
+    public static final String REASON_SLOW = "slow";
+    public static final String REASON_STALLED = "stalled";
+
+    private static final long MIN_CHECK_INTERVAL_MS = 100;
+    private static final long MAX_CHECK_INTERVAL_MS = 1000;
+
+    /**
+     * Receives a {@code slowRequest} event for each slow or stalled request. Called on the
+     * watchdog thread.
+     */
+    public interface Listener {
+        void onSlowRequest(JSObject event);
+    }
+
+    private static final RequestWatchdog instance = new RequestWatchdog();
+
+    private final ScheduledExecutorService checkExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CapacitorRequestWatchdog");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }
+    );
+    private final Map<RequestContext, Watch> watches = new ConcurrentHashMap<>();
+
+    private volatile boolean enabled = false;
+    private volatile long slowThresholdMs = 0;
+    private volatile long stallTimeoutMs = 0;
+    private volatile boolean abortStalled = false;
+    private volatile Listener listener;
+    private ScheduledFuture<?> checkTask;
+
+    public static RequestWatchdog getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param slowThresholdMs the total duration after which a request is reported as slow, 0 to
+     *                        turn this check off
+     * @param stallTimeoutMs how long a request may go without transferring a byte before it is
+     *                       reported as stalled, 0 to turn this check off
+     * @param abortStalled whether stalled requests are aborted
+     */
+    public synchronized void configure(long slowThresholdMs, long stallTimeoutMs, boolean abortStalled) {
+        this.slowThresholdMs = Math.max(0, slowThresholdMs);
+        this.stallTimeoutMs = Math.max(0, stallTimeoutMs);
+        this.abortStalled = abortStalled;
+        enabled = this.slowThresholdMs > 0 || this.stallTimeoutMs > 0;
+
+        if (checkTask != null) {
+            checkTask.cancel(false);
+            checkTask = null;
+        }
+        if (!enabled) {
+            watches.clear();
+            return;
+        }
+
+        // check often enough that a request is flagged within a quarter of the smallest limit
+        long smallest = Math.min(
+            this.slowThresholdMs > 0 ? this.slowThresholdMs : Long.MAX_VALUE,
+            this.stallTimeoutMs > 0 ? this.stallTimeoutMs : Long.MAX_VALUE
+        );
+        long interval = Math.max(MIN_CHECK_INTERVAL_MS, Math.min(MAX_CHECK_INTERVAL_MS, smallest / 4));
+        checkTask =
+            checkExecutor.scheduleWithFixedDelay(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        check();
+                    }
+                },
+                interval,
+                interval,
+                TimeUnit.MILLISECONDS
+            );
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts watching a request once it has begun
+     * @param requestContext the context of the request
+     */
+    void watch(RequestContext requestContext) {
+        if (enabled) {
+            watches.put(requestContext, new Watch());
+        }
+    }
+
+    /**
+     * Stops watching a request once it has ended
+     * @param requestContext the context of the request
+     */
+    void unwatch(RequestContext requestContext) {
+        watches.remove(requestContext);
+    }
+
+    private void check() {
+        long now = System.nanoTime();
+        for (Map.Entry<RequestContext, Watch> entry : watches.entrySet()) {
+            RequestContext requestContext = entry.getKey();
+            Watch watch = entry.getValue();
+
+            long bytes = requestContext.getBytesTransferred();
+            if (bytes != watch.lastBytes) {
+                watch.lastBytes = bytes;
+                watch.lastProgressAt = now;
+            }
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(now - requestContext.getStartNanos());
+            long idleMs = TimeUnit.NANOSECONDS.toMillis(now - watch.lastProgressAt);
+
+            if (!watch.stallReported && stallTimeoutMs > 0 && idleMs >= stallTimeoutMs) {
+                watch.stallReported = true;
+                boolean aborted = abortStalled;
+                if (aborted) {
+                    requestContext.abort(
+                        new RequestAbortedException(
+                            RequestAbortedException.STALLED,
+                            "The request made no progress for " + idleMs + "ms"
+                        )
+                    );
+                }
+                notify(requestContext, REASON_STALLED, elapsedMs, idleMs, aborted);
+            }
+            if (!watch.slowReported && slowThresholdMs > 0 && elapsedMs >= slowThresholdMs) {
+                watch.slowReported = true;
+                notify(requestContext, REASON_SLOW, elapsedMs, idleMs, false);
+            }
+        }
+    }
+
+    private void notify(RequestContext requestContext, String reason, long elapsedMs, long idleMs, boolean aborted) {
+        Listener listener = this.listener;
+        if (listener == null) return;
+
+        JSObject event = new JSObject();
+        if (requestContext.request.requestId != null) event.put("requestId", requestContext.request.requestId);
+        event.put("url", requestContext.getUrl());
+        event.put("method", requestContext.getMethod());
+        event.put("reason", reason);
+        event.put("phase", requestContext.getPhase());
+        event.put("elapsed", elapsedMs);
+        event.put("idle", idleMs);
+        event.put("bytesSent", requestContext.getBytesSent());
+        event.put("bytesReceived", requestContext.getBytesReceived());
+        event.put("aborted", aborted);
+        listener.onSlowRequest(event);
+    }
+
+    /**
+     * The progress of a single request, only touched by the watchdog thread
+     */
+    private static class Watch {
+
+        long lastBytes = 0;
+        long lastProgressAt = System.nanoTime();
+        boolean slowReported = false;
+        boolean stallReported = false;
+    }
+}
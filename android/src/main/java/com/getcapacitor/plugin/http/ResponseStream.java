@@ -0,0 +1,306 @@
+package com.getcapacitor.plugin.http;
+
+import android.util.Base64;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.MalformedJsonException;
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONException;
+
+/**
+ * The body of a streamed response, read on the request thread and handed to JS in chunks as it
+ * arrives instead of being buffered whole. Text is decoded incrementally, so a character split
+ * across two reads is never split across two chunks, and binary bodies are sent as base64. A large
+ * JSON array can be handed over in pages of elements instead, parsed one page at a time.
+ * <p>
+ * With backpressure, at most {@code maxPendingChunks} chunks or pages may be sent that JS hasn't
+ * acknowledged through {@link #ack(String, int)}. Reading pauses once the limit is reached, which
+ * in turn makes the server pause through TCP flow control.
+ */
+class ResponseStream {
+
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    static final int DEFAULT_PAGE_SIZE = 1000;
+
+    // how often a paused stream checks whether it was aborted
+    private static final long PAUSE_CHECK_MS = 250;
+
+    private static final Map<String, ResponseStream> streams = new ConcurrentHashMap<>();
+
+    interface Listener {
+        /**
+         * Called once the status and headers arrived, before the first chunk
+         * @param response the response without its body
+         */
+        void onResponse(JSObject response);
+
+        /**
+         * Called on the request thread for every chunk of the body
+         * @param streamId the id of the stream
+         * @param chunk the chunk, as text or base64
+         */
+        void onData(String streamId, String chunk);
+
+        /**
+         * Called on the request thread for every page of a paged JSON array
+         * @param streamId the id of the stream
+         * @param index the index of the page, starting at 0
+         * @param items the elements of the page
+         */
+        void onPage(String streamId, int index, JSArray items);
+
+        /**
+         * Called once the body was read to its end, or failed to be
+         * @param streamId the id of the stream
+         * @param bytes the number of body bytes received
+         * @param error the failure, or {@code null} if the whole body was received
+         */
+        void onEnd(String streamId, long bytes, Exception error);
+    }
+
+    final String id;
+    private final Semaphore credits;
+
+    /**
+     * @param id the id of the stream
+     * @param maxPendingChunks the number of chunks JS may have left to acknowledge before reading
+     *                         pauses, 0 to never pause
+     */
+    ResponseStream(String id, int maxPendingChunks) {
+        this.id = id;
+        this.credits = maxPendingChunks > 0 ? new Semaphore(maxPendingChunks) : null;
+    }
+
+    /**
+     * Registers the stream so that JS can acknowledge its chunks. Every call must be paired with
+     * {@link #close()} in a {@code finally} block.
+     * @throws IllegalArgumentException thrown if another stream with the same id is open
+     */
+    void open() {
+        if (streams.putIfAbsent(id, this) != null) {
+            throw new IllegalArgumentException("A stream with id '" + id + "' is already open");
+        }
+    }
+
+    void close() {
+        streams.remove(id, this);
+    }
+
+    /**
+     * Acknowledges chunks of an open stream, letting a paused stream read on
+     * @param streamId the id of the stream
+     * @param count the number of chunks JS is done with
+     * @return true if the stream is open
+     */
+    static boolean ack(String streamId, int count) {
+        ResponseStream stream = streams.get(streamId);
+        if (stream == null) return false;
+        if (stream.credits != null && count > 0) stream.credits.release(count);
+        return true;
+    }
+
+    /**
+     * Reads a body to its end, handing it to the listener chunk by chunk
+     * @param in the body
+     * @param charset the charset of a text body, or {@code null} to send it as base64
+     * @param chunkSize the max number of characters, or bytes before base64 encoding, per chunk
+     * @param requestContext the context of the request, checked for aborts between chunks
+     * @param listener receives the chunks
+     * @throws IOException thrown if the body can't be read, or the request was aborted
+     */
+    void read(InputStream in, Charset charset, int chunkSize, RequestContext requestContext, Listener listener)
+        throws IOException {
+        chunkSize = Math.max(1, chunkSize);
+        if (charset != null) {
+            TextChunks chunks = new TextChunks(new InputStreamReader(in, charset), chunkSize);
+            String chunk;
+            while ((chunk = chunks.next()) != null) {
+                requestContext.checkAborted();
+                awaitCredit(requestContext);
+                listener.onData(id, chunk);
+            }
+        } else {
+            byte[] buffer = new byte[chunkSize];
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                requestContext.checkAborted();
+                awaitCredit(requestContext);
+                listener.onData(id, Base64.encodeToString(buffer, 0, count, Base64.NO_WRAP));
+            }
+        }
+        // a disconnected stream may look like a normal end of the body
+        requestContext.checkAborted();
+    }
+
+    /**
+     * Reads the elements of a JSON array, found at a path from the root of the body, and hands
+     * them to the listener in pages. Only one page of elements is held at a time. The members of
+     * the body outside of the array are skipped.
+     * @param in the body
+     * @param charset the charset of the body
+     * @param path the steps to the array, each naming a member or an element
+     * @param pageSize the max number of elements per page
+     * @param requestContext the context of the request, checked for aborts between pages
+     * @param listener receives the pages
+     * @throws IOException thrown if the body can't be read, or the request was aborted
+     * @throws JSONException thrown if the body isn't valid JSON, or has no array at the path
+     */
+    void readPages(
+        InputStream in,
+        Charset charset,
+        List<JsonProjection.Step> path,
+        int pageSize,
+        RequestContext requestContext,
+        Listener listener
+    ) throws IOException, JSONException {
+        pageSize = Math.max(1, pageSize);
+        JsonReader reader = new JsonReader(new InputStreamReader(in, charset));
+        try {
+            if (!seek(reader, path)) {
+                throw new JSONException("The response has no array to page through at the given path");
+            }
+            int index = 0;
+            JSArray page = new JSArray();
+            reader.beginArray();
+            while (reader.hasNext()) {
+                page.put(JsonProjection.readValue(reader));
+                if (page.length() == pageSize) {
+                    emitPage(index++, page, requestContext, listener);
+                    page = new JSArray();
+                }
+            }
+            reader.endArray();
+            if (page.length() > 0) {
+                emitPage(index, page, requestContext, listener);
+            }
+        } catch (MalformedJsonException | IllegalStateException | NumberFormatException ex) {
+            throw new JSONException("Malformed JSON: " + ex.getMessage());
+        }
+        requestContext.checkAborted();
+    }
+
+    private void emitPage(int index, JSArray page, RequestContext requestContext, Listener listener) throws IOException {
+        requestContext.checkAborted();
+        awaitCredit(requestContext);
+        listener.onPage(id, index, page);
+    }
+
+    /**
+     * Moves the reader to the value at a path, skipping everything before it
+     * @return true if the value at the path is an array
+     */
+    private static boolean seek(JsonReader reader, List<JsonProjection.Step> path) throws IOException {
+        for (JsonProjection.Step step : path) {
+            boolean found = false;
+            if (step.name != null && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (!found && reader.hasNext()) {
+                    found = step.name.equals(reader.nextName());
+                    if (!found) reader.skipValue();
+                }
+            } else if (step.name == null && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                for (int index = 0; !found && reader.hasNext(); index++) {
+                    found = index == step.index;
+                    if (!found) reader.skipValue();
+                }
+            }
+            if (!found) return false;
+        }
+        return reader.peek() == JsonToken.BEGIN_ARRAY;
+    }
+
+    /**
+     * Splits text into chunks of at most a given number of characters. A reader can stop between
+     * the two halves of a surrogate pair, so a chunk ending with a high surrogate has it held back
+     * and sent at the start of the next one, keeping characters outside of the BMP, such as emoji,
+     * whole.
+     */
+    static class TextChunks {
+
+        private final Reader reader;
+        private final int chunkSize;
+        private final char[] buffer;
+        private int carried = 0;
+
+        TextChunks(Reader reader, int chunkSize) {
+            this.reader = reader;
+            this.chunkSize = Math.max(1, chunkSize);
+            this.buffer = new char[this.chunkSize + 1];
+        }
+
+        /**
+         * Reads the next chunk
+         * @return the chunk, or {@code null} at the end of the text
+         * @throws IOException thrown if the text can't be read
+         */
+        String next() throws IOException {
+            while (true) {
+                // a held back surrogate may take a chunk of 1 character to its pair
+                int count = reader.read(buffer, carried, Math.max(1, chunkSize - carried));
+                if (count <= 0) {
+                    if (carried == 0) return null;
+                    // the text ended in the middle of a pair, send the lone half as it came
+                    carried = 0;
+                    return String.valueOf(buffer[0]);
+                }
+
+                int length = carried + count;
+                carried = 0;
+                if (Character.isHighSurrogate(buffer[length - 1])) {
+                    length--;
+                    carried = 1;
+                }
+                if (length == 0) continue;
+
+                String chunk = new String(buffer, 0, length);
+                if (carried > 0) buffer[0] = buffer[length];
+                return chunk;
+            }
+        }
+    }
+
+    private void awaitCredit(RequestContext requestContext) throws IOException {
+        if (credits == null) return;
+        try {
+            while (!credits.tryAcquire(PAUSE_CHECK_MS, TimeUnit.MILLISECONDS)) {
+                requestContext.checkAborted();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for JS to catch up");
+        }
+    }
+
+    /**
+     * Picks the charset of a text body from its {@code Content-Type}
+     * @param contentType the header value, or {@code null}
+     * @return the charset parameter if it is supported, UTF-8 otherwise
+     */
+    static Charset getCharset(String contentType) {
+        if (contentType != null) {
+            for (String param : contentType.split(";")) {
+                String[] pair = param.trim().split("=", 2);
+                if (pair.length == 2 && "charset".equalsIgnoreCase(pair[0].trim())) {
+                    try {
+                        return Charset.forName(pair[1].trim().replace("\"", ""));
+                    } catch (IllegalArgumentException ignored) {}
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
@@ -0,0 +1,210 @@
+package com.getcapacitor.plugin.http;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.TimeZone;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Decides whether and when a failed exchange is retried. Delays grow exponentially from the base
+ * delay up to the max delay, with full jitter so that clients failing together don't retry
+ * together. A {@code Retry-After} header takes precedence over the backoff, and a response asking
+ * for a longer wait than the max delay is returned as is. Requests with non-idempotent methods are
+ * only retried when the policy allows it.
+ */
+public class RetryPolicy {
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 1;
+    public static final long DEFAULT_BASE_DELAY_MS = 250;
+    public static final long DEFAULT_MAX_DELAY_MS = 10000;
+    public static final Set<Integer> DEFAULT_STATUS_CODES = Collections.unmodifiableSet(
+        new HashSet<>(Arrays.asList(408, 429, 502, 503, 504))
+    );
+    // matched against the simple names of the exception class and its superclasses
+    public static final Set<String> DEFAULT_EXCEPTIONS = Collections.unmodifiableSet(
+        new HashSet<>(Arrays.asList("SocketTimeoutException", "SocketException", "UnknownHostException"))
+    );
+
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(
+        Arrays.asList("GET", "HEAD", "OPTIONS", "TRACE", "PUT", "DELETE")
+    );
+
+    private static final Random random = new Random();
+    private static volatile RetryPolicy defaultPolicy = new RetryPolicy(
+        DEFAULT_MAX_ATTEMPTS,
+        DEFAULT_BASE_DELAY_MS,
+        DEFAULT_MAX_DELAY_MS,
+        DEFAULT_STATUS_CODES,
+        DEFAULT_EXCEPTIONS,
+        false
+    );
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final Set<Integer> statusCodes;
+    private final Set<String> exceptions;
+    private final boolean retryNonIdempotent;
+
+    /**
+     * @param maxAttempts the total number of attempts, 1 to never retry
+     * @param baseDelayMs the upper bound of the delay before the first retry
+     * @param maxDelayMs the upper bound of any delay
+     * @param statusCodes the response status codes that are retried
+     * @param exceptions the simple class names of the exceptions that are retried
+     * @param retryNonIdempotent whether requests with methods such as POST are retried
+     */
+    public RetryPolicy(
+        int maxAttempts,
+        long baseDelayMs,
+        long maxDelayMs,
+        Set<Integer> statusCodes,
+        Set<String> exceptions,
+        boolean retryNonIdempotent
+    ) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = Math.max(0, baseDelayMs);
+        this.maxDelayMs = Math.max(this.baseDelayMs, maxDelayMs);
+        this.statusCodes = statusCodes;
+        this.exceptions = exceptions;
+        this.retryNonIdempotent = retryNonIdempotent;
+    }
+
+    public static RetryPolicy getDefault() {
+        return defaultPolicy;
+    }
+
+    public static void setDefault(RetryPolicy policy) {
+        defaultPolicy = policy;
+    }
+
+    /**
+     * Builds a policy from JSON options, falling back to another policy for missing values
+     * @param options the options, with {@code maxAttempts}, {@code baseDelay}, {@code maxDelay},
+     *                {@code statusCodes}, {@code exceptions} and {@code retryNonIdempotent}
+     * @param defaults the policy to take missing values from
+     * @return the policy, or {@code defaults} if there are no options
+     */
+    public static RetryPolicy fromJSON(JSONObject options, RetryPolicy defaults) {
+        if (options == null) return defaults;
+
+        Set<Integer> statusCodes = defaults.statusCodes;
+        JSONArray statusCodesJson = options.optJSONArray("statusCodes");
+        if (statusCodesJson != null) {
+            statusCodes = new HashSet<>();
+            for (int i = 0; i < statusCodesJson.length(); i++) {
+                statusCodes.add(statusCodesJson.optInt(i));
+            }
+        }
+
+        Set<String> exceptions = defaults.exceptions;
+        JSONArray exceptionsJson = options.optJSONArray("exceptions");
+        if (exceptionsJson != null) {
+            exceptions = new HashSet<>();
+            for (int i = 0; i < exceptionsJson.length(); i++) {
+                exceptions.add(exceptionsJson.optString(i));
+            }
+        }
+
+        return new RetryPolicy(
+            options.optInt("maxAttempts", defaults.maxAttempts),
+            options.optLong("baseDelay", defaults.baseDelayMs),
+            options.optLong("maxDelay", defaults.maxDelayMs),
+            statusCodes,
+            exceptions,
+            options.optBoolean("retryNonIdempotent", defaults.retryNonIdempotent)
+        );
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Decides whether an exchange that received a response is retried
+     * @param attempt the number of the attempt that was just made, starting at 1
+     * @param method the HTTP method
+     * @param statusCode the response status code
+     * @param retryAfter the {@code Retry-After} response header, or {@code null}
+     * @return the delay before the next attempt in milliseconds, or -1 to return the response
+     */
+    public long getDelay(int attempt, String method, int statusCode, String retryAfter) {
+        if (attempt >= maxAttempts || !statusCodes.contains(statusCode) || !isRetryable(method)) return -1;
+
+        long retryAfterMs = parseRetryAfter(retryAfter, System.currentTimeMillis());
+        if (retryAfterMs >= 0) {
+            return retryAfterMs <= maxDelayMs ? retryAfterMs : -1;
+        }
+        return getBackoff(attempt);
+    }
+
+    /**
+     * Decides whether an exchange that failed without a response is retried
+     * @param attempt the number of the attempt that was just made, starting at 1
+     * @param method the HTTP method
+     * @param failure the exception the exchange failed with
+     * @return the delay before the next attempt in milliseconds, or -1 to fail the request
+     */
+    public long getDelay(int attempt, String method, IOException failure) {
+        if (attempt >= maxAttempts || failure instanceof RequestAbortedException || !isRetryable(method)) return -1;
+
+        for (Class<?> type = failure.getClass(); type != null; type = type.getSuperclass()) {
+            if (exceptions.contains(type.getSimpleName())) {
+                return getBackoff(attempt);
+            }
+        }
+        return -1;
+    }
+
+    private boolean isRetryable(String method) {
+        return retryNonIdempotent || isIdempotent(method);
+    }
+
+    /**
+     * Returns a random delay up to the exponential backoff of an attempt
+     * @param attempt the number of the attempt that was just made, starting at 1
+     * @return the delay in milliseconds
+     */
+    long getBackoff(int attempt) {
+        long cap = baseDelayMs << Math.min(attempt - 1, 30);
+        if (cap <= 0 || cap > maxDelayMs) cap = maxDelayMs;
+        synchronized (random) {
+            return (long) (random.nextDouble() * cap);
+        }
+    }
+
+    static boolean isIdempotent(String method) {
+        return method != null && IDEMPOTENT_METHODS.contains(method.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Parses a {@code Retry-After} header, given either in seconds or as an HTTP date
+     * @param value the header value, or {@code null}
+     * @param now the current time in milliseconds since the epoch
+     * @return the delay in milliseconds, or -1 if the header is missing or malformed
+     */
+    static long parseRetryAfter(String value, long now) {
+        if (value == null) return -1;
+        value = value.trim();
+        try {
+            long seconds = Long.parseLong(value);
+            return seconds >= 0 ? seconds * 1000 : -1;
+        } catch (NumberFormatException ignored) {}
+
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return Math.max(0, format.parse(value).getTime() - now);
+        } catch (ParseException ex) {
+            return -1;
+        }
+    }
+}
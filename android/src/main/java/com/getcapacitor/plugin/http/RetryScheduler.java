@@ -0,0 +1,115 @@
+package com.getcapacitor.plugin.http;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The threads and retry backoff of a persistent queue, such as the {@link Outbox} or the
+ * {@link DownloadManager}. The queue runs its work through {@link #execute(Runnable)}, and asks
+ * for a retry when the work failed in a way that may go away. Retries are spaced with an
+ * exponential backoff, reset by the next success, and run the queue's pump, which is expected to
+ * start nothing while {@link #isRetryPending()}. A queue that backs off each piece of work on its
+ * own instead keeps the delays itself, see {@link #nextDelay(long)}, and only has its pump run
+ * once one expires, see {@link #schedule(long)}.
+ * <p>
+ * The scheduler's lock may be taken while holding the queue's, never the other way around.
+ */
+class RetryScheduler {
+
+    static final long MIN_RETRY_DELAY_MS = 1000;
+    static final long MAX_RETRY_DELAY_MS = 5 * 60 * 1000;
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final Runnable pump;
+    private ScheduledFuture<?> retry;
+    private long retryDelayMs = 0;
+
+    /**
+     * @param threadName the name of the daemon threads running the work
+     * @param threads the number of threads, the concurrency of the queue
+     * @param pump starts the queued work, called when a retry is due
+     */
+    RetryScheduler(final String threadName, int threads, Runnable pump) {
+        this.pump = pump;
+        this.executor =
+            new ScheduledThreadPoolExecutor(
+                threads,
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, threadName);
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }
+            );
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Runs a piece of work on one of the threads
+     */
+    void execute(Runnable work) {
+        executor.execute(work);
+    }
+
+    synchronized boolean isRetryPending() {
+        return retry != null;
+    }
+
+    /**
+     * Schedules a retry after the next backoff delay, replacing a pending one
+     */
+    synchronized void scheduleRetry() {
+        retryDelayMs = nextDelay(retryDelayMs);
+        if (retry != null) retry.cancel(false);
+        retry =
+            executor.schedule(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        retryNow();
+                    }
+                },
+                retryDelayMs,
+                TimeUnit.MILLISECONDS
+            );
+    }
+
+    /**
+     * Runs the pump after a delay, without holding back the queue in the meantime
+     */
+    void schedule(long delayMs) {
+        executor.schedule(pump, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param previousDelayMs the previous backoff delay, or 0 after a success
+     * @return the next backoff delay
+     */
+    static long nextDelay(long previousDelayMs) {
+        return previousDelayMs == 0 ? MIN_RETRY_DELAY_MS : Math.min(previousDelayMs * 2, MAX_RETRY_DELAY_MS);
+    }
+
+    /**
+     * Starts the backoff over, after a piece of work succeeded
+     */
+    synchronized void resetBackoff() {
+        retryDelayMs = 0;
+    }
+
+    /**
+     * Runs the pump right away, without waiting for a pending retry
+     */
+    void retryNow() {
+        synchronized (this) {
+            if (retry != null) {
+                retry.cancel(false);
+                retry = null;
+            }
+        }
+        pump.run();
+    }
+}
@@ -0,0 +1,189 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSArray;
+import com.getcapacitor.JSObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A client span covering one native HTTP exchange. Timestamps are in nanoseconds since the epoch,
+ * derived from a single wall clock reading at the start of the span and the monotonic clock after
+ * that, so that phase events are ordered correctly even if the wall clock is adjusted mid-request.
+ */
+public class Span {
+
+    public static final int STATUS_UNSET = 0;
+    public static final int STATUS_OK = 1;
+    public static final int STATUS_ERROR = 2;
+
+    // OTLP SpanKind.SPAN_KIND_CLIENT
+    private static final int KIND_CLIENT = 3;
+
+    private final TraceContext context;
+    private final String name;
+    private final long startEpochNanos;
+    private final long startNanoTime;
+    private long endEpochNanos;
+    private int status = STATUS_UNSET;
+    private String statusMessage;
+    private final Map<String, Object> attributes = new LinkedHashMap<>();
+    private final List<Event> events = new ArrayList<>();
+
+    Span(TraceContext context, String name) {
+        this.context = context;
+        this.name = name;
+        this.startEpochNanos = System.currentTimeMillis() * 1000000L;
+        this.startNanoTime = System.nanoTime();
+    }
+
+    public String getTraceId() {
+        return context.traceId;
+    }
+
+    public String getSpanId() {
+        return context.spanId;
+    }
+
+    /**
+     * @return the id of the parent span, or {@code null} for a root span
+     */
+    public String getParentSpanId() {
+        return context.parentSpanId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    public long getEndEpochNanos() {
+        return endEpochNanos;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    public List<Event> getEvents() {
+        return Collections.unmodifiableList(events);
+    }
+
+    void setAttribute(String key, Object value) {
+        if (value != null) attributes.put(key, value);
+    }
+
+    /**
+     * Adds an event at a point on the monotonic clock
+     * @param name the event name
+     * @param nanoTime the {@link System#nanoTime()} at which it happened
+     */
+    void addEvent(String name, long nanoTime) {
+        events.add(new Event(name, toEpochNanos(nanoTime)));
+    }
+
+    void setStatus(int status, String message) {
+        this.status = status;
+        this.statusMessage = message;
+    }
+
+    void end() {
+        endEpochNanos = toEpochNanos(System.nanoTime());
+    }
+
+    /**
+     * Builds the OTLP/JSON representation of this span
+     * @return the span as a JSObject
+     */
+    public JSObject toOtlpJson() {
+        JSObject output = new JSObject();
+        output.put("traceId", context.traceId);
+        output.put("spanId", context.spanId);
+        if (context.parentSpanId != null) output.put("parentSpanId", context.parentSpanId);
+        if (context.traceState != null) output.put("traceState", context.traceState);
+        output.put("name", name);
+        output.put("kind", KIND_CLIENT);
+        // 64-bit integers are strings in OTLP/JSON
+        output.put("startTimeUnixNano", Long.toString(startEpochNanos));
+        output.put("endTimeUnixNano", Long.toString(endEpochNanos));
+        output.put("attributes", toOtlpAttributes(attributes));
+
+        JSArray eventsJsArray = new JSArray();
+        for (Event event : events) {
+            JSObject eventJsObject = new JSObject();
+            eventJsObject.put("timeUnixNano", Long.toString(event.epochNanos));
+            eventJsObject.put("name", event.name);
+            eventsJsArray.put(eventJsObject);
+        }
+        output.put("events", eventsJsArray);
+
+        JSObject statusJsObject = new JSObject();
+        statusJsObject.put("code", status);
+        if (statusMessage != null) statusJsObject.put("message", statusMessage);
+        output.put("status", statusJsObject);
+        return output;
+    }
+
+    /**
+     * Converts attributes to OTLP/JSON key-value pairs
+     * @param attributes the attributes, whose values may be strings, booleans or numbers
+     * @return the attributes as a JSArray
+     */
+    static JSArray toOtlpAttributes(Map<String, Object> attributes) {
+        JSArray output = new JSArray();
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            Object value = attribute.getValue();
+            JSObject valueJsObject = new JSObject();
+            if (value instanceof Boolean) {
+                valueJsObject.put("boolValue", value);
+            } else if (value instanceof Integer || value instanceof Long) {
+                valueJsObject.put("intValue", value.toString());
+            } else if (value instanceof Number) {
+                valueJsObject.put("doubleValue", value);
+            } else {
+                valueJsObject.put("stringValue", value.toString());
+            }
+
+            JSObject pair = new JSObject();
+            pair.put("key", attribute.getKey());
+            pair.put("value", valueJsObject);
+            output.put(pair);
+        }
+        return output;
+    }
+
+    private long toEpochNanos(long nanoTime) {
+        return startEpochNanos + (nanoTime - startNanoTime);
+    }
+
+    /**
+     * A point in time within a span, such as the end of the DNS lookup
+     */
+    public static class Event {
+
+        private final String name;
+        private final long epochNanos;
+
+        Event(String name, long epochNanos) {
+            this.name = name;
+            this.epochNanos = epochNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getEpochNanos() {
+            return epochNanos;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.getcapacitor.plugin.http;
+
+/**
+ * Receives the spans of finished requests. Implementations are called on the request thread and
+ * should hand the span off rather than doing I/O inline.
+ */
+public interface SpanExporter {
+    void export(Span span);
+
+    /**
+     * Writes out any spans still held in memory
+     */
+    void flush();
+}
@@ -0,0 +1,174 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSObject;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import javax.net.ssl.HandshakeCompletedEvent;
+import javax.net.ssl.HandshakeCompletedListener;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+
+/**
+ * Sizes the client session cache of the platform's default {@code SSLContext}, which every
+ * connection using the default socket factory shares, so that a TLS session negotiated by one
+ * connection can be resumed by the next one to the same host, even after the connection pool has
+ * evicted the socket. The socket factory of each connection, including one the app installed with
+ * {@link javax.net.ssl.HttpsURLConnection#setDefaultSSLSocketFactory(SSLSocketFactory)}, is kept
+ * and only wrapped to time the connect and handshake phases of requests collecting timings.
+ */
+public class TlsSessionCache {
+
+    public static final int DEFAULT_SESSION_CACHE_SIZE = 100;
+    public static final int DEFAULT_SESSION_TIMEOUT = 300;
+
+    private static TlsSessionCache instance;
+
+    private final int sessionCacheSize;
+    private final int sessionTimeout;
+
+    // the last wrapped factory, reused so that the connection pool still sees a single factory
+    private SSLSocketFactory wrapped;
+    private SSLSocketFactory wrapper;
+
+    /**
+     * Create a new session cache
+     * @param sessionCacheSize the maximum number of client sessions to keep, 0 for unbounded
+     * @param sessionTimeout the time in seconds after which a cached session can no longer be resumed
+     * @throws GeneralSecurityException if the default TLS context can't be initialized
+     */
+    TlsSessionCache(int sessionCacheSize, int sessionTimeout) throws GeneralSecurityException {
+        this.sessionCacheSize = sessionCacheSize;
+        this.sessionTimeout = sessionTimeout;
+
+        SSLSessionContext sessionContext = SSLContext.getDefault().getClientSessionContext();
+        sessionContext.setSessionCacheSize(sessionCacheSize);
+        sessionContext.setSessionTimeout(sessionTimeout);
+    }
+
+    /**
+     * Applies new limits to the shared session cache. Sessions already cached are evicted as the
+     * new limits require.
+     * @param sessionCacheSize the maximum number of client sessions to keep, 0 for unbounded
+     * @param sessionTimeout the time in seconds after which a cached session can no longer be resumed
+     * @throws GeneralSecurityException if the default TLS context can't be initialized
+     */
+    public static synchronized void configure(int sessionCacheSize, int sessionTimeout) throws GeneralSecurityException {
+        instance = new TlsSessionCache(sessionCacheSize, sessionTimeout);
+    }
+
+    /**
+     * Returns the shared session cache, applying the default limits if none are configured
+     * @return the shared session cache
+     * @throws GeneralSecurityException if the default TLS context can't be initialized
+     */
+    public static synchronized TlsSessionCache getInstance() throws GeneralSecurityException {
+        if (instance == null) {
+            instance = new TlsSessionCache(DEFAULT_SESSION_CACHE_SIZE, DEFAULT_SESSION_TIMEOUT);
+        }
+        return instance;
+    }
+
+    /**
+     * Wraps the socket factory of a connection to record the timings of the connections it opens.
+     * The same factory is always given the same wrapper.
+     * @param factory the socket factory the connection would use
+     * @return the socket factory the connection should use instead
+     */
+    public synchronized SSLSocketFactory wrap(SSLSocketFactory factory) {
+        if (factory != wrapped) {
+            wrapped = factory;
+            wrapper = new InstrumentedSocketFactory(factory);
+        }
+        return wrapper;
+    }
+
+    /**
+     * Builds a snapshot of the cache limits
+     * @return a JSObject with the cache configuration
+     */
+    public JSObject getStats() {
+        JSObject output = new JSObject();
+        output.put("sessionCacheSize", sessionCacheSize);
+        output.put("sessionTimeout", sessionTimeout);
+        return output;
+    }
+
+    /**
+     * Records the connect and handshake phases of a socket created for a request collecting
+     * timings
+     * @param socket the socket returned by the wrapped factory
+     * @param connected true if the socket is already connected to the server
+     * @return the same socket
+     */
+    private static Socket instrument(Socket socket, boolean connected) {
+        RequestContext context = RequestContext.current();
+        final RequestTimings timings = context != null ? context.timings : null;
+        if (socket instanceof SSLSocket && timings != null) {
+            timings.markConnectionOpened(connected);
+            HandshakeCompletedListener listener = new HandshakeCompletedListener() {
+                @Override
+                public void handshakeCompleted(HandshakeCompletedEvent event) {
+                    timings.markTlsEnd();
+                }
+            };
+            ((SSLSocket) socket).addHandshakeCompletedListener(listener);
+        }
+        return socket;
+    }
+
+    /**
+     * Delegating socket factory that instruments every socket it creates
+     */
+    private static class InstrumentedSocketFactory extends SSLSocketFactory {
+
+        private final SSLSocketFactory delegate;
+
+        InstrumentedSocketFactory(SSLSocketFactory delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public String[] getDefaultCipherSuites() {
+            return delegate.getDefaultCipherSuites();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return delegate.getSupportedCipherSuites();
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return instrument(delegate.createSocket(), false);
+        }
+
+        @Override
+        public Socket createSocket(Socket s, String host, int port, boolean autoClose) throws IOException {
+            return instrument(delegate.createSocket(s, host, port, autoClose), true);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return instrument(delegate.createSocket(host, port), true);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return instrument(delegate.createSocket(host, port, localHost, localPort), true);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return instrument(delegate.createSocket(host, port), true);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort) throws IOException {
+            return instrument(delegate.createSocket(address, port, localAddress, localPort), true);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.getcapacitor.plugin.http;
+
+import com.getcapacitor.JSObject;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket limiting the rate of requests that match one rate limit rule. The bucket refills
+ * continuously at the configured rate up to its burst size, and every request takes a token. A
+ * request finding the bucket empty reserves the next token anyway and waits for it, so the tokens
+ * of a busy bucket go negative and waiting requests are let through in the order they arrived.
+ * Requests that would have to wait longer than the max wait are rejected instead.
+ */
+public class TokenBucket {
+
+    private final String name;
+    private final double ratePerSecond;
+    private final int burst;
+    private final long maxWaitMs;
+
+    private double tokens;
+    private long refilledAt;
+    private long granted = 0;
+    private long delayed = 0;
+    private long rejected = 0;
+
+    /**
+     * @param name the host or URL prefix the bucket limits
+     * @param ratePerSecond the number of requests allowed per second
+     * @param burst the number of requests allowed at once after the bucket was idle
+     * @param maxWaitMs how long a request may wait for a token before it is rejected
+     * @param now the current time in nanoseconds on a monotonic clock
+     */
+    TokenBucket(String name, double ratePerSecond, int burst, long maxWaitMs, long now) {
+        this.name = name;
+        this.ratePerSecond = ratePerSecond;
+        this.burst = Math.max(1, burst);
+        this.maxWaitMs = Math.max(0, maxWaitMs);
+        this.tokens = this.burst;
+        this.refilledAt = now;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    long getMaxWaitMs() {
+        return maxWaitMs;
+    }
+
+    /**
+     * Takes a token, reserving the next one if the bucket is empty
+     * @param now the current time in nanoseconds on a monotonic clock
+     * @return how long to wait for the token in nanoseconds, 0 to go ahead right away, or -1 if
+     *         the wait would exceed the max wait and no token was taken
+     */
+    synchronized long reserve(long now) {
+        refill(now);
+        if (tokens >= 1) {
+            tokens--;
+            granted++;
+            return 0;
+        }
+
+        long waitNanos = (long) Math.ceil((1 - tokens) / ratePerSecond * TimeUnit.SECONDS.toNanos(1));
+        if (waitNanos > TimeUnit.MILLISECONDS.toNanos(maxWaitMs)) {
+            rejected++;
+            return -1;
+        }
+        tokens--;
+        granted++;
+        delayed++;
+        return waitNanos;
+    }
+
+    /**
+     * Gives back a reserved token that wasn't used, such as by a request cancelled while waiting
+     * @param now the current time in nanoseconds on a monotonic clock
+     */
+    synchronized void refund(long now) {
+        refill(now);
+        tokens = Math.min(burst, tokens + 1);
+        granted--;
+    }
+
+    private void refill(long now) {
+        double elapsedSeconds = (double) (now - refilledAt) / TimeUnit.SECONDS.toNanos(1);
+        if (elapsedSeconds > 0) {
+            tokens = Math.min(burst, tokens + elapsedSeconds * ratePerSecond);
+            refilledAt = now;
+        }
+    }
+
+    synchronized JSObject toJSObject(long now) {
+        refill(now);
+        JSObject output = new JSObject();
+        output.put("rate", ratePerSecond);
+        output.put("burst", burst);
+        output.put("available", Math.max(0, tokens));
+        // every missing token below zero is held by a waiting request
+        output.put("queued", tokens < 0 ? (int) Math.ceil(-tokens) : 0);
+        output.put("granted", granted);
+        output.put("delayed", delayed);
+        output.put("rejected", rejected);
+        return output;
+    }
+}
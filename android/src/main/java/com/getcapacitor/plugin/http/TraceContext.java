@@ -0,0 +1,97 @@
+package com.getcapacitor.plugin.http;
+
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * A W3C Trace Context, as carried by the {@code traceparent} and {@code tracestate} headers.
+ * See https://www.w3.org/TR/trace-context/
+ */
+class TraceContext {
+
+    static final String TRACEPARENT_HEADER = "traceparent";
+    static final String TRACESTATE_HEADER = "tracestate";
+
+    private static final String VERSION = "00";
+    private static final String INVALID_TRACE_ID = "00000000000000000000000000000000";
+    private static final String INVALID_SPAN_ID = "0000000000000000";
+    private static final int FLAG_SAMPLED = 0x01;
+
+    private static final Random random = new SecureRandom();
+
+    final String traceId;
+    final String spanId;
+    final String parentSpanId;
+    final boolean sampled;
+    final String traceState;
+
+    private TraceContext(String traceId, String spanId, String parentSpanId, boolean sampled, String traceState) {
+        this.traceId = traceId;
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.sampled = sampled;
+        this.traceState = traceState;
+    }
+
+    /**
+     * Starts a new trace
+     * @param sampled whether the trace is recorded
+     * @param traceState the vendor state to propagate, or {@code null}
+     * @return a context without a parent
+     */
+    static TraceContext newRoot(boolean sampled, String traceState) {
+        return new TraceContext(randomHex(16), randomHex(8), null, sampled, traceState);
+    }
+
+    /**
+     * Continues a trace received in a {@code traceparent} header
+     * @param traceparent the header value
+     * @param traceState the {@code tracestate} header value, or {@code null}
+     * @return a child context, or {@code null} if the header is missing or malformed
+     */
+    static TraceContext childOf(String traceparent, String traceState) {
+        if (traceparent == null) return null;
+        String[] parts = traceparent.trim().toLowerCase(Locale.ROOT).split("-");
+        // future versions may append fields, version 00 has exactly four
+        if (parts.length < 4 || "ff".equals(parts[0]) || (VERSION.equals(parts[0]) && parts.length != 4)) return null;
+        if (!isHex(parts[0], 2) || !isHex(parts[1], 32) || !isHex(parts[2], 16) || !isHex(parts[3], 2)) return null;
+        if (INVALID_TRACE_ID.equals(parts[1]) || INVALID_SPAN_ID.equals(parts[2])) return null;
+
+        boolean sampled = (Integer.parseInt(parts[3], 16) & FLAG_SAMPLED) != 0;
+        return new TraceContext(parts[1], randomHex(8), parts[2], sampled, traceState);
+    }
+
+    String toTraceparent() {
+        return VERSION + "-" + traceId + "-" + spanId + "-" + (sampled ? "01" : "00");
+    }
+
+    private static String randomHex(int bytes) {
+        byte[] buffer = new byte[bytes];
+        do {
+            random.nextBytes(buffer);
+        } while (isZero(buffer));
+
+        StringBuilder output = new StringBuilder(bytes * 2);
+        for (byte b : buffer) {
+            output.append(Character.forDigit((b >> 4) & 0xf, 16));
+            output.append(Character.forDigit(b & 0xf, 16));
+        }
+        return output.toString();
+    }
+
+    private static boolean isZero(byte[] buffer) {
+        for (byte b : buffer) {
+            if (b != 0) return false;
+        }
+        return true;
+    }
+
+    private static boolean isHex(String value, int length) {
+        if (value.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) return false;
+        }
+        return true;
+    }
+}
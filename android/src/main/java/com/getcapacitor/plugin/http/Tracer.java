@@ -0,0 +1,124 @@
+package com.getcapacitor.plugin.http;
+
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Random;
+
+/**
+ * Propagates W3C Trace Context on native requests and records a client span for each of them.
+ * When tracing is on, every request carries a {@code traceparent} header: a request that already
+ * has one continues that trace as a child span, any other request starts a new trace. Sampled spans
+ * are handed to the configured {@link SpanExporter} when the request ends.
+ */
+public class Tracer {
+
+    private static final Tracer instance = new Tracer();
+
+    private final Random random = new Random();
+
+    private volatile boolean enabled = false;
+    private volatile double sampleRate = 1.0;
+    private volatile String traceState = null;
+    private volatile SpanExporter exporter = null;
+
+    public static Tracer getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param enabled whether requests are traced
+     * @param sampleRate the share of new traces that are recorded, between 0 and 1. Continued
+     *                   traces keep the sampling decision of their parent.
+     * @param traceState the {@code tracestate} header sent with new traces, or {@code null}
+     */
+    public void configure(boolean enabled, double sampleRate, String traceState) {
+        this.sampleRate = Math.max(0, Math.min(1, sampleRate));
+        this.traceState = traceState;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets where finished spans are sent, replacing the default file exporter
+     * @param exporter the exporter, or {@code null} to only propagate headers
+     */
+    public void setExporter(SpanExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    public SpanExporter getExporter() {
+        return exporter;
+    }
+
+    /**
+     * Adds the trace context headers to a connection that hasn't connected yet
+     * @param connection the configured connection
+     * @return the span of the request, or {@code null} if tracing is off or the trace isn't sampled
+     */
+    Span startSpan(HttpURLConnection connection) {
+        if (!enabled) return null;
+
+        TraceContext context = TraceContext.childOf(
+            connection.getRequestProperty(TraceContext.TRACEPARENT_HEADER),
+            connection.getRequestProperty(TraceContext.TRACESTATE_HEADER)
+        );
+        if (context == null) {
+            boolean sampled;
+            synchronized (random) {
+                sampled = random.nextDouble() < sampleRate;
+            }
+            context = TraceContext.newRoot(sampled, traceState);
+        }
+        connection.setRequestProperty(TraceContext.TRACEPARENT_HEADER, context.toTraceparent());
+        if (context.traceState != null) {
+            connection.setRequestProperty(TraceContext.TRACESTATE_HEADER, context.traceState);
+        }
+        if (!context.sampled || exporter == null) return null;
+
+        URL url = connection.getURL();
+        String method = connection.getRequestMethod();
+        Span span = new Span(context, method);
+        span.setAttribute("http.request.method", method);
+        span.setAttribute("url.full", stripUserInfo(url));
+        span.setAttribute("server.address", url.getHost());
+        span.setAttribute("server.port", url.getPort() != -1 ? url.getPort() : url.getDefaultPort());
+        return span;
+    }
+
+    /**
+     * Ends a span and hands it to the exporter
+     * @param span the span returned by {@link #startSpan(HttpURLConnection)}
+     * @param timings the phase timings of the request, added as span events, or {@code null}
+     * @param statusCode the HTTP status code, or 0 if no response was received
+     * @param error the failure reason if no response was received, or {@code null}
+     */
+    void endSpan(Span span, RequestTimings timings, int statusCode, String error) {
+        if (timings != null) {
+            timings.addSpanEvents(span);
+        }
+        if (statusCode > 0) {
+            span.setAttribute("http.response.status_code", statusCode);
+        }
+        if (error != null) {
+            span.setAttribute("error.type", error);
+            span.setStatus(Span.STATUS_ERROR, error);
+        } else if (statusCode >= 400) {
+            span.setAttribute("error.type", Integer.toString(statusCode));
+            span.setStatus(Span.STATUS_ERROR, null);
+        }
+        span.end();
+
+        SpanExporter exporter = this.exporter;
+        if (exporter != null) {
+            exporter.export(span);
+        }
+    }
+
+    private static String stripUserInfo(URL url) {
+        if (url.getUserInfo() == null) return url.toString();
+        return url.toString().replace(url.getUserInfo() + "@", "");
+    }
+}
@@ -0,0 +1,225 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ArchiveExtractorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> extracted = new ArrayList<>();
+
+    private final ArchiveExtractor.Listener listener = new ArchiveExtractor.Listener() {
+        @Override
+        public void onEntry(String name, long bytes, int files) {
+            extracted.add(name + ":" + bytes);
+        }
+    };
+
+    /**
+     * The target directory, inside the temporary folder along with its staging directory
+     */
+    private File directory() {
+        return new File(folder.getRoot(), "content");
+    }
+
+    @Test
+    public void extracts_zip_entries_into_the_directory() throws IOException {
+        byte[] zip = zip("pack/readme.txt", "hello", "pack/data/", null, "pack/data/a.json", "{}");
+
+        ArchiveExtractor extractor = new ArchiveExtractor(directory(), 100, 1000, 1000);
+        extractor.extract(new ByteArrayInputStream(zip), null, null, listener);
+        assertFalse(new File(directory(), "pack").exists());
+        extractor.commit();
+
+        assertEquals("hello", read(new File(directory(), "pack/readme.txt")));
+        assertEquals("{}", read(new File(directory(), "pack/data/a.json")));
+        assertEquals(2, extractor.getFiles());
+        assertEquals(7, extractor.getTotalBytes());
+        assertEquals("pack/readme.txt:5", extracted.get(0));
+    }
+
+    @Test
+    public void extracts_gzipped_tar_entries() throws IOException {
+        ByteArrayOutputStream tar = new ByteArrayOutputStream();
+        tar.write(tarHeader("assets/", '5', 0));
+        tar.write(tarHeader("assets/logo.svg", '0', 3));
+        tar.write(pad("svg".getBytes(StandardCharsets.UTF_8)));
+        tar.write(new byte[1024]);
+        ByteArrayOutputStream tgz = new ByteArrayOutputStream();
+        GZIPOutputStream gzip = new GZIPOutputStream(tgz);
+        gzip.write(tar.toByteArray());
+        gzip.close();
+
+        ArchiveExtractor extractor = new ArchiveExtractor(directory(), 100, 1000, 1000);
+        extractor.extract(new ByteArrayInputStream(tgz.toByteArray()), null, null, listener);
+        extractor.commit();
+
+        assertEquals("svg", read(new File(directory(), "assets/logo.svg")));
+        assertEquals(1, extractor.getFiles());
+    }
+
+    @Test
+    public void rejects_entries_escaping_the_directory_and_rolls_back() throws IOException {
+        byte[] zip = zip("ok.txt", "fine", "../evil.txt", "gotcha");
+
+        try {
+            new ArchiveExtractor(directory(), 100, 1000, 1000).extract(new ByteArrayInputStream(zip), null, null, listener);
+            fail("Expected the archive to be rejected");
+        } catch (RequestAbortedException ex) {
+            assertEquals(RequestAbortedException.ARCHIVE_REJECTED, ex.getCode());
+        }
+        assertFalse(new File(directory(), "ok.txt").exists());
+        assertFalse(new File(folder.getRoot(), "evil.txt").exists());
+        assertFalse(directory().exists());
+    }
+
+    @Test
+    public void a_rejected_extraction_leaves_the_previous_content_as_it_was() throws IOException {
+        ArchiveExtractor first = new ArchiveExtractor(directory(), 100, 1000, 1000);
+        first.extract(new ByteArrayInputStream(zip("a.txt", "old", "b.txt", "old")), null, null, listener);
+        first.commit();
+
+        try {
+            new ArchiveExtractor(directory(), 100, 1000, 1000).extract(
+                new ByteArrayInputStream(zip("a.txt", "new", "../evil.txt", "gotcha")),
+                null,
+                null,
+                listener
+            );
+            fail("Expected the archive to be rejected");
+        } catch (RequestAbortedException ex) {
+            assertEquals(RequestAbortedException.ARCHIVE_REJECTED, ex.getCode());
+        }
+
+        assertEquals("old", read(new File(directory(), "a.txt")));
+        assertEquals("old", read(new File(directory(), "b.txt")));
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void an_uncommitted_extraction_is_rolled_back() throws IOException {
+        ArchiveExtractor first = new ArchiveExtractor(directory(), 100, 1000, 1000);
+        first.extract(new ByteArrayInputStream(zip("a.txt", "old")), null, null, listener);
+        first.commit();
+
+        ArchiveExtractor second = new ArchiveExtractor(directory(), 100, 1000, 1000);
+        second.extract(new ByteArrayInputStream(zip("a.txt", "new", "c.txt", "new")), null, null, listener);
+        // as when the digest of the download doesn't match
+        second.rollback();
+        assertEquals("old", read(new File(directory(), "a.txt")));
+        assertFalse(new File(directory(), "c.txt").exists());
+
+        ArchiveExtractor third = new ArchiveExtractor(directory(), 100, 1000, 1000);
+        third.extract(new ByteArrayInputStream(zip("a.txt", "new")), null, null, listener);
+        third.commit();
+        third.rollback();
+        assertEquals("new", read(new File(directory(), "a.txt")));
+        assertEquals(1, folder.getRoot().list().length);
+    }
+
+    @Test
+    public void rejects_entries_over_the_size_limit() throws IOException {
+        byte[] zip = zip("big.bin", new String(new char[2000]).replace('\0', 'x'));
+
+        try {
+            new ArchiveExtractor(directory(), 100, 1000, 5000).extract(new ByteArrayInputStream(zip), null, null, listener);
+            fail("Expected the archive to be rejected");
+        } catch (RequestAbortedException ex) {
+            assertEquals(RequestAbortedException.ARCHIVE_REJECTED, ex.getCode());
+        }
+        assertFalse(new File(directory(), "big.bin").exists());
+    }
+
+    @Test
+    public void rejects_archives_with_too_many_entries() throws IOException {
+        byte[] zip = zip("a", "1", "b", "2", "c", "3");
+
+        try {
+            new ArchiveExtractor(directory(), 2, 1000, 1000).extract(new ByteArrayInputStream(zip), null, null, listener);
+            fail("Expected the archive to be rejected");
+        } catch (RequestAbortedException ex) {
+            assertEquals(RequestAbortedException.ARCHIVE_REJECTED, ex.getCode());
+        }
+    }
+
+    @Test
+    public void rejects_unknown_formats() throws IOException {
+        try {
+            new ArchiveExtractor(directory(), 100, 1000, 1000).extract(
+                new ByteArrayInputStream("not an archive".getBytes(StandardCharsets.UTF_8)),
+                null,
+                null,
+                listener
+            );
+            fail("Expected the download to be rejected");
+        } catch (RequestAbortedException ex) {
+            assertEquals(RequestAbortedException.ARCHIVE_REJECTED, ex.getCode());
+        }
+    }
+
+    /**
+     * Builds a zip from name and content pairs, a {@code null} content making a directory entry
+     */
+    private static byte[] zip(String... entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ZipOutputStream zip = new ZipOutputStream(bytes);
+        for (int i = 0; i < entries.length; i += 2) {
+            zip.putNextEntry(new ZipEntry(entries[i]));
+            if (entries[i + 1] != null) zip.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        zip.close();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] tarHeader(String name, char type, long size) {
+        byte[] header = new byte[512];
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        System.arraycopy(nameBytes, 0, header, 0, nameBytes.length);
+        byte[] sizeBytes = String.format("%011o", size).getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(sizeBytes, 0, header, 124, sizeBytes.length);
+        header[156] = (byte) type;
+        System.arraycopy("ustar".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 5);
+        return header;
+    }
+
+    private static byte[] pad(byte[] data) {
+        byte[] padded = new byte[(data.length + 511) / 512 * 512];
+        System.arraycopy(data, 0, padded, 0, data.length);
+        return padded;
+    }
+
+    private static String read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int count;
+            while ((count = in.read(buffer)) > 0) {
+                out.write(buffer, 0, count);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            in.close();
+        }
+    }
+}
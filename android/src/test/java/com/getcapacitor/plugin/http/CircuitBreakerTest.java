@@ -0,0 +1,102 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CircuitBreakerTest {
+
+    private static CircuitBreaker breaker(long slowCallDurationMs) {
+        return new CircuitBreaker("example.com", new CircuitBreaker.Settings(0.5, 0.5, slowCallDurationMs, 10, 4, 1000, 2));
+    }
+
+    private static void call(CircuitBreaker breaker, boolean failure, long durationMs, long now) {
+        assertTrue(breaker.tryAcquire(now));
+        breaker.onResult(failure, durationMs, now);
+    }
+
+    @Test
+    public void opens_once_failure_rate_reached_after_minimum_calls() {
+        CircuitBreaker breaker = breaker(0);
+
+        call(breaker, true, 10, 0);
+        call(breaker, true, 10, 0);
+        call(breaker, true, 10, 0);
+        assertEquals(CircuitBreaker.STATE_CLOSED, breaker.getState());
+
+        call(breaker, false, 10, 0);
+        assertEquals(CircuitBreaker.STATE_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(500));
+    }
+
+    @Test
+    public void stays_closed_below_failure_rate() {
+        CircuitBreaker breaker = breaker(0);
+
+        for (int i = 0; i < 30; i++) {
+            call(breaker, i % 3 == 1, 10, 0);
+        }
+
+        assertEquals(CircuitBreaker.STATE_CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void slow_calls_open_the_breaker() {
+        CircuitBreaker breaker = breaker(100);
+
+        for (int i = 0; i < 4; i++) {
+            call(breaker, false, 200, 0);
+        }
+
+        assertEquals(CircuitBreaker.STATE_OPEN, breaker.getState());
+    }
+
+    @Test
+    public void half_open_trials_close_the_breaker() {
+        CircuitBreaker breaker = breaker(0);
+        for (int i = 0; i < 4; i++) {
+            call(breaker, true, 10, 0);
+        }
+
+        assertTrue(breaker.tryAcquire(1000));
+        assertTrue(breaker.tryAcquire(1000));
+        assertEquals(CircuitBreaker.STATE_HALF_OPEN, breaker.getState());
+        // only two trials are let through at a time
+        assertFalse(breaker.tryAcquire(1000));
+
+        breaker.onResult(false, 10, 1000);
+        breaker.onResult(false, 10, 1000);
+        assertEquals(CircuitBreaker.STATE_CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire(1000));
+    }
+
+    @Test
+    public void failed_trial_reopens_the_breaker() {
+        CircuitBreaker breaker = breaker(0);
+        for (int i = 0; i < 4; i++) {
+            call(breaker, true, 10, 0);
+        }
+
+        call(breaker, true, 10, 1000);
+
+        assertEquals(CircuitBreaker.STATE_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(1500));
+        assertTrue(breaker.tryAcquire(2000));
+    }
+
+    @Test
+    public void released_trials_free_their_slot() {
+        CircuitBreaker breaker = breaker(0);
+        for (int i = 0; i < 4; i++) {
+            call(breaker, true, 10, 0);
+        }
+
+        assertTrue(breaker.tryAcquire(1000));
+        assertTrue(breaker.tryAcquire(1000));
+        breaker.release();
+
+        assertTrue(breaker.tryAcquire(1000));
+    }
+}
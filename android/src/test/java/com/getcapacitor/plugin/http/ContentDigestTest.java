@@ -0,0 +1,197 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Test;
+
+public class ContentDigestTest {
+
+    // SHA-256 and MD5 of "abc"
+    private static final String SHA_256_HEX = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+    private static final String SHA_256_BASE64 = "ungWv48Bz+pBQUDeXa4iI7ADYaOWF3qctBD/YfIAFa0=";
+    private static final String MD5_BASE64 = "kAFQmDzST7DWlj99KOF/cg==";
+
+    private static ContentDigest digestOf(String algorithm, String body) {
+        ContentDigest digest = ContentDigest.create(algorithm);
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        digest.update(bytes, 0, bytes.length);
+        return digest;
+    }
+
+    private static Map<String, List<String>> headers(String... namesAndValues) {
+        Map<String, List<String>> headers = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            headers.put(namesAndValues[i], Collections.singletonList(namesAndValues[i + 1]));
+        }
+        return headers;
+    }
+
+    @Test
+    public void computes_the_digest_in_hex() {
+        ContentDigest digest = digestOf("sha256", "abc");
+
+        assertEquals(ContentDigest.SHA_256, digest.getAlgorithm());
+        assertEquals(SHA_256_HEX, digest.toHex());
+        assertEquals(SHA_256_HEX, digest.toHex());
+    }
+
+    @Test
+    public void parses_expected_digests_in_hex_or_base64() {
+        ContentDigest digest = digestOf("SHA-256", "abc");
+
+        assertTrue(digest.matches(digest.parseExpected(SHA_256_HEX.toUpperCase())));
+        assertTrue(digest.matches(digest.parseExpected(SHA_256_BASE64)));
+        try {
+            digest.parseExpected(MD5_BASE64);
+            throw new AssertionError("Expected a digest of the wrong length to be rejected");
+        } catch (IllegalArgumentException expected) {}
+    }
+
+    @Test
+    public void finds_the_digest_announced_by_the_response() {
+        ContentDigest sha256 = digestOf("SHA-256", "abc");
+        ContentDigest md5 = digestOf("MD5", "abc");
+
+        byte[] announced = sha256.fromHeaders(headers("content-digest", "md5=:" + MD5_BASE64 + ":, sha-256=:" + SHA_256_BASE64 + ":"));
+        assertTrue(sha256.matches(announced));
+        assertTrue(sha256.matches(sha256.fromHeaders(headers("Digest", "SHA-256=" + SHA_256_BASE64))));
+        assertTrue(md5.matches(md5.fromHeaders(headers("Content-MD5", MD5_BASE64))));
+        assertNull(sha256.fromHeaders(headers("Content-MD5", MD5_BASE64)));
+    }
+
+    @Test
+    public void ignores_encoded_body_digests_of_a_decoded_response() {
+        ContentDigest digest = digestOf("SHA-256", "abc");
+
+        assertNull(digest.fromHeaders(headers("Content-Encoding", "gzip", "Digest", "SHA-256=" + SHA_256_BASE64)));
+        assertNull(digest.fromHeaders(headers("Content-Encoding", "gzip", "Content-Digest", "sha-256=:" + SHA_256_BASE64 + ":")));
+        byte[] representation = digest.fromHeaders(headers("Content-Encoding", "gzip", "Repr-Digest", "sha-256=:" + SHA_256_BASE64 + ":"));
+        assertArrayEquals(digest.finish(), representation);
+    }
+
+    @Test
+    public void requests_the_identity_encoding_unless_the_app_chose_one() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("https://example.com/").openConnection();
+        ContentDigest.requestIdentityEncoding(connection);
+        assertEquals("identity", connection.getRequestProperty("Accept-Encoding"));
+
+        HttpURLConnection chosen = (HttpURLConnection) new URL("https://example.com/").openConnection();
+        chosen.setRequestProperty("Accept-Encoding", "br");
+        ContentDigest.requestIdentityEncoding(chosen);
+        assertEquals("br", chosen.getRequestProperty("Accept-Encoding"));
+    }
+
+    @Test
+    public void a_compressing_server_sends_a_body_matching_its_digest_header() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(
+            "/",
+            new HttpHandler() {
+                @Override
+                public void handle(HttpExchange exchange) throws IOException {
+                    // compresses whenever the client allows it, announcing the MD5 of what it sends
+                    byte[] body = "abc".getBytes(StandardCharsets.UTF_8);
+                    String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+                    if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+                        GZIPOutputStream gzip = new GZIPOutputStream(compressed);
+                        gzip.write(body);
+                        gzip.close();
+                        body = compressed.toByteArray();
+                        exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+                    }
+                    exchange.getResponseHeaders().add("Content-MD5", md5Base64(body));
+                    exchange.sendResponseHeaders(200, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(body);
+                    out.close();
+                }
+            }
+        );
+        server.start();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(
+                "http://127.0.0.1:" + server.getAddress().getPort() + "/"
+            ).openConnection();
+            ContentDigest.requestIdentityEncoding(connection);
+            ContentDigest digest = ContentDigest.create("MD5");
+            Map<String, List<String>> headers = readLikeAndroid(connection, digest);
+
+            assertTrue(digest.matches(digest.fromHeaders(headers)));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Reads a response the way Android's HttpURLConnection does: when the request leaves the
+     * encoding to the connection, it asks for gzip, decompresses the body and drops the
+     * {@code Content-Encoding} header
+     * @return the response headers as the app sees them
+     */
+    private static Map<String, List<String>> readLikeAndroid(HttpURLConnection connection, ContentDigest digest) throws IOException {
+        boolean transparentGzip = connection.getRequestProperty("Accept-Encoding") == null;
+        if (transparentGzip) connection.setRequestProperty("Accept-Encoding", "gzip");
+
+        Map<String, List<String>> headers = new HashMap<>(connection.getHeaderFields());
+        InputStream in = connection.getInputStream();
+        if (transparentGzip && "gzip".equals(connection.getHeaderField("Content-Encoding"))) {
+            in = new GZIPInputStream(in);
+            Iterator<String> names = headers.keySet().iterator();
+            while (names.hasNext()) {
+                String name = names.next();
+                if ("Content-Encoding".equalsIgnoreCase(name) || "Content-Length".equalsIgnoreCase(name)) names.remove();
+            }
+        }
+        byte[] buffer = new byte[1024];
+        int count;
+        while ((count = in.read(buffer)) > 0) {
+            digest.update(buffer, 0, count);
+        }
+        in.close();
+        return headers;
+    }
+
+    private static String md5Base64(byte[] body) {
+        try {
+            return java.util.Base64.getEncoder().encodeToString(MessageDigest.getInstance("MD5").digest(body));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new AssertionError(ex);
+        }
+    }
+
+    @Test
+    public void rejects_unsupported_algorithms() {
+        assertEquals(ContentDigest.SHA_1, ContentDigest.parseAlgorithm("sha"));
+        assertNull(ContentDigest.parseAlgorithm("sha-512"));
+        assertFalse(digestOf("MD5", "abc").matches(new byte[16]));
+        try {
+            ContentDigest.create("crc32");
+            throw new AssertionError("Expected crc32 to be rejected");
+        } catch (IllegalArgumentException expected) {}
+    }
+}
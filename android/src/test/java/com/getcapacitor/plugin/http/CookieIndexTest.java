@@ -0,0 +1,115 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Test;
+
+public class CookieIndexTest {
+
+    @Test
+    public void lookup_is_served_from_memory_after_first_load() {
+        CookieSourceMock source = new CookieSourceMock();
+        source.cookies.put("https://example.com/api", "session=abc; theme=dark");
+        CookieIndex index = new CookieIndex(source);
+        index.setMaxAge(1000);
+
+        index.lookup("https://example.com/api");
+        CookieIndex.Entry entry = index.lookup("https://example.com/api");
+
+        assertEquals(1, source.reads);
+        assertEquals(1, index.getHitCount());
+        assertEquals(1, index.getMissCount());
+        assertEquals("session=abc; theme=dark", entry.cookieString);
+        assertEquals("dark", entry.get("theme").getValue());
+        assertNull(entry.get("missing"));
+    }
+
+    @Test
+    public void same_name_cookies_of_different_paths_are_kept_in_order() {
+        CookieSourceMock source = new CookieSourceMock();
+        source.cookies.put("https://example.com/api/v1", "a=1; b=2; a=3");
+        CookieIndex index = new CookieIndex(source);
+        index.setMaxAge(1000);
+
+        CookieIndex.Entry entry = index.lookup("https://example.com/api/v1");
+
+        assertEquals(3, entry.cookies.size());
+        assertEquals("1", entry.cookies.get(0).getValue());
+        assertEquals("3", entry.cookies.get(2).getValue());
+        assertEquals("1", entry.get("a").getValue());
+    }
+
+    @Test
+    public void host_only_cookie_invalidates_its_host() {
+        CookieSourceMock source = new CookieSourceMock();
+        CookieIndex index = new CookieIndex(source);
+        index.setMaxAge(1000);
+
+        index.lookup("https://example.com/api");
+        index.lookup("https://other.com/api");
+        index.invalidate("https://example.com/login", "session=def; Path=/");
+        index.lookup("https://example.com/api");
+        index.lookup("https://other.com/api");
+
+        assertEquals(3, source.reads);
+    }
+
+    @Test
+    public void domain_cookie_invalidates_subdomains() {
+        CookieSourceMock source = new CookieSourceMock();
+        CookieIndex index = new CookieIndex(source);
+        index.setMaxAge(1000);
+
+        index.lookup("https://api.example.com/");
+        index.lookup("https://www.example.com/");
+        index.lookup("https://notexample.com/");
+        index.invalidate("https://api.example.com/login", "session=def; Domain=.example.com");
+        index.lookup("https://api.example.com/");
+        index.lookup("https://www.example.com/");
+        index.lookup("https://notexample.com/");
+
+        assertEquals(5, source.reads);
+    }
+
+    @Test
+    public void lookups_read_the_source_by_default() {
+        CookieSourceMock source = new CookieSourceMock();
+        CookieIndex index = new CookieIndex(source);
+
+        index.lookup("https://example.com/");
+        index.lookup("https://example.com/");
+
+        assertEquals(2, source.reads);
+    }
+
+    @Test
+    public void repeated_lookups_read_the_source_once() {
+        CookieSourceMock source = new CookieSourceMock();
+        source.cookies.put("https://example.com/api", "a=1; b=2; c=3; d=4; e=5; f=6; g=7; h=8");
+        CookieIndex index = new CookieIndex(source);
+        index.setMaxAge(1000);
+
+        for (int i = 0; i < 10000; i++) {
+            index.lookup("https://example.com/api");
+        }
+
+        assertEquals(9999, index.getHitCount());
+        assertEquals(1, index.getMissCount());
+        assertEquals(1, source.reads);
+    }
+
+    private static class CookieSourceMock implements CookieIndex.Source {
+
+        private final Map<String, String> cookies = new HashMap<>();
+        private int reads = 0;
+
+        @Override
+        public String getCookie(String url) {
+            reads++;
+            return cookies.get(url);
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.getcapacitor.JSObject;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DownloadManagerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final BlockingQueue<String> states = new LinkedBlockingQueue<>();
+    private final List<String> discarded = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+    // permits to finish a download, which otherwise runs until aborted
+    private final Semaphore finish = new Semaphore(0);
+
+    private final DownloadManager.Listener listener = new DownloadManager.Listener() {
+        @Override
+        public void onStateChanged(DownloadManager.Job job, JSObject result) {
+            states.add(job.getRequest() + ":" + job.getState());
+        }
+
+        @Override
+        public void onProgress(DownloadManager.Job job) {}
+    };
+
+    /**
+     * A downloader that runs until it is given a {@link #finish} permit or is aborted, and fails
+     * like the request says. A "late" download only registers its request, and can be aborted,
+     * once it transfers.
+     */
+    private final DownloadManager.Downloader downloader = new DownloadManager.Downloader() {
+        private final List<String> aborted = Collections.synchronizedList(new ArrayList<String>());
+        private final List<String> registered = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public JSObject download(DownloadManager.Job job, HttpRequestHandler.ProgressEmitter progress) throws Exception {
+            int running = concurrent.incrementAndGet();
+            maxConcurrent.set(Math.max(maxConcurrent.get(), running));
+            try {
+                if (job.getRequest().equals("missing")) throw new FileNotFoundException("Not found");
+                if (job.getRequest().equals("forbidden")) throw new HttpStatusException(403, "Forbidden");
+                if (job.getRequest().equals("corrupt")) {
+                    throw new RequestAbortedException(RequestAbortedException.DIGEST_MISMATCH, "Digest mismatch");
+                }
+                if (job.getRequest().equals("flaky") && job.getAttempts() == 0) throw new IOException("Connection reset");
+                if (job.getRequest().equals("unavailable") && job.getAttempts() == 0) throw new HttpStatusException(503, "Unavailable");
+                if (job.getRequest().startsWith("late")) {
+                    finish.acquire();
+                    registered.add(job.getId());
+                    if (job.getRequest().equals("late-empty")) return new JSObject();
+                    progress.emit(5, 10);
+                    if (aborted.remove(job.getId())) {
+                        throw new RequestAbortedException(RequestAbortedException.CANCELLED, "The request was cancelled");
+                    }
+                    progress.emit(10, 10);
+                    return new JSObject();
+                }
+                while (!finish.tryAcquire(10, TimeUnit.MILLISECONDS)) {
+                    if (aborted.remove(job.getId())) {
+                        throw new RequestAbortedException(RequestAbortedException.CANCELLED, "The request was cancelled");
+                    }
+                }
+                progress.emit(10, 10);
+                return new JSObject();
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        }
+
+        @Override
+        public void abort(DownloadManager.Job job) {
+            if (job.getRequest().startsWith("late") && !registered.contains(job.getId())) return;
+            aborted.add(job.getId());
+        }
+
+        @Override
+        public void discard(DownloadManager.Job job) {
+            discarded.add(job.getRequest());
+        }
+    };
+
+    private void awaitState(String expected) throws InterruptedException {
+        while (true) {
+            String state = states.poll(5, TimeUnit.SECONDS);
+            if (state == null) throw new AssertionError("Timed out waiting for " + expected);
+            if (state.equals(expected)) return;
+        }
+    }
+
+    @Test
+    public void runs_downloads_with_bounded_concurrency() throws Exception {
+        DownloadManager manager = new DownloadManager(folder.getRoot(), new SimulatedConnectivitySource(true), downloader, listener, 2);
+
+        manager.enqueue("a");
+        manager.enqueue("b");
+        manager.enqueue("c");
+        awaitState("a:running");
+        awaitState("b:running");
+        finish.release(3);
+        awaitState("c:completed");
+
+        assertEquals(2, maxConcurrent.get());
+        for (DownloadManager.Job job : manager.getJobs()) {
+            assertEquals(DownloadManager.STATE_COMPLETED, job.getState());
+        }
+    }
+
+    @Test
+    public void running_downloads_are_queued_again_after_a_restart() throws Exception {
+        DownloadManager manager = new DownloadManager(folder.getRoot(), new SimulatedConnectivitySource(true), downloader, listener, 1);
+        manager.enqueue("a");
+        manager.enqueue("b");
+        awaitState("a:running");
+
+        DownloadManager reopened = new DownloadManager(folder.getRoot(), new SimulatedConnectivitySource(false), downloader, listener, 1);
+
+        assertEquals(2, reopened.getJobs().size());
+        assertEquals(DownloadManager.STATE_QUEUED, reopened.getJobs().get(0).getState());
+        assertEquals("a", reopened.getJobs().get(0).getRequest());
+        manager.cancel(manager.getJobs().get(0).getId());
+    }
+
+    @Test
+    public void pause_stops_a_download_until_it_is_resumed() throws Exception {
+        DownloadManager manager = new DownloadManager(folder.getRoot(), new SimulatedConnectivitySource(true), downloader, listener, 1);
+        DownloadManager.Job job = manager.enqueue("a");
+        awaitState("a:running");
+
+        assertTrue(manager.pause(job.getId()));
+        awaitState("a:paused");
+        assertFalse(manager.pause(job.getId()));
+        assertTrue(discarded.isEmpty());
+
+        assertTrue(manager.resume(job.getId()));
+        awaitState("a:running");
+        finish.release();
+        awaitState("a:completed");
+    }
+
+    @Test
+    public void cancel_removes_the_download_and_its_partial_data() throws Exception {
+        DownloadManager manager = new DownloadManager(folder.getRoot(), new SimulatedConnectivitySource(true), downloader, listener, 1);
+        DownloadManager.Job job = manager.enqueue("a");
+        awaitState("a:running");
+
+        assertTrue(manager.cancel(job.getId()));
+        awaitState("a:cancelled");
+        for (int i = 0; i < 500 && discarded.isEmpty(); i++) Thread.sleep(10);
+
+        assertEquals(Collections.singletonList("a"), discarded);
+        assertTrue(manager.getJobs().isEmpty());
+        assertFalse(manager.cancel(job.getId()));
+    }
+
+    @Test
+    public void an_abort_before_the_request_is_registered_is_delivered_once_it_transfers() throws Exception {
+        DownloadManager manager = new DownloadManager(folder.getRoot(), new SimulatedConnectivitySource(true), downloader, listener, 1);
+        DownloadManager.Job job = manager.enqueue("late");
+        awaitState("late:running");
+
+        assertTrue(manager.pause(job.getId()));
+        awaitState("late:paused");
+        finish.release();
+        manager.enqueue("b");
+        awaitState("b:running");
+
+        assertEquals(DownloadManager.STATE_PAUSED, job.getState());
+        assertEquals(5, job.getBytes());
+        assertFalse(states.contains("late:completed"));
+        finish.release();
+        awaitState("b:completed");
+    }
+
+    @Test
+    public void a_download_completing_after_it_was_paused_stays_paused() throws Exception {
+        DownloadManager manager = new DownloadManager(folder.getRoot(), new SimulatedConnectivitySource(true), downloader, listener, 1);
+        DownloadManager.Job job = manager.enqueue("late-empty");
+        awaitState("late-empty:running");
+
+        assertTrue(manager.pause(job.getId()));
+        awaitState("late-empty:paused");
+        finish.release();
+        manager.enqueue("b");
+        awaitState("b:running");
+
+        assertEquals(DownloadManager.STATE_PAUSED, job.getState());
+        assertFalse(states.contains("late-empty:completed"));
+        finish.release();
+        awaitState("b:completed");
+    }
+
+    @Test
+    public void transient_failures_are_retried_and_permanent_ones_are_final() throws Exception {
+        DownloadManager manager = new DownloadManager(folder.getRoot(), new SimulatedConnectivitySource(true), downloader, listener, 1);
+
+        manager.enqueue("missing");
+        awaitState("missing:failed");
+        assertEquals("Not found", manager.getJobs().get(0).getError());
+
+        manager.enqueue("flaky");
+        awaitState("flaky:running");
+        awaitState("flaky:running");
+        finish.release();
+        awaitState("flaky:completed");
+        assertEquals(1, manager.getJobs().get(1).getAttempts());
+    }
+
+    @Test
+    public void only_server_errors_and_throttling_statuses_are_retried() throws Exception {
+        DownloadManager manager = new DownloadManager(folder.getRoot(), new SimulatedConnectivitySource(true), downloader, listener, 1);
+
+        manager.enqueue("forbidden");
+        awaitState("forbidden:failed");
+        assertEquals(0, manager.getJobs().get(0).getAttempts());
+
+        manager.enqueue("unavailable");
+        awaitState("unavailable:running");
+        awaitState("unavailable:running");
+        finish.release();
+        awaitState("unavailable:completed");
+        assertEquals(1, manager.getJobs().get(1).getAttempts());
+
+        assertTrue(DownloadManager.isTransient(new HttpStatusException(408, "Request Timeout")));
+        assertTrue(DownloadManager.isTransient(new HttpStatusException(429, "Too Many Requests")));
+        assertFalse(DownloadManager.isTransient(new HttpStatusException(401, "Unauthorized")));
+    }
+
+    @Test
+    public void a_download_waiting_for_its_retry_doesnt_hold_back_the_others() throws Exception {
+        DownloadManager manager = new DownloadManager(folder.getRoot(), new SimulatedConnectivitySource(true), downloader, listener, 1);
+
+        manager.enqueue("unavailable");
+        manager.enqueue("a");
+        int attempts = 0;
+        while (true) {
+            String state = states.poll(5, TimeUnit.SECONDS);
+            if (state == null) throw new AssertionError("Timed out waiting for a:running");
+            if (state.equals("a:running")) break;
+            if (state.equals("unavailable:running")) attempts++;
+        }
+        assertEquals(1, attempts);
+
+        finish.release(2);
+        awaitState("a:completed");
+        awaitState("unavailable:completed");
+    }
+
+    @Test
+    public void the_error_code_of_a_failed_download_survives_a_restart() throws Exception {
+        DownloadManager manager = new DownloadManager(folder.getRoot(), new SimulatedConnectivitySource(true), downloader, listener, 1);
+        manager.enqueue("corrupt");
+        awaitState("corrupt:failed");
+
+        DownloadManager reopened = new DownloadManager(folder.getRoot(), new SimulatedConnectivitySource(false), downloader, listener, 1);
+
+        DownloadManager.Job job = reopened.getJobs().get(0);
+        assertEquals(DownloadManager.STATE_FAILED, job.getState());
+        assertEquals(RequestAbortedException.DIGEST_MISMATCH, job.getErrorCode());
+        assertEquals("Digest mismatch", job.getError());
+    }
+}
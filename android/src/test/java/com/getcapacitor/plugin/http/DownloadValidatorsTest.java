@@ -0,0 +1,77 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DownloadValidatorsTest {
+
+    private static final String URL = "https://example.com/data.json";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = folder.newFile("data.json");
+    }
+
+    @Test
+    public void stores_the_validators_of_a_response() throws IOException {
+        Map<String, List<String>> headers = new HashMap<>();
+        headers.put("etag", Arrays.asList("W/\"v2\""));
+        headers.put("Last-Modified", Arrays.asList("Wed, 21 Oct 2015 07:28:00 GMT"));
+        DownloadValidators.fromResponse(URL, headers).write(file);
+
+        DownloadValidators validators = DownloadValidators.read(file, URL);
+        assertEquals("W/\"v2\"", validators.etag);
+        assertEquals("Wed, 21 Oct 2015 07:28:00 GMT", validators.lastModified);
+        assertFalse(new File(folder.getRoot(), ".data.json.validators.tmp").exists());
+    }
+
+    @Test
+    public void ignores_validators_of_another_url_or_a_missing_file() throws IOException {
+        new DownloadValidators(URL, "\"v1\"", null).write(file);
+
+        assertNull(DownloadValidators.read(file, URL + "?page=2"));
+        file.delete();
+        assertNull(DownloadValidators.read(file, URL));
+    }
+
+    @Test
+    public void a_response_without_validators_removes_the_sidecar() throws IOException {
+        new DownloadValidators(URL, "\"v1\"", null).write(file);
+        DownloadValidators.fromResponse(URL, new HashMap<String, List<String>>()).write(file);
+
+        assertFalse(DownloadValidators.getSidecar(file).exists());
+        assertNull(DownloadValidators.read(file, URL));
+    }
+
+    @Test
+    public void makes_the_request_conditional_unless_the_app_did() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(URL).openConnection();
+        new DownloadValidators(URL, "\"v1\"", "Wed, 21 Oct 2015 07:28:00 GMT").apply(connection);
+        assertEquals("\"v1\"", connection.getRequestProperty("If-None-Match"));
+        assertNull(connection.getRequestProperty("If-Modified-Since"));
+
+        HttpURLConnection overridden = (HttpURLConnection) new URL(URL).openConnection();
+        overridden.setRequestProperty("If-Modified-Since", "Thu, 01 Jan 2015 00:00:00 GMT");
+        new DownloadValidators(URL, "\"v1\"", null).apply(overridden);
+        assertNull(overridden.getRequestProperty("If-None-Match"));
+    }
+}
@@ -0,0 +1,22 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class EventSourceTest {
+
+    @Test
+    public void reconnects_after_the_reconnection_time_once_events_were_dispatched() {
+        assertEquals(0, EventSource.getReconnectDelay(0, 0));
+        assertEquals(3000, EventSource.getReconnectDelay(3000, 0));
+    }
+
+    @Test
+    public void streams_without_events_back_off_from_the_minimum() {
+        assertEquals(EventSource.MIN_BACKOFF_MS, EventSource.getReconnectDelay(0, 1));
+        assertEquals(2 * EventSource.MIN_BACKOFF_MS, EventSource.getReconnectDelay(0, 2));
+        assertEquals(12000, EventSource.getReconnectDelay(3000, 3));
+        assertEquals(EventSource.MAX_RETRY_MS, EventSource.getReconnectDelay(0, 30));
+    }
+}
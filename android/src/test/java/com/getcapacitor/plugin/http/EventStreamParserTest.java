@@ -0,0 +1,102 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class EventStreamParserTest {
+
+    private final List<String> events = new ArrayList<>();
+    private final List<Long> retries = new ArrayList<>();
+
+    private final EventStreamParser parser = new EventStreamParser(
+        null,
+        new EventStreamParser.Listener() {
+            @Override
+            public void onEvent(String type, String data, String lastEventId) {
+                events.add(type + "|" + data + "|" + lastEventId);
+            }
+
+            @Override
+            public void onRetry(long retryMs) {
+                retries.add(retryMs);
+            }
+        }
+    );
+
+    private void feed(String text) {
+        parser.feed(text.toCharArray(), 0, text.length());
+    }
+
+    @Test
+    public void dispatches_events_on_blank_lines() {
+        feed("data: first\n\nevent: update\ndata: second\ndata:  third\nid: 7\n\n");
+
+        assertEquals(2, events.size());
+        assertEquals("message|first|", events.get(0));
+        assertEquals("update|second\n third|7", events.get(1));
+        assertEquals("7", parser.getLastEventId());
+    }
+
+    @Test
+    public void handles_pieces_split_anywhere() {
+        String stream = "\uFEFFdata: a\r\n\r\n: keep-alive\rdata: b\r\rdata\n\n";
+        for (int i = 0; i < stream.length(); i++) {
+            feed(stream.substring(i, i + 1));
+        }
+
+        assertEquals(3, events.size());
+        assertEquals("message|a|", events.get(0));
+        assertEquals("message|b|", events.get(1));
+        assertEquals("message||", events.get(2));
+    }
+
+    @Test
+    public void ignores_events_without_data() {
+        feed("event: ping\n\nid: 3\n\ndata: x\n\n");
+
+        assertEquals(1, events.size());
+        assertEquals("message|x|3", events.get(0));
+    }
+
+    @Test
+    public void only_accepts_numeric_retry() {
+        feed("retry: 1500\nretry: 2s\nretry:\n\n");
+
+        assertEquals(1, retries.size());
+        assertEquals(1500L, (long) retries.get(0));
+    }
+
+    @Test
+    public void reset_drops_the_partial_event_but_keeps_the_last_dispatched_id() {
+        feed("id: 9\ndata: complete\n\ndata: partial\n");
+        parser.reset();
+        feed("data: next\n\n");
+
+        assertEquals(2, events.size());
+        assertEquals("message|next|9", events.get(1));
+    }
+
+    @Test
+    public void the_id_of_a_dropped_partial_event_is_not_kept() {
+        feed("id: 4\ndata: complete\n\nid: 5\ndata: x\n");
+        assertEquals("4", parser.getLastEventId());
+
+        parser.reset();
+        assertEquals("4", parser.getLastEventId());
+        feed("data: next\n\n");
+
+        assertEquals("message|next|4", events.get(1));
+    }
+
+    @Test
+    public void an_id_takes_effect_on_dispatch_even_without_data() {
+        feed("id: 3\n");
+        assertEquals("", parser.getLastEventId());
+
+        feed("\n");
+        assertEquals("3", parser.getLastEventId());
+    }
+}
@@ -0,0 +1,65 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HedgePolicyTest {
+
+    private static HttpMetrics.EndpointMetrics endpoint(int responses, long micros) {
+        HttpMetrics.EndpointMetrics endpoint = new HttpMetrics.EndpointMetrics("example.com", "GET");
+        for (int i = 0; i < responses; i++) {
+            endpoint.recordResponseStart(micros);
+        }
+        return endpoint;
+    }
+
+    @Test
+    public void only_safe_methods_are_hedged() {
+        HedgePolicy policy = new HedgePolicy(1, 100, 95, 10, 0.1);
+
+        assertTrue(policy.appliesTo("GET"));
+        assertTrue(policy.appliesTo("head"));
+        assertFalse(policy.appliesTo("POST"));
+        assertFalse(policy.appliesTo("PUT"));
+        assertFalse(new HedgePolicy(0, 100, 95, 10, 0.1).appliesTo("GET"));
+    }
+
+    @Test
+    public void fixed_delay_ignores_the_endpoint() {
+        HedgePolicy policy = new HedgePolicy(1, 100, 95, 10, 0.1);
+
+        assertEquals(100, policy.getDelay(endpoint(0, 0)));
+    }
+
+    @Test
+    public void adaptive_delay_waits_for_enough_responses() {
+        HedgePolicy policy = new HedgePolicy(1, -1, 95, 10, 0.1);
+
+        assertEquals(-1, policy.getDelay(endpoint((int) HedgePolicy.MIN_SAMPLES - 1, 200000)));
+        long delay = policy.getDelay(endpoint((int) HedgePolicy.MIN_SAMPLES, 200000));
+        // within the precision of the histogram
+        assertTrue(delay >= 200 && delay <= 225);
+    }
+
+    @Test
+    public void adaptive_delay_is_bounded_below() {
+        HedgePolicy policy = new HedgePolicy(1, -1, 95, 10, 0.1);
+
+        assertEquals(10, policy.getDelay(endpoint((int) HedgePolicy.MIN_SAMPLES, 1000)));
+    }
+
+    @Test
+    public void hedges_are_capped_by_the_budget() {
+        HttpMetrics metrics = new HttpMetrics();
+        int hedges = 0;
+        for (int i = 0; i < 100; i++) {
+            metrics.recordHedgeableRequest();
+            if (metrics.tryAcquireHedge(0.1)) hedges++;
+        }
+
+        assertEquals(10, hedges);
+    }
+}
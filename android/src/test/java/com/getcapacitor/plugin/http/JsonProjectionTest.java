@@ -0,0 +1,55 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import org.junit.Test;
+
+public class JsonProjectionTest {
+
+    @Test
+    public void parses_dot_and_bracket_steps() {
+        List<JsonProjection.Step> steps = JsonProjection.parse("$.items[*].tags[2]['display name']");
+
+        assertEquals(5, steps.size());
+        assertEquals("items", steps.get(0).name);
+        assertSame(JsonProjection.Step.ANY, steps.get(1));
+        assertEquals("tags", steps.get(2).name);
+        assertEquals(2, steps.get(3).index);
+        assertEquals("display name", steps.get(4).name);
+    }
+
+    @Test
+    public void root_selects_the_whole_document() {
+        assertTrue(JsonProjection.parse("$").isEmpty());
+    }
+
+    @Test
+    public void steps_match_members_or_elements() {
+        JsonProjection.Step name = JsonProjection.Step.name("id");
+        JsonProjection.Step index = JsonProjection.Step.index(0);
+
+        assertTrue(name.matches("id", -1));
+        assertFalse(name.matches("ids", -1));
+        assertFalse(name.matches(null, 0));
+        assertTrue(index.matches(null, 0));
+        assertFalse(index.matches(null, 1));
+        assertFalse(index.matches("0", -1));
+        assertTrue(JsonProjection.Step.ANY.matches("anything", -1));
+        assertTrue(JsonProjection.Step.ANY.matches(null, 7));
+    }
+
+    @Test
+    public void rejects_malformed_expressions() {
+        String[] malformed = { "items", "$.", "$..items", "$[", "$[-1]", "$[abc]", "$['open]", "$items" };
+        for (String expression : malformed) {
+            try {
+                JsonProjection.parse(expression);
+                throw new AssertionError("Expected " + expression + " to be rejected");
+            } catch (IllegalArgumentException expected) {}
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void empty_histogram_reports_zero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(99));
+        assertEquals(0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void bucket_bounds_are_contiguous() {
+        for (long value = 0; value < 100000; value++) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.upperBoundOf(index));
+            assertTrue(index == 0 || value > LatencyHistogram.upperBoundOf(index - 1));
+        }
+    }
+
+    @Test
+    public void percentiles_are_within_bucket_precision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertEquals(10000, histogram.getCount());
+        assertEquals(5000000, histogram.getPercentile(50), 5000000 * 0.125);
+        assertEquals(9500000, histogram.getPercentile(95), 9500000 * 0.125);
+        assertEquals(9900000, histogram.getPercentile(99), 9900000 * 0.125);
+        assertEquals(10000000, histogram.getPercentile(100));
+        assertEquals(5000500, histogram.getMean(), 1);
+    }
+
+    @Test
+    public void huge_values_are_clamped_to_last_bucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE / 2);
+
+        assertEquals(Long.MAX_VALUE / 2, histogram.getPercentile(50));
+    }
+
+    @Test
+    public void reset_clears_recorded_values() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+    }
+}
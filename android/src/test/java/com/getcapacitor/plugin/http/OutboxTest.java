@@ -0,0 +1,253 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.getcapacitor.JSObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class OutboxTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(
+            "/",
+            new HttpHandler() {
+                @Override
+                public void handle(HttpExchange exchange) throws IOException {
+                    received.add(new String(readFully(exchange.getRequestBody()), StandardCharsets.UTF_8));
+                    exchange.sendResponseHeaders(204, -1);
+                    exchange.close();
+                }
+            }
+        );
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Posts the queued request to the local server, failing like an unreachable server while
+     * {@link #failuresLeft} is positive
+     */
+    private Outbox.Sender sender() {
+        return new Outbox.Sender() {
+            @Override
+            public JSObject send(Outbox.Entry entry) throws IOException {
+                if (failuresLeft.getAndDecrement() > 0) throw new ConnectException("Connection refused");
+
+                URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                connection.setRequestMethod("POST");
+                connection.setDoOutput(true);
+                OutputStream out = connection.getOutputStream();
+                out.write(entry.getRequest().getBytes(StandardCharsets.UTF_8));
+                out.close();
+                connection.getResponseCode();
+                connection.disconnect();
+                return new JSObject();
+            }
+        };
+    }
+
+    private static Outbox.Listener countDown(final CountDownLatch latch) {
+        return new Outbox.Listener() {
+            @Override
+            public void onResult(Outbox.Entry entry, JSObject response, Exception error) {
+                latch.countDown();
+            }
+        };
+    }
+
+    @Test
+    public void requests_queued_offline_are_replayed_in_order_once_online() throws Exception {
+        SimulatedConnectivitySource connectivity = new SimulatedConnectivitySource(false);
+        CountDownLatch results = new CountDownLatch(3);
+        Outbox outbox = new Outbox(folder.getRoot(), connectivity, sender(), countDown(results), 1);
+
+        outbox.enqueue("{\"n\":1}");
+        outbox.enqueue("{\"n\":2}");
+        outbox.enqueue("{\"n\":3}");
+        assertTrue(received.isEmpty());
+
+        connectivity.setOnline(true);
+
+        assertTrue(results.await(5, TimeUnit.SECONDS));
+        assertEquals(3, received.size());
+        assertEquals("{\"n\":1}", received.get(0));
+        assertEquals("{\"n\":2}", received.get(1));
+        assertEquals("{\"n\":3}", received.get(2));
+        assertTrue(outbox.isEmpty());
+    }
+
+    @Test
+    public void queued_requests_survive_a_restart() throws Exception {
+        SimulatedConnectivitySource connectivity = new SimulatedConnectivitySource(false);
+        Outbox outbox = new Outbox(folder.getRoot(), connectivity, sender(), countDown(new CountDownLatch(0)), 1);
+        Outbox.Entry first = outbox.enqueue("{\"n\":1}");
+        outbox.enqueue("{\"n\":2}");
+        outbox.remove(first.getId());
+
+        Outbox reopened = new Outbox(folder.getRoot(), new SimulatedConnectivitySource(false), sender(), countDown(new CountDownLatch(0)), 1);
+
+        assertEquals(1, reopened.getEntries().size());
+        assertEquals("{\"n\":2}", reopened.getEntries().get(0).getRequest());
+    }
+
+    @Test
+    public void record_cut_short_by_a_crash_is_discarded() throws Exception {
+        File log = new File(folder.getRoot(), Outbox.LOG_FILE);
+        FileOutputStream out = new FileOutputStream(log);
+        out.write("+\ta\t1\t{\"n\":1}\n+\tb\t2\t{\"n\"".getBytes(StandardCharsets.UTF_8));
+        out.close();
+
+        Outbox outbox = new Outbox(folder.getRoot(), new SimulatedConnectivitySource(false), sender(), countDown(new CountDownLatch(0)), 1);
+        outbox.enqueue("{\"n\":3}");
+
+        Outbox reopened = new Outbox(folder.getRoot(), new SimulatedConnectivitySource(false), sender(), countDown(new CountDownLatch(0)), 1);
+        assertEquals(2, reopened.getEntries().size());
+        assertEquals("a", reopened.getEntries().get(0).getId());
+        assertEquals("{\"n\":3}", reopened.getEntries().get(1).getRequest());
+    }
+
+    @Test
+    public void request_failing_before_it_was_sent_stays_queued() throws Exception {
+        SimulatedConnectivitySource connectivity = new SimulatedConnectivitySource(true);
+        CountDownLatch results = new CountDownLatch(1);
+        failuresLeft.set(1);
+        Outbox outbox = new Outbox(folder.getRoot(), connectivity, sender(), countDown(results), 1);
+
+        outbox.enqueue("{\"n\":1}");
+
+        assertFalse(results.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, outbox.getEntries().size());
+        assertEquals(1, outbox.getEntries().get(0).getAttempts());
+
+        outbox.replay();
+        assertTrue(results.await(5, TimeUnit.SECONDS));
+        assertEquals(1, received.size());
+        assertTrue(outbox.isEmpty());
+    }
+
+    @Test
+    public void request_that_may_have_reached_the_server_is_not_sent_again() throws Exception {
+        final List<Exception> errors = Collections.synchronizedList(new ArrayList<Exception>());
+        final AtomicInteger attempts = new AtomicInteger();
+        final CountDownLatch results = new CountDownLatch(1);
+        Outbox outbox = new Outbox(
+            folder.getRoot(),
+            new SimulatedConnectivitySource(true),
+            new Outbox.Sender() {
+                @Override
+                public JSObject send(Outbox.Entry entry) throws IOException {
+                    attempts.incrementAndGet();
+                    throw new SocketTimeoutException("Read timed out");
+                }
+            },
+            new Outbox.Listener() {
+                @Override
+                public void onResult(Outbox.Entry entry, JSObject response, Exception error) {
+                    errors.add(error);
+                    results.countDown();
+                }
+            },
+            1
+        );
+
+        outbox.enqueue("{}");
+
+        assertTrue(results.await(5, TimeUnit.SECONDS));
+        assertTrue(errors.get(0) instanceof SocketTimeoutException);
+        assertTrue(outbox.isEmpty());
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void only_failures_before_sending_are_unsent() {
+        assertTrue(Outbox.isUnsent(new ConnectException()));
+        assertTrue(Outbox.isUnsent(new UnknownHostException()));
+        assertTrue(Outbox.isUnsent(new RequestAbortedException(RequestAbortedException.CIRCUIT_OPEN, "Open")));
+        assertFalse(Outbox.isUnsent(new SocketTimeoutException()));
+        assertFalse(Outbox.isUnsent(new IOException("unexpected end of stream")));
+        assertFalse(Outbox.isUnsent(new RequestAbortedException(RequestAbortedException.TIMEOUT, "Timed out")));
+        assertFalse(Outbox.isUnsent(new RequestAbortedException(RequestAbortedException.CANCELLED, "Cancelled")));
+    }
+
+    @Test
+    public void request_that_can_never_succeed_is_dropped() throws Exception {
+        final List<Exception> errors = Collections.synchronizedList(new ArrayList<Exception>());
+        final CountDownLatch results = new CountDownLatch(1);
+        Outbox outbox = new Outbox(
+            folder.getRoot(),
+            new SimulatedConnectivitySource(true),
+            new Outbox.Sender() {
+                @Override
+                public JSObject send(Outbox.Entry entry) {
+                    throw new IllegalArgumentException("Invalid request");
+                }
+            },
+            new Outbox.Listener() {
+                @Override
+                public void onResult(Outbox.Entry entry, JSObject response, Exception error) {
+                    if (response == null) errors.add(error);
+                    results.countDown();
+                }
+            },
+            1
+        );
+
+        outbox.enqueue("{}");
+
+        assertTrue(results.await(5, TimeUnit.SECONDS));
+        assertEquals(1, errors.size());
+        assertTrue(outbox.isEmpty());
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int count;
+        while ((count = in.read(buffer)) > 0) {
+            out.write(buffer, 0, count);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,92 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class ResponseStreamTest {
+
+    @Test
+    public void charset_comes_from_content_type() {
+        assertEquals(StandardCharsets.ISO_8859_1, ResponseStream.getCharset("text/plain; charset=ISO-8859-1"));
+        assertEquals(StandardCharsets.UTF_16, ResponseStream.getCharset("text/plain;Charset=\"utf-16\""));
+    }
+
+    @Test
+    public void charset_defaults_to_utf8() {
+        assertEquals(StandardCharsets.UTF_8, ResponseStream.getCharset(null));
+        assertEquals(StandardCharsets.UTF_8, ResponseStream.getCharset("text/plain"));
+        assertEquals(StandardCharsets.UTF_8, ResponseStream.getCharset("text/plain; charset=not-a-charset"));
+    }
+
+    @Test
+    public void only_open_streams_can_be_acknowledged() {
+        ResponseStream stream = new ResponseStream("stream-1", 2);
+        assertFalse(ResponseStream.ack("stream-1", 1));
+
+        stream.open();
+        try {
+            assertTrue(ResponseStream.ack("stream-1", 1));
+        } finally {
+            stream.close();
+        }
+        assertFalse(ResponseStream.ack("stream-1", 1));
+    }
+
+    private static List<String> chunks(String text, int chunkSize) throws IOException {
+        ResponseStream.TextChunks chunks = new ResponseStream.TextChunks(new StringReader(text), chunkSize);
+        List<String> result = new ArrayList<>();
+        String chunk;
+        while ((chunk = chunks.next()) != null) {
+            result.add(chunk);
+        }
+        return result;
+    }
+
+    @Test
+    public void text_is_split_into_chunks_of_the_given_size() throws IOException {
+        List<String> chunks = chunks("abcdefg", 3);
+        assertEquals(3, chunks.size());
+        assertEquals("abc", chunks.get(0));
+        assertEquals("g", chunks.get(2));
+    }
+
+    @Test
+    public void surrogate_pairs_are_never_split_across_chunks() throws IOException {
+        String text = "ab\uD83D\uDE00c\uD83D\uDE01";
+        for (int chunkSize = 1; chunkSize <= 4; chunkSize++) {
+            StringBuilder joined = new StringBuilder();
+            for (String chunk : chunks(text, chunkSize)) {
+                assertFalse(Character.isHighSurrogate(chunk.charAt(chunk.length() - 1)));
+                assertFalse(Character.isLowSurrogate(chunk.charAt(0)));
+                joined.append(chunk);
+            }
+            assertEquals(text, joined.toString());
+        }
+    }
+
+    @Test
+    public void a_lone_high_surrogate_at_the_end_is_kept() throws IOException {
+        List<String> chunks = chunks("ab\uD83D", 2);
+        assertEquals("ab", chunks.get(0));
+        assertEquals("\uD83D", chunks.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void stream_ids_are_unique_while_open() {
+        ResponseStream stream = new ResponseStream("stream-2", 0);
+        stream.open();
+        try {
+            new ResponseStream("stream-2", 0).open();
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import org.junit.Test;
+
+public class RetryPolicyTest {
+
+    private static RetryPolicy policy(boolean retryNonIdempotent) {
+        return new RetryPolicy(3, 100, 1000, RetryPolicy.DEFAULT_STATUS_CODES, RetryPolicy.DEFAULT_EXCEPTIONS, retryNonIdempotent);
+    }
+
+    @Test
+    public void retryable_status_is_retried_until_max_attempts() {
+        RetryPolicy policy = policy(false);
+
+        assertTrue(policy.getDelay(1, "GET", 503, null) >= 0);
+        assertTrue(policy.getDelay(2, "GET", 503, null) >= 0);
+        assertEquals(-1, policy.getDelay(3, "GET", 503, null));
+        assertEquals(-1, policy.getDelay(1, "GET", 500, null));
+        assertEquals(-1, policy.getDelay(1, "GET", 200, null));
+    }
+
+    @Test
+    public void non_idempotent_methods_need_opt_in() {
+        assertEquals(-1, policy(false).getDelay(1, "POST", 503, null));
+        assertEquals(-1, policy(false).getDelay(1, "PATCH", new ConnectException()));
+        assertTrue(policy(false).getDelay(1, "PUT", 503, null) >= 0);
+        assertTrue(policy(true).getDelay(1, "POST", 503, null) >= 0);
+    }
+
+    @Test
+    public void exceptions_are_matched_by_class_hierarchy() {
+        RetryPolicy policy = policy(false);
+
+        assertTrue(policy.getDelay(1, "GET", new SocketTimeoutException()) >= 0);
+        // ConnectException extends SocketException
+        assertTrue(policy.getDelay(1, "GET", new ConnectException()) >= 0);
+        assertEquals(-1, policy.getDelay(1, "GET", new IOException()));
+        assertEquals(-1, policy.getDelay(1, "GET", new RequestAbortedException(RequestAbortedException.CANCELLED, "")));
+    }
+
+    @Test
+    public void backoff_is_jittered_below_exponential_cap() {
+        RetryPolicy policy = policy(false);
+
+        for (int i = 0; i < 1000; i++) {
+            long first = policy.getBackoff(1);
+            long third = policy.getBackoff(3);
+            long tenth = policy.getBackoff(10);
+            assertTrue(first >= 0 && first < 100);
+            assertTrue(third >= 0 && third < 400);
+            assertTrue(tenth >= 0 && tenth < 1000);
+        }
+    }
+
+    @Test
+    public void retry_after_takes_precedence_up_to_max_delay() {
+        RetryPolicy policy = policy(false);
+
+        assertEquals(0, policy.getDelay(1, "GET", 503, "0"));
+        assertEquals(1000, policy.getDelay(1, "GET", 429, "1"));
+        assertEquals(-1, policy.getDelay(1, "GET", 503, "120"));
+    }
+
+    @Test
+    public void retry_after_is_parsed_as_seconds_or_date() {
+        long now = 784111777000L - 5000;
+
+        assertEquals(30000, RetryPolicy.parseRetryAfter("30", now));
+        assertEquals(5000, RetryPolicy.parseRetryAfter("Sun, 06 Nov 1994 08:49:37 GMT", now));
+        assertEquals(0, RetryPolicy.parseRetryAfter("Sun, 06 Nov 1994 08:49:37 GMT", now + 60000));
+        assertEquals(-1, RetryPolicy.parseRetryAfter("soon", now));
+        assertEquals(-1, RetryPolicy.parseRetryAfter("-1", now));
+        assertEquals(-1, RetryPolicy.parseRetryAfter(null, now));
+    }
+}
@@ -0,0 +1,30 @@
+package com.getcapacitor.plugin.http;
+
+/**
+ * A connectivity source whose state is set by the test
+ */
+class SimulatedConnectivitySource implements ConnectivitySource {
+
+    private volatile boolean online;
+    private volatile Listener listener;
+
+    SimulatedConnectivitySource(boolean online) {
+        this.online = online;
+    }
+
+    void setOnline(boolean online) {
+        this.online = online;
+        Listener listener = this.listener;
+        if (listener != null) listener.onConnectivityChanged(online);
+    }
+
+    @Override
+    public boolean isOnline() {
+        return online;
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+}
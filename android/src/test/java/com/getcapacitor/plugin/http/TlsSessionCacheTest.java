@@ -0,0 +1,35 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import org.junit.Test;
+
+public class TlsSessionCacheTest {
+
+    @Test
+    public void keeps_the_socket_factory_of_the_connection() throws Exception {
+        SSLContext appContext = SSLContext.getInstance("TLS");
+        appContext.init(null, null, null);
+        SSLSocketFactory appFactory = appContext.getSocketFactory();
+        TlsSessionCache cache = new TlsSessionCache(10, 60);
+
+        SSLSocketFactory wrapper = cache.wrap(appFactory);
+
+        assertNotSame(appFactory, wrapper);
+        assertArrayEquals(appFactory.getDefaultCipherSuites(), wrapper.getDefaultCipherSuites());
+        assertSame(wrapper, cache.wrap(appFactory));
+    }
+
+    @Test
+    public void sizes_the_session_cache_of_the_default_context() throws Exception {
+        new TlsSessionCache(10, 60);
+
+        assertEquals(10, SSLContext.getDefault().getClientSessionContext().getSessionCacheSize());
+        assertEquals(60, SSLContext.getDefault().getClientSessionContext().getSessionTimeout());
+    }
+}
@@ -0,0 +1,61 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void burst_goes_through_without_waiting() {
+        TokenBucket bucket = new TokenBucket("example.com", 2, 3, 5000, 0);
+
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+    }
+
+    @Test
+    public void excess_requests_wait_in_order() {
+        TokenBucket bucket = new TokenBucket("example.com", 2, 1, 5000, 0);
+
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(SECOND / 2, bucket.reserve(0));
+        assertEquals(SECOND, bucket.reserve(0));
+    }
+
+    @Test
+    public void bucket_refills_over_time() {
+        TokenBucket bucket = new TokenBucket("example.com", 2, 1, 5000, 0);
+
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(SECOND / 2));
+        // never refills beyond the burst
+        assertEquals(0, bucket.reserve(10 * SECOND));
+        assertEquals(SECOND / 2, bucket.reserve(10 * SECOND));
+    }
+
+    @Test
+    public void requests_beyond_max_wait_are_rejected_without_a_token() {
+        TokenBucket bucket = new TokenBucket("example.com", 1, 1, 1000, 0);
+
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(SECOND, bucket.reserve(0));
+        assertEquals(-1, bucket.reserve(0));
+        assertEquals(SECOND, bucket.reserve(SECOND));
+    }
+
+    @Test
+    public void refunded_tokens_shorten_the_wait() {
+        TokenBucket bucket = new TokenBucket("example.com", 1, 1, 5000, 0);
+
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(SECOND, bucket.reserve(0));
+        bucket.refund(0);
+
+        assertEquals(SECOND, bucket.reserve(0));
+    }
+}
@@ -0,0 +1,66 @@
+package com.getcapacitor.plugin.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TraceContextTest {
+
+    private static final String TRACEPARENT = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    @Test
+    public void child_continues_the_parent_trace() {
+        TraceContext context = TraceContext.childOf(TRACEPARENT, "vendor=value");
+
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", context.traceId);
+        assertEquals("00f067aa0ba902b7", context.parentSpanId);
+        assertNotEquals("00f067aa0ba902b7", context.spanId);
+        assertTrue(context.sampled);
+        assertEquals("vendor=value", context.traceState);
+        assertTrue(context.toTraceparent().startsWith("00-4bf92f3577b34da6a3ce929d0e0e4736-"));
+        assertTrue(context.toTraceparent().endsWith("-01"));
+    }
+
+    @Test
+    public void child_keeps_the_sampling_decision() {
+        TraceContext context = TraceContext.childOf("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00", null);
+
+        assertFalse(context.sampled);
+        assertTrue(context.toTraceparent().endsWith("-00"));
+    }
+
+    @Test
+    public void malformed_headers_are_ignored() {
+        assertNull(TraceContext.childOf(null, null));
+        assertNull(TraceContext.childOf("garbage", null));
+        assertNull(TraceContext.childOf("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7", null));
+        assertNull(TraceContext.childOf("00-00000000000000000000000000000000-00f067aa0ba902b7-01", null));
+        assertNull(TraceContext.childOf("00-4bf92f3577b34da6a3ce929d0e0e4736-0000000000000000-01", null));
+        assertNull(TraceContext.childOf("ff-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01", null));
+        assertNull(TraceContext.childOf("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01-extra", null));
+        assertNull(TraceContext.childOf("00-4bf92f3577b34da6a3ce929d0e0e473g-00f067aa0ba902b7-01", null));
+    }
+
+    @Test
+    public void future_versions_may_append_fields() {
+        TraceContext context = TraceContext.childOf("01-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01-extra", null);
+
+        assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", context.traceId);
+        assertTrue(context.toTraceparent().startsWith("00-"));
+    }
+
+    @Test
+    public void root_has_valid_random_ids() {
+        TraceContext context = TraceContext.newRoot(true, null);
+
+        assertNull(context.parentSpanId);
+        assertEquals(32, context.traceId.length());
+        assertEquals(16, context.spanId.length());
+        assertEquals(context.spanId, TraceContext.childOf(context.toTraceparent(), null).parentSpanId);
+        assertNotEquals(context.traceId, TraceContext.newRoot(true, null).traceId);
+    }
+}
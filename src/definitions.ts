@@ -3,6 +3,8 @@ import { Directory } from '@capacitor/filesystem';
 
 type HttpResponseType = 'arraybuffer' | 'blob' | 'json' | 'text' | 'document';
 
+type HttpCookiePolicy = 'readWrite' | 'readOnly' | 'writeOnly' | 'none';
+
 export interface HttpPlugin {
   request(options: HttpOptions): Promise<HttpResponse>;
   get(options: HttpOptions): Promise<HttpResponse>;
@@ -12,12 +14,61 @@ export interface HttpPlugin {
   del(options: HttpOptions): Promise<HttpResponse>;
 
   setCookie(options: HttpSetCookieOptions): Promise<void>;
+  setCookies(options: HttpSetCookiesOptions): Promise<void>;
   getCookie(options: HttpSingleCookieOptions): Promise<HttpCookie>;
   getCookies(options: HttpMultiCookiesOptions): Promise<HttpGetCookiesResult>;
   getCookiesMap(options: HttpMultiCookiesOptions): Promise<HttpCookieMap>;
   clearCookies(options: HttpMultiCookiesOptions): Promise<void>;
   clearAllCookies(): Promise<void>;
   deleteCookie(options: HttpSingleCookieOptions): Promise<void>;
+  deleteCookies(options: HttpDeleteCookiesOptions): Promise<void>;
+  exportCookies(options: HttpExportCookiesOptions): Promise<HttpCookieSnapshot>;
+  importCookies(options: HttpCookieSnapshot): Promise<void>;
+  flushCookies(): Promise<void>;
+
+  getTlsSessionStats(): Promise<HttpTlsSessionStats>;
+  getMetrics(): Promise<HttpMetrics>;
+  resetMetrics(): Promise<void>;
+
+  startHarRecording(options?: HttpHarRecordingOptions): Promise<void>;
+  stopHarRecording(): Promise<void>;
+  clearHar(): Promise<void>;
+  exportHar(options?: HttpExportHarOptions): Promise<HttpExportHarResult>;
+
+  flushSpans(): Promise<HttpFlushSpansResult>;
+
+  cancel(options: HttpCancelOptions): Promise<HttpCancelResult>;
+  cancelAll(options?: HttpCancelAllOptions): Promise<HttpCancelAllResult>;
+  ackStream(options: HttpAckStreamOptions): Promise<HttpAckStreamResult>;
+
+  openEventSource(
+    options: HttpEventSourceOptions,
+  ): Promise<HttpOpenEventSourceResult>;
+  closeEventSource(
+    options: HttpCloseEventSourceOptions,
+  ): Promise<HttpCloseEventSourceResult>;
+
+  getCircuitBreakers(): Promise<HttpCircuitBreakers>;
+  resetCircuitBreakers(options?: HttpResetCircuitBreakersOptions): Promise<void>;
+  getRateLimits(): Promise<HttpRateLimits>;
+
+  getOutbox(): Promise<HttpOutbox>;
+  removeFromOutbox(
+    options: HttpRemoveFromOutboxOptions,
+  ): Promise<HttpRemoveFromOutboxResult>;
+  replayOutbox(): Promise<void>;
+
+  enqueueDownload(
+    options: HttpDownloadFileOptions,
+  ): Promise<HttpEnqueueDownloadResult>;
+  pauseDownload(options: HttpDownloadIdOptions): Promise<HttpPauseDownloadResult>;
+  resumeDownload(
+    options: HttpDownloadIdOptions,
+  ): Promise<HttpResumeDownloadResult>;
+  cancelDownload(
+    options: HttpDownloadIdOptions,
+  ): Promise<HttpCancelDownloadResult>;
+  getDownloads(): Promise<HttpDownloads>;
 
   uploadFile(options: HttpUploadFileOptions): Promise<HttpUploadFileResult>;
   downloadFile(
@@ -29,6 +80,51 @@ export interface HttpPlugin {
     listenerFunc: HttpProgressListener,
   ): Promise<PluginListenerHandle> & PluginListenerHandle;
 
+  addListener(
+    eventName: 'slowRequest',
+    listenerFunc: HttpSlowRequestListener,
+  ): Promise<PluginListenerHandle> & PluginListenerHandle;
+
+  addListener(
+    eventName: 'outboxResult',
+    listenerFunc: HttpOutboxResultListener,
+  ): Promise<PluginListenerHandle> & PluginListenerHandle;
+
+  addListener(
+    eventName: 'downloadState',
+    listenerFunc: HttpDownloadStateListener,
+  ): Promise<PluginListenerHandle> & PluginListenerHandle;
+
+  addListener(
+    eventName: 'downloadProgress',
+    listenerFunc: HttpDownloadProgressListener,
+  ): Promise<PluginListenerHandle> & PluginListenerHandle;
+
+  addListener(
+    eventName: 'data',
+    listenerFunc: HttpStreamDataListener,
+  ): Promise<PluginListenerHandle> & PluginListenerHandle;
+
+  addListener(
+    eventName: 'page',
+    listenerFunc: HttpStreamPageListener,
+  ): Promise<PluginListenerHandle> & PluginListenerHandle;
+
+  addListener(
+    eventName: 'end',
+    listenerFunc: HttpStreamEndListener,
+  ): Promise<PluginListenerHandle> & PluginListenerHandle;
+
+  addListener(
+    eventName: 'eventSourceMessages',
+    listenerFunc: HttpEventSourceMessagesListener,
+  ): Promise<PluginListenerHandle> & PluginListenerHandle;
+
+  addListener(
+    eventName: 'eventSourceState',
+    listenerFunc: HttpEventSourceStateListener,
+  ): Promise<PluginListenerHandle> & PluginListenerHandle;
+
   removeAllListeners(): Promise<void>;
 }
 
@@ -47,6 +143,13 @@ export interface HttpOptions {
    * How long to wait for the initial connection.
    */
   connectTimeout?: number;
+  /**
+   * The most time the whole request may take, in milliseconds, including the
+   * connection, the upload and reading the full response body. Unlike
+   * `readTimeout`, it isn't reset as data arrives. An expired request is
+   * aborted and rejected with the `REQUEST_TIMEOUT` error code. Native only.
+   */
+  timeout?: number;
   /**
    * Sets whether automatic HTTP redirects should be disabled
    */
@@ -65,6 +168,153 @@ export interface HttpOptions {
    * (already encoded, azure/firebase testing, etc.). The default is _true_.
    */
   shouldEncodeUrlParams?: boolean;
+  /**
+   * Whether stored cookies are sent with the request (read) and whether cookies
+   * set by the response are stored (write). Skipping cookie handling saves a
+   * cookie jar lookup on stateless calls. Defaults to the `cookiePolicyByHost`
+   * plugin config for the request host, or _readWrite_. Native only.
+   */
+  cookiePolicy?: HttpCookiePolicy;
+  /**
+   * Include a phase-by-phase timing breakdown of the request in the
+   * response. Native only.
+   */
+  timings?: boolean;
+  /**
+   * An id to cancel the request with through `cancel()`. Must be unique among
+   * in-flight requests. Native only.
+   */
+  requestId?: string;
+  /**
+   * A tag to cancel this request together with others through `cancelAll()`.
+   * Native only.
+   */
+  tag?: string;
+  /**
+   * Retries failed attempts of `request()` and its shorthands, overriding
+   * the `retry` plugin config. Native only.
+   */
+  retry?: HttpRetryOptions;
+  /**
+   * Hedges slow GET, HEAD and OPTIONS requests made with `request()` and its
+   * shorthands, overriding the `hedge` plugin config. Native only.
+   */
+  hedge?: HttpHedgeOptions;
+  /**
+   * Queues POST, PUT, PATCH and DELETE requests in a persistent outbox when
+   * they can't be sent, to be replayed in order once the device is back
+   * online. Their results are delivered through the `outboxResult` event.
+   * Queued requests are stored unencrypted, headers included. Native only.
+   */
+  outbox?: boolean;
+  /**
+   * Resolves as soon as the status and headers arrive, without `data`. The
+   * body is then emitted in `data` events as it arrives, followed by an `end`
+   * event, all carrying the response's `streamId`. Text bodies are decoded
+   * with the charset of the response, and _arraybuffer_ and _blob_ bodies are
+   * sent as base64. Streamed requests aren't retried or hedged. Native only.
+   */
+  stream?: boolean;
+  /**
+   * The max number of characters, or bytes for base64 bodies, per `data`
+   * event of a streamed response. Defaults to _65536_.
+   */
+  chunkSize?: number;
+  /**
+   * Pauses reading a streamed response once this many `data` or `page` events
+   * are waiting to be acknowledged with `ackStream()`, letting the server
+   * slow down instead of the body piling up in memory. Defaults to _0_, which
+   * never pauses.
+   */
+  maxPendingChunks?: number;
+  /**
+   * Streams the elements of a large JSON array in `page` events instead of
+   * returning them in `data`, followed by an `end` event. The request
+   * resolves with the status and headers and a `streamId`, like with
+   * `stream`, and only one page is held in memory at a time. Members outside
+   * of the array are skipped, and error responses are returned whole in
+   * `data`. Native only.
+   */
+  pages?: HttpPagesOptions;
+  /**
+   * JSONPath-like expressions selecting the parts of a JSON response to
+   * return, such as `$.items[*].id`. The response is then read with a
+   * streaming parser that only builds the selected values, and `data` maps
+   * each expression to its matches in document order. Supports `.name`,
+   * `['name']`, `[n]`, `.*` and `[*]` steps. Error responses are returned
+   * whole. Native only.
+   */
+  select?: string[];
+}
+
+export interface HttpPagesOptions {
+  /**
+   * The path of the array, such as `$.items` or `$.data[0].rows`, without
+   * wildcards. Defaults to _$_, the root of the response.
+   */
+  path?: string;
+  /**
+   * The max number of elements per `page` event. Defaults to _1000_.
+   */
+  size?: number;
+}
+
+export interface HttpRetryOptions {
+  /**
+   * The total number of attempts. The default of _1_ turns retries off.
+   */
+  maxAttempts?: number;
+  /**
+   * The upper bound of the random delay before the first retry, in
+   * milliseconds, doubled for each further retry. Defaults to _250_.
+   */
+  baseDelay?: number;
+  /**
+   * The upper bound of any delay, in milliseconds. A response with a longer
+   * `Retry-After` is returned instead of retried. Defaults to _10000_.
+   */
+  maxDelay?: number;
+  /**
+   * Defaults to _[408, 429, 502, 503, 504]_
+   */
+  statusCodes?: number[];
+  /**
+   * Java exception class names, matching subclasses too. Defaults to
+   * _['SocketTimeoutException', 'SocketException', 'UnknownHostException']_.
+   */
+  exceptions?: string[];
+  /**
+   * Whether to retry methods that aren't idempotent, such as POST and PATCH.
+   * Defaults to _false_.
+   */
+  retryNonIdempotent?: boolean;
+}
+
+export interface HttpHedgeOptions {
+  /**
+   * The number of hedges each attempt may send. The default of _0_ turns
+   * hedging off.
+   */
+  maxHedges?: number;
+  /**
+   * How long to wait for the response headers before sending a hedge, in
+   * milliseconds. Defaults to the `percentile` of the time the endpoint takes
+   * to respond, once it responded at least 20 times.
+   */
+  delay?: number;
+  /**
+   * Defaults to _95_
+   */
+  percentile?: number;
+  /**
+   * The lower bound of the adaptive delay, in milliseconds. Defaults to _10_.
+   */
+  minDelay?: number;
+  /**
+   * The share of hedgeable requests that may be hedged, across all requests.
+   * Defaults to _0.1_.
+   */
+  budget?: number;
 }
 
 export interface HttpParams {
@@ -80,6 +330,79 @@ export interface HttpResponse {
   status: number;
   headers: HttpHeaders;
   url: string;
+  /**
+   * Present when the request was made with the `timings` option
+   */
+  timings?: HttpTimings;
+  /**
+   * The number of attempts made, including retries. Native only.
+   */
+  attempts?: number;
+  /**
+   * The number of hedges sent, when hedging applies to the request. Native
+   * only.
+   */
+  hedges?: number;
+  /**
+   * Present when the request was queued in the outbox instead of being sent,
+   * in which case the status is _0_
+   */
+  outboxId?: string;
+  /**
+   * The id of the `data` and `end` events of a streamed response, which is
+   * the `requestId` if one was given
+   */
+  streamId?: string;
+}
+
+/**
+ * Durations are in milliseconds. Phases that didn't happen, such as the TLS
+ * handshake on a reused connection, are left out.
+ */
+export interface HttpTimings {
+  /**
+   * When the request started, in milliseconds since the epoch
+   */
+  startTime: number;
+  /**
+   * When each phase ended, in milliseconds since `startTime`
+   */
+  marks: {
+    connectEnd?: number;
+    tlsEnd?: number;
+    requestSent?: number;
+    responseStart?: number;
+    responseEnd?: number;
+  };
+  /**
+   * Time to open a new connection, including the DNS lookup
+   */
+  connect?: number;
+  tls?: number;
+  /**
+   * Time from connection setup until the request was handed off, including
+   * the upload of the request body
+   */
+  send?: number;
+  /**
+   * Time from the request being sent until the response headers arrived
+   */
+  wait?: number;
+  /**
+   * Time from the start of the request until the response headers arrived
+   */
+  ttfb?: number;
+  /**
+   * Time spent transferring the response body
+   */
+  receive?: number;
+  total: number;
+  requestBodySize: number;
+  responseBodySize: number;
+  /**
+   * Whether an existing connection was reused. Only reported for HTTPS.
+   */
+  connectionReused?: boolean;
 }
 
 export interface HttpDownloadFileOptions extends HttpOptions {
@@ -99,6 +422,79 @@ export interface HttpDownloadFileOptions extends HttpOptions {
    * If this option is used, progress event should be dispatched on every chunk received
    */
   progress?: Boolean;
+  /**
+   * Extracts the download, a zip, tar or gzipped tar archive, into the
+   * directory at `filePath` while it downloads, instead of saving it. With
+   * `progress`, an _EXTRACT_ progress event is emitted for every extracted
+   * file. Entries that would land outside of the directory reject the call
+   * with the `ARCHIVE_REJECTED` error code, as do archives exceeding the
+   * limits. Files are extracted next to the directory and only moved into
+   * it, replacing files of the same name, once the whole download succeeded,
+   * so a failed download leaves the directory as it was. Android only.
+   */
+  extract?: HttpExtractOptions;
+  /**
+   * Computes a digest of the download while it is written, returned in hex
+   * as `digest`. It is compared to `expected` or, when omitted, to the one
+   * announced by the `Content-Digest`, `Repr-Digest`, `Digest` or
+   * `Content-MD5` response header. The request then asks for an uncompressed
+   * body with `Accept-Encoding: identity`, unless `headers` set
+   * `Accept-Encoding`. On a mismatch the call is rejected with the
+   * `DIGEST_MISMATCH` error code and nothing is left at `filePath`.
+   * Android only.
+   */
+  digest?: HttpDownloadDigestOptions;
+  /**
+   * Stores the `ETag` and `Last-Modified` of the response next to the file,
+   * and sends them as `If-None-Match` and `If-Modified-Since` the next time
+   * the same URL is downloaded to it. When the server answers 304, the file
+   * is left as it is and the result has `notModified` set. Android only.
+   */
+  conditional?: boolean;
+  /**
+   * Keeps the partial data of a failed or cancelled download, and continues
+   * it with a `Range` request the next time the same URL is downloaded to
+   * the same file, as long as the server still has the same version of it.
+   * Always on for `enqueueDownload()`. Ignored with `extract`. Android only.
+   */
+  resume?: boolean;
+}
+
+export type HttpDigestAlgorithm = 'MD5' | 'SHA-1' | 'SHA-256';
+
+export interface HttpDownloadDigestOptions {
+  algorithm: HttpDigestAlgorithm;
+  /**
+   * The expected digest, in hex or base64
+   */
+  expected?: string;
+}
+
+export interface HttpUploadDigestOptions {
+  algorithm: HttpDigestAlgorithm;
+  /**
+   * The form field the digest is sent in. Defaults to _digest_.
+   */
+  field?: string;
+}
+
+export interface HttpExtractOptions {
+  /**
+   * Detected from the first bytes of the download when omitted
+   */
+  format?: 'zip' | 'tar' | 'tgz';
+  /**
+   * The max number of entries in the archive. Defaults to _10000_.
+   */
+  maxEntries?: number;
+  /**
+   * The max size of an extracted file in bytes. Defaults to `maxTotalSize`.
+   */
+  maxEntrySize?: number;
+  /**
+   * The max total size of the extracted files in bytes. Defaults to 1 GiB.
+   */
+  maxTotalSize?: number;
 }
 
 export interface HttpUploadFileOptions extends HttpOptions {
@@ -124,6 +520,12 @@ export interface HttpUploadFileOptions extends HttpOptions {
    * If this option is used, filePath can be a relative path rather than absolute
    */
   fileDirectory?: Directory;
+  /**
+   * Computes a digest of the file while it is uploaded, returned in hex as
+   * `digest`. Request headers are sent before the body, so the digest is
+   * sent as a form field following the file. Android only.
+   */
+  digest?: HttpUploadDigestOptions;
 }
 
 export interface HttpCookie {
@@ -154,6 +556,43 @@ export interface HttpSetCookieOptions {
   expires?: string;
 }
 
+export interface HttpCookieEntry {
+  key: string;
+  value: string;
+  path?: string;
+  expires?: string;
+}
+
+export interface HttpSetCookiesOptions {
+  url: string;
+  /**
+   * The cookies to set. They are persisted together in a single step.
+   */
+  cookies: HttpCookieEntry[];
+}
+
+export interface HttpDeleteCookiesOptions {
+  url: string;
+  /**
+   * The keys of the cookies to delete. They are persisted together in a single step.
+   */
+  keys: string[];
+}
+
+export interface HttpExportCookiesOptions {
+  /**
+   * The URLs whose cookies should be included in the snapshot
+   */
+  urls: string[];
+}
+
+export interface HttpCookieSnapshot {
+  /**
+   * The cookies of each URL, keyed by URL
+   */
+  cookies: { [url: string]: HttpCookieEntry[] };
+}
+
 export interface HttpMultiCookiesOptions {
   url: string;
 }
@@ -167,20 +606,604 @@ export interface HttpGetCookiesResult {
   cookies: HttpCookie[];
 }
 
+export interface HttpTlsSessionStats {
+  /**
+   * The maximum number of TLS sessions kept for resumption
+   */
+  sessionCacheSize: number;
+  /**
+   * How long, in seconds, a cached TLS session can be resumed
+   */
+  sessionTimeout: number;
+}
+
+export interface HttpEndpointMetrics {
+  host: string;
+  method: string;
+  /**
+   * The number of completed requests, successful or not
+   */
+  requests: number;
+  inFlight: number;
+  /**
+   * Requests that failed without a response, such as on connection errors
+   */
+  failures: number;
+  /**
+   * Responses with a 4xx status
+   */
+  clientErrors: number;
+  /**
+   * Responses with a 5xx status
+   */
+  serverErrors: number;
+  /**
+   * The share of requests that failed or received a 5xx status
+   */
+  errorRate: number;
+  bytesIn: number;
+  bytesOut: number;
+  /**
+   * Request latencies in milliseconds. Percentiles are accurate to within 12.5%.
+   */
+  latency: {
+    mean: number;
+    p50: number;
+    p95: number;
+    p99: number;
+    max: number;
+  };
+  /**
+   * Time until the response headers arrived, in milliseconds
+   */
+  timeToHeaders: {
+    p50: number;
+    p95: number;
+    p99: number;
+  };
+}
+
+export interface HttpMetrics {
+  /**
+   * When the metrics were last reset, in milliseconds since the epoch
+   */
+  since: number;
+  /**
+   * Metrics of the requests, downloads and uploads to each host and method
+   */
+  endpoints: HttpEndpointMetrics[];
+  hedging: {
+    /**
+     * The number of request attempts hedging applied to
+     */
+    requests: number;
+    hedges: number;
+    /**
+     * The number of hedges that received a response first
+     */
+    wins: number;
+    /**
+     * The number of hedges not sent because the budget was used up
+     */
+    denied: number;
+  };
+  cookieCache: {
+    hits: number;
+    misses: number;
+    /**
+     * Mean cookie lookup time in milliseconds
+     */
+    averageLookupTime: number;
+  };
+  tls: HttpTlsSessionStats;
+}
+
+export interface HttpHarRecordingOptions {
+  /**
+   * The number of most recent exchanges to keep, older ones are dropped.
+   * Defaults to 500.
+   */
+  maxEntries?: number;
+  /**
+   * The number of characters of each request and response body to record.
+   * Defaults to 0, which records no bodies.
+   */
+  maxBodySize?: number;
+}
+
+export interface HttpExportHarOptions {
+  /**
+   * The name of the HAR file, written to the app's cache directory. It can't
+   * contain a path separator or `..`. Defaults to `http-<timestamp>.har`.
+   */
+  fileName?: string;
+}
+
+export interface HttpExportHarResult {
+  /**
+   * The absolute path of the HAR file
+   */
+  path: string;
+  /**
+   * The number of exchanges written
+   */
+  entries: number;
+}
+
+export interface HttpFlushSpansResult {
+  /**
+   * The directory the OTLP/JSON span files are written to, when tracing is
+   * configured with the default exporter
+   */
+  directory?: string;
+}
+
+export interface HttpCancelOptions {
+  requestId: string;
+}
+
+export interface HttpCancelResult {
+  /**
+   * Whether a request with that id was in flight. A cancelled request is
+   * rejected with the `REQUEST_CANCELLED` error code, and a cancelled download
+   * leaves no partial file behind.
+   */
+  cancelled: boolean;
+}
+
+export interface HttpCancelAllOptions {
+  /**
+   * Only cancel the requests made with this tag. Cancels every in-flight
+   * request when omitted.
+   */
+  tag?: string;
+}
+
+export interface HttpCancelAllResult {
+  /**
+   * The number of requests cancelled
+   */
+  cancelled: number;
+}
+
+export interface HttpAckStreamOptions {
+  streamId: string;
+  /**
+   * The number of `data` or `page` events processed. Defaults to _1_.
+   */
+  count?: number;
+}
+
+export interface HttpAckStreamResult {
+  /**
+   * Whether the stream is still being read
+   */
+  open: boolean;
+}
+
+export interface HttpEventSourceOptions {
+  url: string;
+  headers?: HttpHeaders;
+  params?: HttpParams;
+  shouldEncodeUrlParams?: boolean;
+  connectTimeout?: number;
+  readTimeout?: number;
+  cookiePolicy?: HttpCookiePolicy;
+  /**
+   * A tag to close this event source together with in-flight requests
+   * through `cancelAll()`
+   */
+  tag?: string;
+  /**
+   * An id for the event source, unique among open ones. A random id is used
+   * when omitted.
+   */
+  id?: string;
+  /**
+   * The event id to resume from, sent in the `Last-Event-ID` header of the
+   * first connection
+   */
+  lastEventId?: string;
+  /**
+   * The reconnection time in milliseconds until the server sets one with a
+   * `retry` field. Defaults to _3000_. Connections that fail, or end without
+   * any message, back off exponentially from at least one second.
+   */
+  retry?: number;
+  /**
+   * How long to collect messages before emitting them together, in
+   * milliseconds. _0_ emits every message on its own. Defaults to _100_.
+   */
+  batchInterval?: number;
+}
+
+export interface HttpOpenEventSourceResult {
+  id: string;
+}
+
+export interface HttpCloseEventSourceOptions {
+  id: string;
+}
+
+export interface HttpCloseEventSourceResult {
+  /**
+   * Whether an event source with that id was open
+   */
+  closed: boolean;
+}
+
+export interface HttpCircuitBreakerState {
+  host: string;
+  state: 'closed' | 'open' | 'halfOpen';
+  /**
+   * The number of calls in the window the rates are computed over
+   */
+  calls: number;
+  failureRate: number;
+  slowCallRate: number;
+  /**
+   * The number of calls rejected without touching the network
+   */
+  rejected: number;
+  /**
+   * Milliseconds until trial calls are let through, while open
+   */
+  retryIn?: number;
+}
+
+export interface HttpCircuitBreakers {
+  enabled: boolean;
+  hosts: HttpCircuitBreakerState[];
+}
+
+export interface HttpRateLimitBucket {
+  /**
+   * The host the bucket limits, for host rules
+   */
+  host?: string;
+  /**
+   * The URL prefix the bucket limits, for prefix rules
+   */
+  urlPrefix?: string;
+  /**
+   * Requests per second
+   */
+  rate: number;
+  burst: number;
+  /**
+   * The number of requests that may go ahead right away
+   */
+  available: number;
+  /**
+   * The number of requests waiting for a token
+   */
+  queued: number;
+  granted: number;
+  /**
+   * The number of requests that had to wait for a token
+   */
+  delayed: number;
+  /**
+   * The number of requests rejected because they would have waited too long
+   */
+  rejected: number;
+}
+
+export interface HttpRateLimits {
+  buckets: HttpRateLimitBucket[];
+}
+
+export interface HttpResetCircuitBreakersOptions {
+  /**
+   * The host whose breaker to reset, every host if omitted
+   */
+  host?: string;
+}
+
 export interface HttpDownloadFileResult {
   path?: string;
   blob?: Blob;
+  /**
+   * The number of files extracted, with the `extract` option
+   */
+  files?: number;
+  /**
+   * The total size of the files extracted, with the `extract` option
+   */
+  bytes?: number;
+  /**
+   * The digest of the download in hex, with the `digest` option
+   */
+  digest?: string;
+  /**
+   * Set when the server answered 304 and the file on disk was kept
+   */
+  notModified?: boolean;
+  /**
+   * Present when the download was made with the `timings` option
+   */
+  timings?: HttpTimings;
 }
 
-export interface HttpUploadFileResult extends HttpResponse {}
+export interface HttpUploadFileResult extends HttpResponse {
+  /**
+   * The digest of the uploaded file in hex, with the `digest` option
+   */
+  digest?: string;
+}
 
-export type ProgressType = 'DOWNLOAD' | 'UPLOAD';
+export type ProgressType = 'DOWNLOAD' | 'UPLOAD' | 'EXTRACT';
 
+/**
+ * For _EXTRACT_ events, `bytes` and `contentLength` are the size of the
+ * extracted file
+ */
 export interface ProgressStatus {
   type: ProgressType;
   url: string;
   bytes: number;
   contentLength: number;
+  /**
+   * The name of the extracted file in the archive
+   */
+  entry?: string;
+  /**
+   * The number of files extracted so far
+   */
+  files?: number;
 }
 
 export type HttpProgressListener = (progress: ProgressStatus) => void;
+
+export interface HttpSlowRequestEvent {
+  /**
+   * The `requestId` the request was made with, if any
+   */
+  requestId?: string;
+  url: string;
+  method: string;
+  /**
+   * `slow` when the request took longer than `slowRequestThreshold`,
+   * `stalled` when it transferred no bytes for `stallTimeout`
+   */
+  reason: 'slow' | 'stalled';
+  phase: 'connecting' | 'sending' | 'waiting' | 'receiving';
+  /**
+   * Time since the request started, in milliseconds
+   */
+  elapsed: number;
+  /**
+   * Time since the last byte was sent or received, in milliseconds
+   */
+  idle: number;
+  bytesSent: number;
+  bytesReceived: number;
+  /**
+   * Whether the request was aborted. Aborted requests are rejected with the
+   * `REQUEST_STALLED` error code.
+   */
+  aborted: boolean;
+}
+
+export type HttpSlowRequestListener = (event: HttpSlowRequestEvent) => void;
+
+export interface HttpOutboxEntry {
+  id: string;
+  /**
+   * When the request was queued, in milliseconds since the epoch
+   */
+  createdAt: number;
+  /**
+   * The number of failed attempts to send the request since the app started
+   */
+  attempts: number;
+  url: string;
+  method: string;
+}
+
+export interface HttpOutbox {
+  online: boolean;
+  /**
+   * The queued requests, oldest first
+   */
+  entries: HttpOutboxEntry[];
+}
+
+export interface HttpRemoveFromOutboxOptions {
+  id: string;
+}
+
+export interface HttpRemoveFromOutboxResult {
+  /**
+   * False if the request is not queued or is being sent
+   */
+  removed: boolean;
+}
+
+export interface HttpOutboxResultEvent extends HttpOutboxEntry {
+  /**
+   * The response, whatever its status
+   */
+  response?: HttpResponse;
+  /**
+   * Present when the request was dropped because it can never succeed
+   */
+  error?: string;
+  code?: string;
+}
+
+export type HttpOutboxResultListener = (event: HttpOutboxResultEvent) => void;
+
+export interface HttpEnqueueDownloadResult {
+  id: string;
+}
+
+export interface HttpDownloadIdOptions {
+  id: string;
+}
+
+export interface HttpPauseDownloadResult {
+  /**
+   * False if the download is not queued or running
+   */
+  paused: boolean;
+}
+
+export interface HttpResumeDownloadResult {
+  /**
+   * False if the download is not paused or failed
+   */
+  resumed: boolean;
+}
+
+export interface HttpCancelDownloadResult {
+  /**
+   * False if there is no download with that id
+   */
+  cancelled: boolean;
+}
+
+export type HttpDownloadState =
+  | 'queued'
+  | 'running'
+  | 'paused'
+  | 'completed'
+  | 'failed'
+  | 'cancelled';
+
+export interface HttpDownload {
+  id: string;
+  state: HttpDownloadState;
+  url: string;
+  filePath: string;
+  /**
+   * When the download was queued, in milliseconds since the epoch
+   */
+  createdAt: number;
+  /**
+   * The number of failed attempts since the app started
+   */
+  attempts: number;
+  /**
+   * The bytes downloaded so far since the app started, including resumed
+   * partial data
+   */
+  bytes: number;
+  /**
+   * The total size of the download, 0 until known
+   */
+  contentLength: number;
+  /**
+   * Why the last attempt failed
+   */
+  error?: string;
+  code?: string;
+}
+
+export interface HttpDownloads {
+  online: boolean;
+  /**
+   * The downloads, oldest first. Completed and failed downloads are listed
+   * until they are cancelled.
+   */
+  downloads: HttpDownload[];
+}
+
+export interface HttpDownloadStateEvent extends HttpDownload {
+  /**
+   * The result of a completed download
+   */
+  result?: HttpDownloadFileResult;
+}
+
+export type HttpDownloadStateListener = (event: HttpDownloadStateEvent) => void;
+
+export interface HttpDownloadProgressEvent {
+  id: string;
+  bytes: number;
+  contentLength: number;
+}
+
+export type HttpDownloadProgressListener = (
+  event: HttpDownloadProgressEvent,
+) => void;
+
+export interface HttpStreamDataEvent {
+  streamId: string;
+  /**
+   * The next part of the body, as text or base64
+   */
+  chunk: string;
+}
+
+export type HttpStreamDataListener = (event: HttpStreamDataEvent) => void;
+
+export interface HttpStreamPageEvent {
+  streamId: string;
+  /**
+   * The index of the page, starting at _0_
+   */
+  index: number;
+  items: any[];
+}
+
+export type HttpStreamPageListener = (event: HttpStreamPageEvent) => void;
+
+export interface HttpStreamEndEvent {
+  streamId: string;
+  /**
+   * The number of body bytes received
+   */
+  bytes: number;
+  /**
+   * Present when the body could not be read to its end
+   */
+  error?: string;
+  code?: string;
+}
+
+export type HttpStreamEndListener = (event: HttpStreamEndEvent) => void;
+
+export interface HttpEventSourceMessage {
+  /**
+   * The `event` field of the message, or _message_
+   */
+  type: string;
+  data: string;
+  lastEventId: string;
+}
+
+export interface HttpEventSourceMessagesEvent {
+  id: string;
+  /**
+   * The messages received since the previous event, oldest first
+   */
+  messages: HttpEventSourceMessage[];
+}
+
+export type HttpEventSourceMessagesListener = (
+  event: HttpEventSourceMessagesEvent,
+) => void;
+
+export interface HttpEventSourceStateEvent {
+  id: string;
+  /**
+   * An event source goes back to _connecting_ whenever its stream ends or
+   * fails, and is _closed_ once it stops reconnecting
+   */
+  state: 'connecting' | 'open' | 'closed';
+  /**
+   * The status of the last response
+   */
+  status?: number;
+  /**
+   * Why the event source is reconnecting or was closed. Absent when it was
+   * closed through `closeEventSource()` or by a _204_ response.
+   */
+  error?: string;
+  code?: string;
+}
+
+export type HttpEventSourceStateListener = (
+  event: HttpEventSourceStateEvent,
+) => void;
@@ -8,10 +8,42 @@ import type {
   HttpUploadFileResult,
   HttpCookie,
   HttpCookieMap,
+  HttpCookieSnapshot,
+  HttpDeleteCookiesOptions,
+  HttpExportCookiesOptions,
   HttpGetCookiesResult,
   HttpSetCookieOptions,
+  HttpSetCookiesOptions,
   HttpMultiCookiesOptions,
   HttpSingleCookieOptions,
+  HttpTlsSessionStats,
+  HttpMetrics,
+  HttpHarRecordingOptions,
+  HttpExportHarOptions,
+  HttpExportHarResult,
+  HttpFlushSpansResult,
+  HttpCancelOptions,
+  HttpCancelResult,
+  HttpCancelAllOptions,
+  HttpCancelAllResult,
+  HttpAckStreamOptions,
+  HttpAckStreamResult,
+  HttpEventSourceOptions,
+  HttpOpenEventSourceResult,
+  HttpCloseEventSourceOptions,
+  HttpCloseEventSourceResult,
+  HttpCircuitBreakers,
+  HttpResetCircuitBreakersOptions,
+  HttpRateLimits,
+  HttpOutbox,
+  HttpRemoveFromOutboxOptions,
+  HttpRemoveFromOutboxResult,
+  HttpEnqueueDownloadResult,
+  HttpDownloadIdOptions,
+  HttpPauseDownloadResult,
+  HttpResumeDownloadResult,
+  HttpCancelDownloadResult,
+  HttpDownloads,
   ProgressStatus,
 } from './definitions';
 import { WebPlugin } from '@capacitor/core';
@@ -106,6 +138,16 @@ export class HttpWeb extends WebPlugin implements HttpPlugin {
     Cookie.setCookie(key, value, { expires, path });
   };
 
+  /**
+   * Set several cookies at once
+   * @param options The URL and the cookies to set
+   */
+  public setCookies = async (options: HttpSetCookiesOptions): Promise<void> => {
+    for (const { key, value, expires = '', path = '' } of options.cookies) {
+      Cookie.setCookie(key, value, { expires, path });
+    }
+  };
+
   /**
    * Gets all cookie values unless a key is specified, then return only that value
    * @param key The key of the cookie value to get
@@ -122,6 +164,42 @@ export class HttpWeb extends WebPlugin implements HttpPlugin {
     options: HttpSingleCookieOptions,
   ): Promise<void> => Cookie.deleteCookie(options.key);
 
+  /**
+   * Deletes several cookies at once
+   * @param options The URL and the keys of the cookies to delete
+   */
+  public deleteCookies = async (
+    options: HttpDeleteCookiesOptions,
+  ): Promise<void> => {
+    for (const key of options.keys) {
+      Cookie.deleteCookie(key);
+    }
+  };
+
+  /**
+   * Exports the document cookies for each of the given URLs
+   * @param options The URLs to include in the snapshot
+   */
+  public exportCookies = async (
+    options: HttpExportCookiesOptions,
+  ): Promise<HttpCookieSnapshot> => {
+    const cookies: HttpCookieSnapshot['cookies'] = {};
+    for (const url of options.urls) {
+      cookies[url] = Cookie.getCookies();
+    }
+    return { cookies };
+  };
+
+  /**
+   * Restores cookies from a snapshot created by exportCookies
+   * @param options The snapshot to restore
+   */
+  public importCookies = async (options: HttpCookieSnapshot): Promise<void> => {
+    for (const url of Object.keys(options.cookies)) {
+      await this.setCookies({ url, cookies: options.cookies[url] });
+    }
+  };
+
   /**
    * Clears out cookies by setting them to expire immediately
    */
@@ -135,6 +213,205 @@ export class HttpWeb extends WebPlugin implements HttpPlugin {
    */
   public clearAllCookies = async (): Promise<void> => Cookie.clearCookies();
 
+  /**
+   * Cookies are persisted by the browser, so there is nothing to flush
+   */
+  public flushCookies = async (): Promise<void> => {};
+
+  /**
+   * Requests on the web go through fetch, so no native metrics are collected
+   */
+  public getMetrics = async (): Promise<HttpMetrics> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Requests on the web go through fetch, so no native metrics are collected
+   */
+  public resetMetrics = async (): Promise<void> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Requests on the web are recorded by the browser's developer tools
+   */
+  public startHarRecording = async (
+    _options?: HttpHarRecordingOptions,
+  ): Promise<void> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Requests on the web are recorded by the browser's developer tools
+   */
+  public stopHarRecording = async (): Promise<void> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Requests on the web are recorded by the browser's developer tools
+   */
+  public clearHar = async (): Promise<void> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Requests on the web are recorded by the browser's developer tools
+   */
+  public exportHar = async (
+    _options?: HttpExportHarOptions,
+  ): Promise<HttpExportHarResult> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Requests on the web go through fetch, so no native spans are recorded
+   */
+  public flushSpans = async (): Promise<HttpFlushSpansResult> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Requests on the web can be cancelled with an AbortSignal in `webFetchExtra`
+   */
+  public cancel = async (
+    _options: HttpCancelOptions,
+  ): Promise<HttpCancelResult> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Requests on the web can be cancelled with an AbortSignal in `webFetchExtra`
+   */
+  public cancelAll = async (
+    _options?: HttpCancelAllOptions,
+  ): Promise<HttpCancelAllResult> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Responses on the web are never streamed
+   */
+  public ackStream = async (
+    _options: HttpAckStreamOptions,
+  ): Promise<HttpAckStreamResult> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Use the browser's EventSource on the web
+   */
+  public openEventSource = async (
+    _options: HttpEventSourceOptions,
+  ): Promise<HttpOpenEventSourceResult> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Use the browser's EventSource on the web
+   */
+  public closeEventSource = async (
+    _options: HttpCloseEventSourceOptions,
+  ): Promise<HttpCloseEventSourceResult> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Circuit breakers are only kept for native requests
+   */
+  public getCircuitBreakers = async (): Promise<HttpCircuitBreakers> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Circuit breakers are only kept for native requests
+   */
+  public resetCircuitBreakers = async (
+    _options?: HttpResetCircuitBreakersOptions,
+  ): Promise<void> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Rate limits are only enforced for native requests
+   */
+  public getRateLimits = async (): Promise<HttpRateLimits> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Requests on the web are never queued in the outbox
+   */
+  public getOutbox = async (): Promise<HttpOutbox> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Requests on the web are never queued in the outbox
+   */
+  public removeFromOutbox = async (
+    _options: HttpRemoveFromOutboxOptions,
+  ): Promise<HttpRemoveFromOutboxResult> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Requests on the web are never queued in the outbox
+   */
+  public replayOutbox = async (): Promise<void> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Background downloads need a native download manager
+   */
+  public enqueueDownload = async (
+    _options: HttpDownloadFileOptions,
+  ): Promise<HttpEnqueueDownloadResult> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Background downloads need a native download manager
+   */
+  public pauseDownload = async (
+    _options: HttpDownloadIdOptions,
+  ): Promise<HttpPauseDownloadResult> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Background downloads need a native download manager
+   */
+  public resumeDownload = async (
+    _options: HttpDownloadIdOptions,
+  ): Promise<HttpResumeDownloadResult> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Background downloads need a native download manager
+   */
+  public cancelDownload = async (
+    _options: HttpDownloadIdOptions,
+  ): Promise<HttpCancelDownloadResult> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * Background downloads need a native download manager
+   */
+  public getDownloads = async (): Promise<HttpDownloads> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
+  /**
+   * TLS sessions are managed by the browser, so no statistics are available
+   */
+  public getTlsSessionStats = async (): Promise<HttpTlsSessionStats> => {
+    throw this.unimplemented('Not implemented on web.');
+  };
+
   /**
    * Uploads a file through a POST request
    * @param options TODO